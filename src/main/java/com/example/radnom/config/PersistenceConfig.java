@@ -0,0 +1,50 @@
+package com.example.radnom.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Ustawienia zapisu wsadowego: Hibernate grupuje INSERT/UPDATE w batche JDBC,
+// a sterownik MySQL skleja batch w jedno wielowierszowe INSERT (rewriteBatchedStatements) -
+// bez tego batch i tak idzie do bazy instrukcja po instrukcji
+@Slf4j
+@Configuration
+public class PersistenceConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer batchingCustomizer(
+            @Value("${app.jpa.batch-size:500}") int batchSize) {
+        return properties -> {
+            properties.putIfAbsent(AvailableSettings.STATEMENT_BATCH_SIZE, batchSize);
+            properties.putIfAbsent(AvailableSettings.ORDER_INSERTS, true);
+            properties.putIfAbsent(AvailableSettings.ORDER_UPDATES, true);
+            properties.putIfAbsent(AvailableSettings.BATCH_VERSIONED_DATA, true);
+        };
+    }
+
+    // Static - post-processor musi powstać przed innymi beanami
+    @Bean
+    public static BeanPostProcessor mysqlBatchRewriter() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                // Pula startuje przy pierwszym getConnection(), więc właściwości da się jeszcze zmienić
+                if (bean instanceof HikariDataSource dataSource && isMysql(dataSource)) {
+                    dataSource.addDataSourceProperty("rewriteBatchedStatements", "true");
+                    log.info("Enabled rewriteBatchedStatements on data source {}", beanName);
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static boolean isMysql(HikariDataSource dataSource) {
+        String url = dataSource.getJdbcUrl();
+        return url != null && url.startsWith("jdbc:mysql:");
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.radnom.config;
+
+import com.example.radnom.entity.Product;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+// Produkty dodane wcześniej przez AUTO_INCREMENT mają ID powyżej startu generatora tabelowego -
+// przed pierwszym INSERT licznik w id_sequences musi wyprzedzać MAX(product_id).
+// Zapas o jedną pulę, bo optymalizator pooled wydaje ID z zakresu (wartość - pula, wartość].
+// SmartInitializingSingleton: po utworzeniu schematu, ale przed startem serwera WWW.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductIdAligner implements SmartInitializingSingleton {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + Product.ID_TABLE
+                + " (sequence_name VARCHAR(255) NOT NULL PRIMARY KEY, next_val BIGINT)");
+
+        Long maxId = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(MAX(product_id), 0) FROM radnom", Long.class);
+        long floor = (maxId != null ? maxId : 0) + Product.ID_ALLOCATION_SIZE + 1;
+
+        int updated = jdbcTemplate.update("UPDATE " + Product.ID_TABLE
+                        + " SET next_val = GREATEST(COALESCE(next_val, 0), ?) WHERE sequence_name = ?",
+                floor, Product.ID_SEQUENCE);
+        if (updated == 0) {
+            jdbcTemplate.update("INSERT INTO " + Product.ID_TABLE + " (sequence_name, next_val) VALUES (?, ?)",
+                    Product.ID_SEQUENCE, floor);
+        }
+
+        log.info("Product id generator aligned above max id {}", maxId);
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.radnom.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+// Wiersze sprzed kolumny updated_at dostają datę dodania - inaczej eksport przyrostowy
+// (WHERE updated_at > ?) nigdy by ich nie zwrócił. Po pierwszym starcie UPDATE nic już nie zmienia.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductUpdatedAtBackfill implements SmartInitializingSingleton {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        int updated = jdbcTemplate.update(
+                "UPDATE radnom SET updated_at = COALESCE(created_at, CURRENT_TIMESTAMP) WHERE updated_at IS NULL");
+        if (updated > 0) {
+            log.info("Backfilled updated_at for {} products", updated);
+        }
+    }
+}
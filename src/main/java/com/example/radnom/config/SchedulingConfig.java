@@ -0,0 +1,10 @@
+package com.example.radnom.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Zadania w tle (@Scheduled) - np. wygaszanie rezerwacji i uzgadnianie stanów magazynowych
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
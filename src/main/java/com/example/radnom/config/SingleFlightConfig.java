@@ -0,0 +1,29 @@
+package com.example.radnom.config;
+
+import com.example.radnom.entity.Product;
+import com.example.radnom.entity.dto.ProductSummaryDTO;
+import com.example.radnom.service.catalog.SingleFlight;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+// Osobny lot (i osobny timeout) dla każdego rodzaju odczytu - wolne wyszukiwanie
+// nie ma wpływu na limit oczekiwania strony produktu
+@Configuration
+public class SingleFlightConfig {
+
+    @Bean
+    public SingleFlight<Integer, Product> productByIdFlight(
+            @Value("${app.single-flight.product-timeout-ms:2000}") long timeoutMillis) {
+        return new SingleFlight<>("product-by-id", Duration.ofMillis(timeoutMillis));
+    }
+
+    @Bean
+    public SingleFlight<String, List<ProductSummaryDTO>> productSearchFlight(
+            @Value("${app.single-flight.search-timeout-ms:5000}") long timeoutMillis) {
+        return new SingleFlight<>("product-search", Duration.ofMillis(timeoutMillis));
+    }
+}
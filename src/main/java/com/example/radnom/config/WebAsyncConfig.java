@@ -0,0 +1,20 @@
+package com.example.radnom.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+// Odpowiedzi strumieniowane (StreamingResponseBody) działają asynchronicznie - domyślny
+// limit kontenera (30 s w Tomcacie) przerwałby zapis dużego katalogu
+@Configuration
+public class WebAsyncConfig implements WebMvcConfigurer {
+
+    @Value("${app.streaming.timeout-seconds:600}")
+    private long timeoutSeconds;
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(timeoutSeconds * 1000);
+    }
+}
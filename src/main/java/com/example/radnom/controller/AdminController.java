@@ -0,0 +1,131 @@
+package com.example.radnom.controller;
+
+import com.example.radnom.entity.dto.CacheStatsDTO;
+import com.example.radnom.entity.dto.ProductImportStatusDTO;
+import com.example.radnom.entity.dto.SingleFlightStatsDTO;
+import com.example.radnom.entity.dto.StockReservationStatsDTO;
+import com.example.radnom.service.catalog.ProductCache;
+import com.example.radnom.service.catalog.SingleFlight;
+import com.example.radnom.service.importer.ProductImportFormat;
+import com.example.radnom.service.importer.ProductImportService;
+import com.example.radnom.service.search.SearchResultCache;
+import com.example.radnom.service.stock.StockReservationService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+// Endpointy operacyjne - dostęp tylko dla roli ADMIN (SecurityConfig)
+@Slf4j
+@RestController
+@RequestMapping("/api/admin")
+@RequiredArgsConstructor
+public class AdminController {
+
+    private final ProductCache productCache;
+    private final ProductImportService productImportService;
+    private final SearchResultCache searchResultCache;
+    private final List<SingleFlight<?, ?>> singleFlights;
+    private final StockReservationService stockReservations;
+
+    // ========== CACHE ==========
+
+    // ✅ Liczniki trafień / chybień / eliminacji cache produktów
+    @GetMapping("/cache/products")
+    public ResponseEntity<CacheStatsDTO> getProductCacheStats() {
+        return ResponseEntity.ok(productCache.stats());
+    }
+
+    // Ręczne unieważnienie - np. po zmianie produktu bezpośrednio w bazie
+    @DeleteMapping("/cache/products/{id}")
+    public ResponseEntity<Void> evictProduct(@PathVariable Integer id) {
+        log.info("DELETE /api/admin/cache/products/{}", id);
+        productCache.invalidate(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping("/cache/products")
+    public ResponseEntity<Void> evictAllProducts() {
+        log.info("DELETE /api/admin/cache/products");
+        productCache.invalidateAll();
+        return ResponseEntity.noContent().build();
+    }
+
+    // ✅ Cache wyników wyszukiwania - trafienia, unieważnienia, przybliżona pamięć
+    @GetMapping("/cache/search")
+    public ResponseEntity<CacheStatsDTO> getSearchCacheStats() {
+        return ResponseEntity.ok(searchResultCache.stats());
+    }
+
+    @DeleteMapping("/cache/search")
+    public ResponseEntity<Void> evictSearchResults() {
+        log.info("DELETE /api/admin/cache/search");
+        searchResultCache.invalidateAll();
+        return ResponseEntity.noContent().build();
+    }
+
+    // ✅ Łączenie równoczesnych odczytów - ile wywołań obsłużyło cudze ładowanie
+    @GetMapping("/single-flight")
+    public ResponseEntity<List<SingleFlightStatsDTO>> getSingleFlightStats() {
+        return ResponseEntity.ok(singleFlights.stream().map(SingleFlight::stats).toList());
+    }
+
+    // ========== STOCK ==========
+
+    // ✅ Rezerwacje koszyków w pamięci i sprzedaż czekająca na zapis do bazy
+    @GetMapping("/stock/reservations")
+    public ResponseEntity<StockReservationStatsDTO> getStockReservationStats() {
+        return ResponseEntity.ok(stockReservations.stats());
+    }
+
+    // Natychmiastowe uzgodnienie z bazą (np. po ręcznej zmianie stanów)
+    @PostMapping("/stock/reconcile")
+    public ResponseEntity<StockReservationStatsDTO> reconcileStock() {
+        log.info("POST /api/admin/stock/reconcile");
+        stockReservations.reconcile();
+        return ResponseEntity.ok(stockReservations.stats());
+    }
+
+    // ========== IMPORT ==========
+
+    // ✅ Import hurtowy - treść żądania to plik CSV (z nagłówkiem) lub NDJSON.
+    // Odpowiedź 202 od razu, postęp pod /products/import/{jobId}
+    @PostMapping("/products/import")
+    public ResponseEntity<?> importProducts(
+            @RequestParam(required = false) String format,
+            @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+            HttpServletRequest request) {
+        log.info("POST /api/admin/products/import - format: {}, content type: {}", format, contentType);
+
+        try {
+            ProductImportFormat importFormat = ProductImportFormat.resolve(format, contentType);
+            ProductImportStatusDTO status = productImportService.submit(request.getInputStream(), importFormat);
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .header(HttpHeaders.LOCATION, "/api/admin/products/import/" + status.getJobId())
+                    .body(status);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            log.error("Error submitting product import: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().body("Error submitting import");
+        }
+    }
+
+    // ✅ Status i postęp importu
+    @GetMapping("/products/import/{jobId}")
+    public ResponseEntity<ProductImportStatusDTO> getImportStatus(@PathVariable String jobId) {
+        return productImportService.getStatus(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/products/import")
+    public ResponseEntity<List<ProductImportStatusDTO>> getRecentImports() {
+        return ResponseEntity.ok(productImportService.getRecentJobs());
+    }
+}
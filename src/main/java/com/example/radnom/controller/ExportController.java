@@ -0,0 +1,58 @@
+package com.example.radnom.controller;
+
+import com.example.radnom.service.export.CatalogStreamer;
+import com.example.radnom.service.export.ProductExportFormat;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+
+// Eksport katalogu dla partnerów i feedu wyszukiwarki - wymaga zalogowania (SecurityConfig, anyRequest)
+@Slf4j
+@RestController
+@RequestMapping("/api/export")
+@RequiredArgsConstructor
+public class ExportController {
+
+    // Znacznik do podania jako ?since= przy następnym pobraniu
+    public static final String WATERMARK_HEADER = "X-Export-Watermark";
+
+    private final CatalogStreamer catalogStreamer;
+
+    // ✅ Pełny katalog albo tylko zmiany po since (z usunięciami: deleted = true).
+    // Strumień z kursora bazy - pamięć stała niezależnie od wielkości katalogu
+    @GetMapping("/products")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since) {
+        log.info("GET /api/export/products?format={}&since={}", format, since);
+
+        try {
+            ProductExportFormat exportFormat = ProductExportFormat.parse(format);
+            LocalDateTime watermark = catalogStreamer.watermark();
+
+            String filename = (since != null ? "products-delta." : "products.") + exportFormat.extension();
+            StreamingResponseBody body = out -> catalogStreamer.export(exportFormat, since, out);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(exportFormat.contentType()))
+                    .header(HttpHeaders.CONTENT_DISPOSITION,
+                            ContentDisposition.attachment().filename(filename).build().toString())
+                    .header(WATERMARK_HEADER, watermark.toString())
+                    .body(body);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid export request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Error exporting products: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+}
@@ -1,18 +1,34 @@
 package com.example.radnom.controller;
 
+import com.example.radnom.entity.dto.CursorPage;
+import com.example.radnom.entity.dto.FacetCountDTO;
+import com.example.radnom.entity.dto.FacetSearchResultDTO;
+import com.example.radnom.entity.dto.PriceBucketDTO;
 import com.example.radnom.entity.dto.PriceFilterDTO;
+import com.example.radnom.entity.dto.ProductSearchCriteria;
+import com.example.radnom.entity.dto.ProductSummaryDTO;
 import com.example.radnom.entity.Product;
 import com.example.radnom.service.ProductService;
+import com.example.radnom.service.catalog.CatalogStatistics;
+import com.example.radnom.service.catalog.CatalogVersion;
+import com.example.radnom.service.catalog.SingleFlight;
+import com.example.radnom.service.export.CatalogStreamer;
 import com.example.radnom.entity.dto.QuickSearchResultDTO;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -25,30 +41,70 @@ import java.util.Map;
 public class ProductController {
 
     private final ProductService productService;
+    private final CatalogVersion catalogVersion;
+    private final CatalogStreamer catalogStreamer;
 
     // ========== EXISTING ENDPOINTS ==========
 
+    // ✅ Warunkowy GET - przy aktualnym ETagu 304 bez zapytania do bazy.
+    // Pełny katalog jest strumieniowany z kursora bazy (ta sama tablica JSON co wcześniej),
+    // błąd w trakcie zapisu można już tylko zalogować - status 200 poszedł do klienta
     @GetMapping
-    public ResponseEntity<List<Product>> getAllProducts() {
-        log.info("GET /api/products - returning all products");
+    public ResponseEntity<StreamingResponseBody> getAllProducts(WebRequest request) {
+        log.info("GET /api/products - streaming all products");
         try {
-            List<Product> products = productService.getAllProducts();
-            return ResponseEntity.ok(products);
+            if (notModified(request, catalogVersion.globalETag(), catalogVersion.global())) {
+                return notModifiedResponse();
+            }
+            StreamingResponseBody body = catalogStreamer::writeAll;
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .cacheControl(CacheControl.noCache())
+                    .body(body);
         } catch (Exception e) {
             log.error("Error getting products: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
         }
     }
 
+    // ✅ STRONICOWANIE KURSOROWE - stare endpointy zwracające pełne listy zostają bez zmian
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<Product>> getProductPage(
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+
+        log.info("GET /api/products/page?sort={}&category={}&size={}", sort, category, size);
+
+        try {
+            return ResponseEntity.ok(productService.getProductPage(sort, category, cursor, size));
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid page request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Error getting product page: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<Product> getProductById(@PathVariable Integer id) {
+    public ResponseEntity<Product> getProductById(@PathVariable Integer id, WebRequest request) {
         log.info("GET /api/products/{} - searching...", id);
 
         try {
+            if (notModified(request, catalogVersion.productETag(id), catalogVersion.product(id))) {
+                // Rewalidacja w przeglądarce to też wyświetlenie strony produktu
+                productService.recordProductView(id);
+                return notModifiedResponse();
+            }
             Product product = productService.getProductById(id);
             log.info("Product found: ID={}, Name={}, Price={}",
                     product.getProductId(), product.getProductName(), product.getPrice());
-            return ResponseEntity.ok(product);
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(product);
+        } catch (SingleFlight.WaitTimeoutException e) {
+            log.warn("Product {} load timed out: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         } catch (RuntimeException e) {
             log.warn("Product not found with id: {}", id);
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
@@ -58,12 +114,30 @@ public class ProductController {
         }
     }
 
+    // ✅ "Podobne produkty" na stronie produktu - lista liczona z wyprzedzeniem, tu tylko odczyt
+    @GetMapping("/{id}/similar")
+    public ResponseEntity<List<ProductSummaryDTO>> getSimilarProducts(
+            @PathVariable Integer id,
+            @RequestParam(defaultValue = "8") int limit) {
+        log.info("GET /api/products/{}/similar?limit={}", id, limit);
+
+        try {
+            return ResponseEntity.ok(productService.getSimilarProducts(id, limit));
+        } catch (RuntimeException e) {
+            log.warn("Product not found with id: {}", id);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        } catch (Exception e) {
+            log.error("Error getting similar products: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     @GetMapping("/category/{category}")
-    public ResponseEntity<List<Product>> getProductsByCategory(@PathVariable String category) {
+    public ResponseEntity<List<ProductSummaryDTO>> getProductsByCategory(@PathVariable String category) {
         log.info("GET /api/products/category/{}", category);
 
         try {
-            List<Product> products = productService.getProductsByCategory(category);
+            List<ProductSummaryDTO> products = productService.getProductsByCategory(category);
             log.info("Found {} products in category: {}", products.size(), category);
             return ResponseEntity.ok(products);
         } catch (Exception e) {
@@ -73,13 +147,18 @@ public class ProductController {
     }
 
     @GetMapping("/sorted/{sortType}")
-    public ResponseEntity<List<Product>> getSortedProducts(@PathVariable String sortType) {
-        log.info("GET /api/products/sorted/{}", sortType);
+    public ResponseEntity<List<ProductSummaryDTO>> getSortedProducts(
+            @PathVariable String sortType,
+            @RequestParam(required = false) Integer limit) {
+        log.info("GET /api/products/sorted/{}?limit={}", sortType, limit);
 
         try {
-            List<Product> products = productService.getSortedProducts(sortType);
+            List<ProductSummaryDTO> products = productService.getSortedProducts(sortType, limit);
             log.info("Returning {} sorted products", products.size());
             return ResponseEntity.ok(products);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid sort request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             log.error("Error sorting products: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -87,14 +166,14 @@ public class ProductController {
     }
 
     @PostMapping("/filter/price")
-    public ResponseEntity<List<Product>> getProductsByPriceRange(
+    public ResponseEntity<List<ProductSummaryDTO>> getProductsByPriceRange(
             @RequestBody PriceFilterDTO filterDTO) {
 
         log.info("POST /api/products/filter/price - min: {}, max: {}",
                 filterDTO.getMinPrice(), filterDTO.getMaxPrice());
 
         try {
-            List<Product> filteredProducts = productService.getProductsByPriceRange(
+            List<ProductSummaryDTO> filteredProducts = productService.getProductsByPriceRange(
                     filterDTO.getMinPrice(), filterDTO.getMaxPrice());
 
             log.info("Found {} products in price range: {}-{}",
@@ -107,14 +186,14 @@ public class ProductController {
     }
 
     @GetMapping("/filter/price-old")
-    public ResponseEntity<List<Product>> getProductsByPriceRangeOld(
+    public ResponseEntity<List<ProductSummaryDTO>> getProductsByPriceRangeOld(
             @RequestParam(required = false) Integer minPrice,
             @RequestParam(required = false) Integer maxPrice) {
 
         log.info("GET /api/products/filter/price-old?min={}&max={}", minPrice, maxPrice);
 
         try {
-            List<Product> filteredProducts = productService.getProductsByPriceRange(minPrice, maxPrice);
+            List<ProductSummaryDTO> filteredProducts = productService.getProductsByPriceRange(minPrice, maxPrice);
             return ResponseEntity.ok(filteredProducts);
         } catch (Exception e) {
             log.error("Error filtering by price: {}", e.getMessage(), e);
@@ -122,69 +201,85 @@ public class ProductController {
         }
     }
 
+    @GetMapping("/price-histogram")
+    public ResponseEntity<List<PriceBucketDTO>> getPriceHistogram(
+            @RequestParam(defaultValue = "10") int buckets,
+            @RequestParam(required = false) Integer minPrice,
+            @RequestParam(required = false) Integer maxPrice) {
+
+        log.info("GET /api/products/price-histogram?buckets={}&minPrice={}&maxPrice={}",
+                buckets, minPrice, maxPrice);
+
+        try {
+            return ResponseEntity.ok(productService.getPriceHistogram(buckets, minPrice, maxPrice));
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid histogram request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Error building price histogram: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     // ========== SEARCH ENDPOINTS ==========
 
+    // ✅ Wyniki od najtrafniejszego (BM25), najwyżej `limit` (domyślnie 100).
+    // fuzzy=true - zawsze z literówkami, fuzzy=false - tylko dokładnie,
+    // bez parametru literówki dopiero gdy dokładne wyszukiwanie nic nie znajdzie
     @GetMapping("/search")
-    public ResponseEntity<List<Product>> searchProducts(@RequestParam(required = false) String q) {
-        log.info("GET /api/products/search?q={}", q);
+    public ResponseEntity<List<ProductSummaryDTO>> searchProducts(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) Boolean fuzzy,
+            @RequestParam(required = false) Integer limit) {
+        log.info("GET /api/products/search?q={}&fuzzy={}&limit={}", q, fuzzy, limit);
 
         try {
-            List<Product> products = productService.searchProducts(q);
+            List<ProductSummaryDTO> products = productService.searchProducts(q, fuzzy, limit);
             log.info("Found {} products for query: '{}'", products.size(), q);
             return ResponseEntity.ok(products);
+        } catch (SingleFlight.WaitTimeoutException e) {
+            log.warn("Search '{}' timed out: {}", q, e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         } catch (Exception e) {
             log.error("Error searching products: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
-    @GetMapping("/search/advanced")
-    public ResponseEntity<List<Product>> advancedSearch(
-            @RequestParam(required = false) String query,
-            @RequestParam(required = false) Integer minPrice,
-            @RequestParam(required = false) Integer maxPrice,
-            @RequestParam(required = false) String category,
-            @RequestParam(required = false, defaultValue = "name-asc") String sort) {
+    @GetMapping("/search/page")
+    public ResponseEntity<CursorPage<Product>> searchProductsPage(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
 
-        log.info("GET /api/products/search/advanced?query={}&minPrice={}&maxPrice={}&category={}&sort={}",
-                query, minPrice, maxPrice, category, sort);
+        log.info("GET /api/products/search/page?q={}&size={}", q, size);
 
         try {
-            List<Product> products;
-
-            // Najpierw wyszukaj po query
-            if (query != null && !query.trim().isEmpty()) {
-                products = productService.searchProducts(query);
-            } else {
-                products = productService.getAllProducts();
-            }
+            return ResponseEntity.ok(productService.searchProductsPage(q, cursor, size));
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid search page request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Error searching product page: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
 
-            // Filtruj po kategorii jeśli podana
-            if (category != null && !category.trim().isEmpty()) {
-                products = products.stream()
-                        .filter(p -> p.getCategory() != null &&
-                                p.getCategory().equalsIgnoreCase(category))
-                        .toList();
-            }
+    @GetMapping("/search/advanced")
+    public ResponseEntity<List<Product>> advancedSearch(@ModelAttribute ProductSearchCriteria criteria) {
 
-            // Filtruj po cenie jeśli podana
-            if (minPrice != null || maxPrice != null) {
-                products = products.stream()
-                        .filter(p -> {
-                            boolean passMin = (minPrice == null) || (p.getPrice() >= minPrice);
-                            boolean passMax = (maxPrice == null) || (p.getPrice() <= maxPrice);
-                            return passMin && passMax;
-                        })
-                        .toList();
-            }
+        log.info("GET /api/products/search/advanced?query={}&minPrice={}&maxPrice={}&category={}&inStock={}&sort={}&limit={}",
+                criteria.getQuery(), criteria.getMinPrice(), criteria.getMaxPrice(), criteria.getCategory(),
+                criteria.getInStock(), criteria.getSort(), criteria.getLimit());
 
-            // Sortuj jeśli podano
-            if (sort != null) {
-                products = productService.getSortedProducts(sort);
-            }
+        try {
+            List<Product> products = productService.advancedSearch(criteria);
 
             log.info("Advanced search found {} products", products.size());
             return ResponseEntity.ok(products);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid advanced search: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             log.error("Error in advanced search: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -192,12 +287,15 @@ public class ProductController {
     }
 
     @PostMapping("/search")
-    public ResponseEntity<List<Product>> searchProductsPost(@RequestBody SearchRequest request) {
+    public ResponseEntity<List<ProductSummaryDTO>> searchProductsPost(@RequestBody SearchRequest request) {
         log.info("POST /api/products/search - query: '{}'", request.getQuery());
 
         try {
-            List<Product> products = productService.searchProducts(request.getQuery());
+            List<ProductSummaryDTO> products = productService.searchProducts(request.getQuery());
             return ResponseEntity.ok(products);
+        } catch (SingleFlight.WaitTimeoutException e) {
+            log.warn("Search '{}' timed out: {}", request.getQuery(), e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         } catch (Exception e) {
             log.error("Error searching products: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -219,26 +317,101 @@ public class ProductController {
     }
 
     @GetMapping("/categories")
-    public ResponseEntity<List<String>> getAllCategories() {
+    public ResponseEntity<List<String>> getAllCategories(WebRequest request) {
         log.info("GET /api/products/categories");
 
         try {
+            if (notModified(request, catalogVersion.globalETag(), catalogVersion.global())) {
+                return notModifiedResponse();
+            }
             List<String> categories = productService.getAllCategories();
             log.info("Found {} unique categories", categories.size());
-            return ResponseEntity.ok(categories);
+            return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(categories);
         } catch (Exception e) {
             log.error("Error getting categories: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    @GetMapping("/categories/facets")
+    public ResponseEntity<List<FacetCountDTO>> getCategoryFacets() {
+        log.info("GET /api/products/categories/facets");
+
+        try {
+            return ResponseEntity.ok(productService.getCategoryFacets());
+        } catch (Exception e) {
+            log.error("Error getting category facets: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // ✅ FILTROWANIE FASETOWE - parametry można powtarzać: ?category=A&category=B&brand=X
+    @GetMapping("/facets")
+    public ResponseEntity<FacetSearchResultDTO> filterByFacets(
+            @RequestParam(required = false) List<String> category,
+            @RequestParam(required = false) List<String> brand,
+            @RequestParam(required = false) Boolean inStock,
+            @RequestParam(required = false) List<String> priceBucket,
+            @RequestParam(defaultValue = "24") int limit) {
+
+        log.info("GET /api/products/facets?category={}&brand={}&inStock={}&priceBucket={}&limit={}",
+                category, brand, inStock, priceBucket, limit);
+
+        try {
+            FacetSearchResultDTO result = productService.filterByFacets(category, brand, inStock, priceBucket, limit);
+            log.info("Facet filter matched {} products", result.getTotal());
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            log.error("Error filtering by facets: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping("/brands")
+    public ResponseEntity<List<String>> getAllBrands() {
+        log.info("GET /api/products/brands");
+
+        try {
+            return ResponseEntity.ok(productService.getAllBrands());
+        } catch (Exception e) {
+            log.error("Error getting brands: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping("/brands/facets")
+    public ResponseEntity<List<FacetCountDTO>> getBrandFacets() {
+        log.info("GET /api/products/brands/facets");
+
+        try {
+            return ResponseEntity.ok(productService.getBrandFacets());
+        } catch (Exception e) {
+            log.error("Error getting brand facets: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping("/brand/{brand}")
+    public ResponseEntity<List<ProductSummaryDTO>> getProductsByBrand(@PathVariable String brand) {
+        log.info("GET /api/products/brand/{}", brand);
+
+        try {
+            List<ProductSummaryDTO> products = productService.getProductsByBrand(brand);
+            log.info("Found {} products of brand: {}", products.size(), brand);
+            return ResponseEntity.ok(products);
+        } catch (Exception e) {
+            log.error("Error getting products by brand: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     @GetMapping("/popular")
-    public ResponseEntity<List<Product>> getPopularProducts(
+    public ResponseEntity<List<ProductSummaryDTO>> getPopularProducts(
             @RequestParam(defaultValue = "8") int limit) {
         log.info("GET /api/products/popular?limit={}", limit);
 
         try {
-            List<Product> products = productService.getPopularProducts(limit);
+            List<ProductSummaryDTO> products = productService.getPopularProducts(limit);
             return ResponseEntity.ok(products);
         } catch (Exception e) {
             log.error("Error getting popular products: {}", e.getMessage(), e);
@@ -247,12 +420,12 @@ public class ProductController {
     }
 
     @GetMapping("/new")
-    public ResponseEntity<List<Product>> getNewProducts(
+    public ResponseEntity<List<ProductSummaryDTO>> getNewProducts(
             @RequestParam(defaultValue = "8") int limit) {
         log.info("GET /api/products/new?limit={}", limit);
 
         try {
-            List<Product> products = productService.getNewProducts(limit);
+            List<ProductSummaryDTO> products = productService.getNewProducts(limit);
             return ResponseEntity.ok(products);
         } catch (Exception e) {
             log.error("Error getting new products: {}", e.getMessage(), e);
@@ -260,6 +433,23 @@ public class ProductController {
         }
     }
 
+    @GetMapping("/new/since")
+    public ResponseEntity<List<ProductSummaryDTO>> getProductsAddedSince(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime timestamp,
+            @RequestParam(defaultValue = "50") int limit) {
+        log.info("GET /api/products/new/since?timestamp={}&limit={}", timestamp, limit);
+
+        try {
+            return ResponseEntity.ok(productService.getProductsAddedSince(timestamp, limit));
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid new-since request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Error getting products added since {}: {}", timestamp, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     // ✅ SZYBKIE WYSZUKIWANIE (autocomplete) - POPRAWIONE
     @GetMapping("/search/quick")
     public ResponseEntity<List<QuickSearchResultDTO>> quickSearch(
@@ -269,20 +459,7 @@ public class ProductController {
         log.info("GET /api/products/search/quick?q={}&limit={}", q, limit);
 
         try {
-            List<Product> products = productService.searchProducts(q)
-                    .stream()
-                    .limit(limit)
-                    .toList();
-
-            List<QuickSearchResultDTO> result = products.stream()
-                    .map(p -> QuickSearchResultDTO.builder()
-                            .id(p.getProductId())
-                            .name(p.getProductName())
-                            .price(p.getPrice())
-                            .imageUrl(p.getImageUrl() != null ? p.getImageUrl() : "")
-                            .category(p.getCategory() != null ? p.getCategory() : "")
-                            .build())
-                    .toList();
+            List<QuickSearchResultDTO> result = productService.quickSearch(q, limit);
 
             return ResponseEntity.ok(result);
         } catch (Exception e) {
@@ -291,38 +468,24 @@ public class ProductController {
         }
     }
 
-    // ✅ STATYSTYKI PRODUKTÓW - POPRAWIONE (bez Map.of())
+    // ✅ STATYSTYKI PRODUKTÓW - odczyt z CatalogStatistics (utrzymywane przy zapisach)
     @GetMapping("/stats")
     public ResponseEntity<Map<String, Object>> getProductStats() {
         log.info("GET /api/products/stats");
 
         try {
-            List<Product> allProducts = productService.getAllProducts();
+            CatalogStatistics.Snapshot snapshot = productService.getCatalogStatistics();
 
             Map<String, Object> stats = new HashMap<>();
-            stats.put("totalProducts", allProducts.size());
-            stats.put("totalCategories", productService.getAllCategories().size());
-
-            if (!allProducts.isEmpty()) {
-                Map<String, Integer> priceRange = new HashMap<>();
-                priceRange.put("min", allProducts.stream()
-                        .mapToInt(Product::getPrice)
-                        .min().orElse(0));
-                priceRange.put("max", allProducts.stream()
-                        .mapToInt(Product::getPrice)
-                        .max().orElse(0));
-                stats.put("priceRange", priceRange);
-
-                stats.put("averagePrice", allProducts.stream()
-                        .mapToInt(Product::getPrice)
-                        .average().orElse(0));
-            } else {
-                Map<String, Integer> priceRange = new HashMap<>();
-                priceRange.put("min", 0);
-                priceRange.put("max", 0);
-                stats.put("priceRange", priceRange);
-                stats.put("averagePrice", 0);
-            }
+            stats.put("totalProducts", snapshot.totalProducts());
+            stats.put("totalCategories", snapshot.totalCategories());
+
+            Map<String, Integer> priceRange = new HashMap<>();
+            priceRange.put("min", snapshot.minPrice());
+            priceRange.put("max", snapshot.maxPrice());
+            stats.put("priceRange", priceRange);
+            stats.put("averagePrice", snapshot.averagePrice());
+            stats.put("productsPerCategory", snapshot.productsPerCategory());
 
             return ResponseEntity.ok(stats);
         } catch (Exception e) {
@@ -331,6 +494,18 @@ public class ProductController {
         }
     }
 
+    // ========== CONDITIONAL GET ==========
+
+    // Ustawia ETag i Last-Modified; true gdy If-None-Match / If-Modified-Since pasuje do wersji katalogu
+    private static boolean notModified(WebRequest request, String etag, CatalogVersion.Stamp stamp) {
+        return request.checkNotModified(etag, stamp.lastModifiedMillis());
+    }
+
+    // no-cache = przeglądarka i proxy mogą trzymać odpowiedź, ale zawsze ją rewalidują
+    private static <T> ResponseEntity<T> notModifiedResponse() {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(CacheControl.noCache()).build();
+    }
+
     // ========== DTO CLASSES ==========
 
     @Data
@@ -23,7 +23,8 @@ public class CartItem {
     @JsonIgnore
     private Cart cart;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    // LAZY - pozycja ma własny snapshot (nazwa, cena, zdjęcie), do zapisu wystarcza ID produktu
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "product_id", nullable = false)
     private Product product;
 
@@ -40,6 +41,10 @@ public class CartItem {
     @Column(name = "image_url")
     private String imageUrl;
 
+    // Product.priceVersion, z której pochodzi snapshot - CartRepricer poprawia pozycje ze starszą
+    @Column(name = "price_version")
+    private Integer priceVersion;
+
     @Column(name = "added_at")
     @Builder.Default
     private LocalDateTime addedAt = LocalDateTime.now();
@@ -50,14 +55,10 @@ public class CartItem {
 
     // ========== LIFECYCLE CALLBACKS ==========
 
+    // Snapshot z produktu ustawia CartService przy dodaniu, potem już tylko CartRepricer (batch SQL)
     @PrePersist
     @PreUpdate
-    private void syncProductData() {
-        if (product != null) {
-            this.productName = product.getProductName();
-            this.price = product.getPrice();
-            this.imageUrl = product.getImageUrl();
-        }
+    private void touch() {
         this.updatedAt = LocalDateTime.now();
     }
 
@@ -97,10 +98,12 @@ public class CartItem {
         }
     }
 
-    public void updatePriceFromProduct() {
-        if (product != null && product.getPrice() != null) {
-            this.price = product.getPrice();
-        }
+    // Snapshot danych produktu - jedyne miejsce, które czyta z encji Product
+    public void snapshotFrom(Product source) {
+        this.productName = source.getProductName();
+        this.price = source.getPrice();
+        this.imageUrl = source.getImageUrl();
+        this.priceVersion = source.getPriceVersion() != null ? source.getPriceVersion() : 0;
     }
 
     // ========== VALIDATION METHODS ==========
@@ -1,25 +1,49 @@
 package com.example.radnom.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import com.example.radnom.service.catalog.ProductEntityListener;
 import jakarta.persistence.*;
 
+import java.time.LocalDateTime;
+import java.util.Objects;
+
 @Entity
-@Table(name = "radnom")
+@Table(name = "radnom", indexes = {
+        @Index(name = "idx_radnom_category_price", columnList = "category, price"),
+        @Index(name = "idx_radnom_price", columnList = "price"),
+        @Index(name = "idx_radnom_brand", columnList = "brand"),
+        @Index(name = "idx_radnom_created_at", columnList = "created_at"),
+        @Index(name = "idx_radnom_updated_at", columnList = "updated_at")
+})
+@EntityListeners(ProductEntityListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler", "cartItems"})
 public class Product {
 
-    @Id
-    // ❌ USUŃ TĘ LINIĘ:
-    // @GeneratedValue(strategy = GenerationType.IDENTITY)
-
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    public static final String ID_GENERATOR = "product_id_generator";
+    public static final String ID_TABLE = "id_sequences";
+    public static final String ID_SEQUENCE = "radnom";
+    public static final int ID_ALLOCATION_SIZE = 500;
 
+    // Pula ID z tabeli id_sequences (optymalizator pooled) zamiast IDENTITY - przy IDENTITY
+    // Hibernate musi wykonać każdy INSERT osobno, żeby poznać ID, więc batchowanie nie działa.
+    // Licznik wyrównuje do MAX(product_id) ProductIdAligner przy starcie.
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = ID_GENERATOR)
+    @TableGenerator(name = ID_GENERATOR, table = ID_TABLE,
+            pkColumnName = "sequence_name", valueColumnName = "next_val",
+            pkColumnValue = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     @Column(name = "product_id")
     private Integer id;
 
@@ -29,9 +53,31 @@ public class Product {
     @Column(name = "price")
     private Integer price;
 
+    // Rośnie przy każdej zmianie ceny - pozycje koszyka trzymają wersję, z którą skopiowały cenę
+    // (CartItem.priceVersion), CartRepricer poprawia te ze starszą
+    @Column(name = "price_version")
+    private Integer priceVersion = 0;
+
+    // Cena w chwili wczytania z bazy - @PreUpdate po niej rozpoznaje zmianę ceny
+    @Transient
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Integer loadedPrice;
+
     @Column(name = "product_date")
     private String productDate;
 
+    // Właściwy znacznik czasu dodania (productDate to dowolny tekst, nie da się go indeksować)
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    // Ostatnia zmiana wiersza - po niej eksport przyrostowy (?since=) wybiera zmienione produkty
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
 //NOWE POLA DLA STRONY PRODUKTU
 
     @Column(name = "description", length = 1000)
@@ -61,6 +107,32 @@ public class Product {
     @Column(name = "review_count")
     private Integer reviewCount = 0;
 
+    @PrePersist
+    private void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+        updatedAt = LocalDateTime.now();
+        if (priceVersion == null) {
+            priceVersion = 0;
+        }
+        loadedPrice = price;
+    }
+
+    @PostLoad
+    private void onLoad() {
+        loadedPrice = price;
+    }
+
+    @PreUpdate
+    private void onUpdate() {
+        updatedAt = LocalDateTime.now();
+        if (!Objects.equals(price, loadedPrice)) {
+            priceVersion = (priceVersion != null ? priceVersion : 0) + 1;
+            loadedPrice = price;
+        }
+    }
+
     public Integer getProductId() {
         return this.id;
     }
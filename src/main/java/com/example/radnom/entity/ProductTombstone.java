@@ -0,0 +1,28 @@
+package com.example.radnom.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Ślad po usuniętym produkcie - eksport przyrostowy musi przekazać odbiorcom także usunięcia,
+// a samego wiersza w radnom już nie ma. Zapisywany w tej samej transakcji co DELETE
+// (ProductEntityListener).
+@Entity
+@Table(name = "product_tombstones", indexes = {
+        @Index(name = "idx_product_tombstones_deleted_at", columnList = "deleted_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductTombstone {
+
+    @Id
+    @Column(name = "product_id")
+    private Integer productId;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+}
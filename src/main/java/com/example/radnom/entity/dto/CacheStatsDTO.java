@@ -0,0 +1,24 @@
+package com.example.radnom.entity.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatsDTO {
+    private String name;
+    private long size;
+    private long maximumSize;
+    private long hits;
+    private long misses;
+    private double hitRate;
+    private long evictions;
+    private long loads;
+    private double averageLoadMillis;
+    private long invalidations;     // wpisy usunięte po zmianach produktów
+    private long estimatedBytes;    // przybliżona pamięć wpisów (0 gdy nieliczona)
+}
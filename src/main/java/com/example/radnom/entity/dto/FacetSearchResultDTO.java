@@ -0,0 +1,19 @@
+package com.example.radnom.entity.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetSearchResultDTO {
+    private int total;
+    private List<ProductSummaryDTO> products;           // pierwsze `limit` trafień
+    private Map<String, List<FacetCountDTO>> facets;    // liczniki dla każdej wartości fasety
+}
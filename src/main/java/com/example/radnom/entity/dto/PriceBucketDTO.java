@@ -0,0 +1,16 @@
+package com.example.radnom.entity.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceBucketDTO {
+    private int from;   // włącznie
+    private int to;     // włącznie
+    private int count;
+}
@@ -0,0 +1,29 @@
+package com.example.radnom.entity.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImportStatusDTO {
+    private String jobId;
+    private String format;
+    private String status;          // QUEUED, RUNNING, COMPLETED, FAILED
+    private long bytes;
+    private long processedRows;
+    private long importedRows;
+    private long rejectedRows;
+    private double rowsPerSecond;
+    private LocalDateTime submittedAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String message;
+    private List<String> errors;    // pierwsze odrzucone wiersze z numerem linii
+}
@@ -0,0 +1,39 @@
+package com.example.radnom.entity.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Parametry /api/products/search/advanced - wszystkie filtry trafiają do jednego zapytania SQL
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSearchCriteria {
+    private String query;
+    private String category;
+    private Integer minPrice;
+    private Integer maxPrice;
+    private Boolean inStock;
+
+    @Builder.Default
+    private String sort = "name-asc";
+
+    private Integer limit;
+
+    public boolean hasQuery() {
+        return query != null && !query.trim().isEmpty();
+    }
+
+    public boolean hasCategory() {
+        return category != null && !category.trim().isEmpty();
+    }
+
+    public boolean isValid() {
+        if (minPrice != null && minPrice < 0) return false;
+        if (maxPrice != null && maxPrice < 0) return false;
+        if (minPrice != null && maxPrice != null && minPrice > maxPrice) return false;
+        return limit == null || limit > 0;
+    }
+}
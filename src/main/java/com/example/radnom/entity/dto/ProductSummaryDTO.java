@@ -0,0 +1,28 @@
+package com.example.radnom.entity.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Produkt na liście (wyszukiwarka, kategoria, sortowanie, popularne) - tylko kolumny potrzebne
+// kafelkowi. Pełny Product (opis, wymiary, waga) zwraca wyłącznie GET /api/products/{id}.
+// Kolejność pól = kolejność w konstruktorze użytym w zapytaniach JPQL (ProductRepository).
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSummaryDTO {
+    private Integer id;
+    private String productName;
+    private Integer price;
+    private String imageUrl;
+    private String category;
+    private Double rating;
+    private Integer stock;
+
+    // Frontend czyta productId (tak jak z encji Product)
+    public Integer getProductId() {
+        return id;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.radnom.entity.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SingleFlightStatsDTO {
+    private String name;
+    private long calls;
+    private long executions;        // faktyczne ładowania (zapytania do bazy / cache)
+    private long coalesced;         // wywołania obsłużone cudzym ładowaniem
+    private double coalescedRatio;
+    private long timeouts;
+    private long failures;
+    private int inFlight;
+    private long timeoutMillis;
+}
@@ -0,0 +1,18 @@
+package com.example.radnom.entity.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservationStatsDTO {
+    private int trackedProducts;
+    private long activeHolds;
+    private long heldUnits;
+    private long pendingSoldUnits;  // sprzedane, jeszcze nie zapisane w radnom.stock
+    private long holdMinutes;
+}
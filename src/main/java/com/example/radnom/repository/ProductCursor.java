@@ -0,0 +1,39 @@
+package com.example.radnom.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Pozycja w stronicowaniu keyset: (wartość klucza sortowania, product_id) ostatniego wiersza.
+// Dla klienta to nieprzezroczysty token base64url. Klucz ma prefiks VALUE, pusty zapis to NULL
+// (produkt bez ceny/oceny/nazwy) - pusta nazwa i brak nazwy to różne pozycje.
+public record ProductCursor(String sort, Integer lastId, String lastKey) {
+
+    private static final String SEPARATOR = "|";
+    private static final String VALUE = "=";
+
+    public String encode() {
+        String raw = sort + SEPARATOR + lastId + SEPARATOR + (lastKey != null ? VALUE + lastKey : "");
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ProductCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int first = raw.indexOf(SEPARATOR);
+            int second = raw.indexOf(SEPARATOR, first + 1);
+            if (first < 0 || second < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+
+            String key = raw.substring(second + 1);
+            return new ProductCursor(
+                    raw.substring(0, first),
+                    Integer.valueOf(raw.substring(first + 1, second)),
+                    key.isEmpty() ? null : key.startsWith(VALUE) ? key.substring(VALUE.length()) : key);
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException też tu trafia
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -1,16 +1,32 @@
 package com.example.radnom.repository;
 
 import com.example.radnom.entity.Product;
+import com.example.radnom.entity.dto.ProductSummaryDTO;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Integer> {
+public interface ProductRepository extends JpaRepository<Product, Integer>, ProductRepositoryCustom {
+
+    // Connector/J przy fetchSize = Integer.MIN_VALUE czyta wynik wiersz po wierszu zamiast całego do pamięci
+    String STREAMING_FETCH_SIZE = "" + Integer.MIN_VALUE;
+
+    // Projekcja listowa - SELECT tylko tych kolumn, bez encji w persistence context
+    String SUMMARY_SELECT = "SELECT new com.example.radnom.entity.dto.ProductSummaryDTO(" +
+            "p.id, p.productName, p.price, p.imageUrl, p.category, p.rating, p.stock) FROM Product p";
 
     // ========== SPRING DATA JPA METHOD NAMES ==========
 
@@ -39,6 +55,70 @@ public interface ProductRepository extends JpaRepository<Product, Integer> {
     // ✅ Filtrowanie po dostępności
     List<Product> findByStockGreaterThan(Integer stock);
 
+    // ✅ Same stany magazynowe (id, stock) - uzgadnianie rezerwacji bez ładowania encji
+    @Query("SELECT p.id, p.stock FROM Product p WHERE p.id IN :ids")
+    List<Object[]> findStockByIdIn(@Param("ids") Collection<Integer> ids);
+
+    // ========== STREAMING ==========
+
+    // ✅ Cały katalog jako strumień (tylko w transakcji, strumień trzeba zamknąć)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAMING_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Product p ORDER BY p.id")
+    Stream<Product> streamAllOrderById();
+
+    // ✅ Produkty dodane lub zmienione po danym momencie (eksport przyrostowy), od najstarszej zmiany
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAMING_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Product p WHERE p.updatedAt > :since ORDER BY p.updatedAt, p.id")
+    Stream<Product> streamUpdatedSince(@Param("since") LocalDateTime since);
+
+    // ========== LIST PROJECTIONS ==========
+
+    // ✅ Po ID z indeksów w pamięci (kolejność ustala serwis)
+    @Query(SUMMARY_SELECT + " WHERE p.id IN :ids")
+    List<ProductSummaryDTO> findSummariesByIdIn(@Param("ids") Collection<Integer> ids);
+
+    // ✅ Cały katalog posortowany (ORDER BY z Sort) lub jego wycinek (Pageable)
+    @Query(SUMMARY_SELECT)
+    List<ProductSummaryDTO> findSummaries(Sort sort);
+
+    @Query(SUMMARY_SELECT)
+    List<ProductSummaryDTO> findSummaries(Pageable pageable);
+
+    @Query(SUMMARY_SELECT + " WHERE p.category = :category")
+    List<ProductSummaryDTO> findSummariesByCategory(@Param("category") String category);
+
+    @Query(SUMMARY_SELECT + " WHERE p.brand = :brand")
+    List<ProductSummaryDTO> findSummariesByBrand(@Param("brand") String brand);
+
+    @Query(SUMMARY_SELECT + " WHERE p.price BETWEEN :minPrice AND :maxPrice")
+    List<ProductSummaryDTO> findSummariesByPriceBetween(
+            @Param("minPrice") Integer minPrice,
+            @Param("maxPrice") Integer maxPrice);
+
+    // Nowości - produkty dodane po danej chwili (indeks na created_at)
+    @Query(SUMMARY_SELECT + " WHERE p.createdAt > :since")
+    List<ProductSummaryDTO> findSummariesCreatedAfter(@Param("since") LocalDateTime since, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + " WHERE " +
+            "LOWER(p.productName) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
+            "LOWER(p.description) LIKE LOWER(CONCAT('%', :query, '%'))")
+    List<ProductSummaryDTO> searchSummariesByNameOrDescription(@Param("query") String query);
+
+    @Query(SUMMARY_SELECT + " WHERE " +
+            "(LOWER(p.productName) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
+            "LOWER(p.description) LIKE LOWER(CONCAT('%', :query, '%'))) AND " +
+            "p.price BETWEEN :minPrice AND :maxPrice")
+    List<ProductSummaryDTO> searchSummariesWithPriceRange(
+            @Param("query") String query,
+            @Param("minPrice") Integer minPrice,
+            @Param("maxPrice") Integer maxPrice);
+
     // ========== CUSTOM JPQL QUERIES ==========
 
     // ✅ WYSZUKIWANIE PO NAZWIE (case-insensitive) - JPQL
@@ -51,6 +131,12 @@ public interface ProductRepository extends JpaRepository<Product, Integer> {
             "LOWER(p.description) LIKE LOWER(CONCAT('%', :query, '%'))")
     List<Product> searchByNameOrDescription(@Param("query") String query);
 
+    // ✅ To samo, ale tylko ID (dla DatabaseSearchEngine)
+    @Query("SELECT p.id FROM Product p WHERE " +
+            "LOWER(p.productName) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
+            "LOWER(p.description) LIKE LOWER(CONCAT('%', :query, '%'))")
+    List<Integer> searchIdsByNameOrDescription(@Param("query") String query);
+
     // ✅ WYSZUKIWANIE PO KATEGORII - JPQL
     @Query("SELECT p FROM Product p WHERE LOWER(p.category) LIKE LOWER(CONCAT('%', :query, '%'))")
     List<Product> searchByCategory(@Param("query") String query);
@@ -82,6 +168,16 @@ public interface ProductRepository extends JpaRepository<Product, Integer> {
     @Query("SELECT DISTINCT p.category FROM Product p WHERE p.category IS NOT NULL")
     List<String> findAllDistinctCategories();
 
+    // ✅ LICZBA PRODUKTÓW W KATEGORIACH - bez pustych, jak w indeksach (zimny start)
+    @Query("SELECT p.category, COUNT(p) FROM Product p " +
+            "WHERE p.category IS NOT NULL AND TRIM(p.category) <> '' GROUP BY p.category")
+    List<Object[]> countProductsByCategory();
+
+    // ✅ LICZBA PRODUKTÓW MARKI - bez pustych, jak w FacetIndex (zimny start)
+    @Query("SELECT p.brand, COUNT(p) FROM Product p " +
+            "WHERE p.brand IS NOT NULL AND TRIM(p.brand) <> '' GROUP BY p.brand")
+    List<Object[]> countProductsByBrand();
+
     // ✅ STATYSTYKI PRODUKTÓW
     @Query("SELECT COUNT(p), AVG(p.price), MIN(p.price), MAX(p.price) FROM Product p")
     Object[] getProductStatistics();
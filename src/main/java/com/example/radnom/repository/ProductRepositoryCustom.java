@@ -0,0 +1,20 @@
+package com.example.radnom.repository;
+
+import com.example.radnom.entity.Product;
+import com.example.radnom.entity.dto.ProductSearchCriteria;
+
+import java.util.Collection;
+import java.util.List;
+
+// Zapytania budowane dynamicznie (Criteria API) - implementacja w ProductRepositoryImpl
+public interface ProductRepositoryCustom {
+
+    // Stronicowanie keyset: WHERE (klucz, id) > (ostatni klucz, ostatnie id) ORDER BY klucz, id LIMIT n
+    List<Product> findPage(ProductSort sort, String category, ProductCursor after, int limit);
+
+    // Wyszukiwanie zaawansowane w jednym zapytaniu: filtry + ORDER BY + LIMIT.
+    // matchingIds != null -> tekst już rozwiązany przez silnik wyszukiwania (id IN ..., długa lista
+    // paczkami), null -> tekst filtrowany w SQL przez LIKE (tylko gdy indeks nie jest gotowy)
+    List<Product> findByCriteria(ProductSearchCriteria criteria, Collection<Integer> matchingIds,
+                                 ProductSort sort, int limit);
+}
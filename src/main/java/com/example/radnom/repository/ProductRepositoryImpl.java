@@ -0,0 +1,170 @@
+package com.example.radnom.repository;
+
+import com.example.radnom.entity.Product;
+import com.example.radnom.entity.dto.ProductSearchCriteria;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.*;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+@Transactional(readOnly = true)
+public class ProductRepositoryImpl implements ProductRepositoryCustom {
+
+    // Dłuższa lista ID z wyszukiwarki idzie do bazy paczkami (rozmiar zapytania, plan IN)
+    private static final int MAX_IN_LIST_SIZE = 5000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Product> findPage(ProductSort sort, String category, ProductCursor after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Product> query = cb.createQuery(Product.class);
+        Root<Product> product = query.from(Product.class);
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (category != null && !category.trim().isEmpty()) {
+            predicates.add(cb.equal(product.get("category"), category.trim()));
+        }
+        if (after != null) {
+            predicates.add(seekPredicate(cb, product, sort, after));
+        }
+
+        query.select(product)
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(orders(cb, product, sort));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    // Do MAX_IN_LIST_SIZE trafień (praktycznie każde zapytanie) to jedno zapytanie z filtrami,
+    // ORDER BY i LIMIT. Dłuższa lista to świadome odstępstwo od "jednego zapytania": zamiast
+    // tabeli tymczasowej (osobne połączenie, DDL w transakcji tylko do odczytu) każda paczka
+    // daje swoje top `limit`, a wynik jest scalany w pamięci - patrz mergeChunks
+    @Override
+    public List<Product> findByCriteria(ProductSearchCriteria criteria, Collection<Integer> matchingIds,
+                                        ProductSort sort, int limit) {
+        if (matchingIds == null || matchingIds.size() <= MAX_IN_LIST_SIZE) {
+            return findByCriteriaOnce(criteria, matchingIds, sort, limit);
+        }
+        return mergeChunks(new ArrayList<>(matchingIds), MAX_IN_LIST_SIZE,
+                chunk -> findByCriteriaOnce(criteria, chunk, sort, limit), sort, limit);
+    }
+
+    // Globalne top `limit` jest wśród top `limit` każdej paczki, więc wystarczy scalić wyniki
+    // paczek tym samym porządkiem co ORDER BY (ProductSort.comparator) i uciąć.
+    // Koszt: liczba paczek zapytań, każde zwraca najwyżej `limit` wierszy
+    static List<Product> mergeChunks(List<Integer> ids, int chunkSize,
+                                     Function<List<Integer>, List<Product>> query,
+                                     ProductSort sort, int limit) {
+        List<Product> merged = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            merged.addAll(query.apply(ids.subList(from, Math.min(from + chunkSize, ids.size()))));
+        }
+        merged.sort(comparator(sort));
+        return merged.size() > limit ? new ArrayList<>(merged.subList(0, limit)) : merged;
+    }
+
+    // ========== PRIVATE ==========
+
+    private List<Product> findByCriteriaOnce(ProductSearchCriteria criteria, Collection<Integer> matchingIds,
+                                             ProductSort sort, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Product> query = cb.createQuery(Product.class);
+        Root<Product> product = query.from(Product.class);
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (matchingIds != null) {
+            predicates.add(product.get("id").in(matchingIds));
+        } else if (criteria.hasQuery()) {
+            String pattern = "%" + criteria.getQuery().trim().toLowerCase() + "%";
+            predicates.add(cb.or(
+                    cb.like(cb.lower(product.get("productName")), pattern),
+                    cb.like(cb.lower(product.get("description")), pattern),
+                    cb.like(cb.lower(product.get("category")), pattern)));
+        }
+        if (criteria.hasCategory()) {
+            predicates.add(cb.equal(product.get("category"), criteria.getCategory().trim()));
+        }
+        if (criteria.getMinPrice() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(product.get("price"), criteria.getMinPrice()));
+        }
+        if (criteria.getMaxPrice() != null) {
+            predicates.add(cb.lessThanOrEqualTo(product.get("price"), criteria.getMaxPrice()));
+        }
+        if (Boolean.TRUE.equals(criteria.getInStock())) {
+            predicates.add(cb.greaterThan(product.get("stock"), 0));
+        }
+
+        query.select(product)
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(orders(cb, product, sort));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    private Predicate seekPredicate(CriteriaBuilder cb, Root<Product> product,
+                                    ProductSort sort, ProductCursor after) {
+        boolean ascending = sort.getDirection().isAscending();
+        Path<Integer> id = product.get("id");
+        Predicate idAfter = ascending ? cb.greaterThan(id, after.lastId()) : cb.lessThan(id, after.lastId());
+
+        if (sort.isById()) {
+            return idAfter;
+        }
+
+        Path<Object> key = product.get(sort.getAttribute());
+        String lastKey = after.lastKey();
+        if (lastKey == null) {
+            // Ostatni wiersz miał NULL: przy ASC sekcja NULL jest pierwsza, dalej wszystkie wartości;
+            // przy DESC ostatnia - zostaje tylko jej reszta
+            Predicate nullsAfter = cb.and(cb.isNull(key), idAfter);
+            return ascending ? cb.or(nullsAfter, cb.isNotNull(key)) : nullsAfter;
+        }
+
+        Predicate valuesAfter = switch (sort.getAttribute()) {
+            case "price", "reviewCount" -> keyAfter(cb, product.get(sort.getAttribute()),
+                    Integer.valueOf(lastKey), ascending, idAfter);
+            case "rating" -> keyAfter(cb, product.get(sort.getAttribute()),
+                    Double.valueOf(lastKey), ascending, idAfter);
+            default -> keyAfter(cb, product.get(sort.getAttribute()), lastKey, ascending, idAfter);
+        };
+        // Kolejność jak ORDER BY w MySQL: NULL na początku przy ASC, na końcu przy DESC
+        return ascending ? valuesAfter : cb.or(valuesAfter, cb.isNull(key));
+    }
+
+    // (klucz > ostatni) OR (klucz = ostatni AND id > ostatnie id) - odwrotnie dla DESC
+    private <Y extends Comparable<? super Y>> Predicate keyAfter(CriteriaBuilder cb, Path<Y> key, Y lastKey,
+                                                                 boolean ascending, Predicate idAfter) {
+        return cb.or(
+                ascending ? cb.greaterThan(key, lastKey) : cb.lessThan(key, lastKey),
+                cb.and(cb.equal(key, lastKey), idAfter));
+    }
+
+    private List<Order> orders(CriteriaBuilder cb, Root<Product> product, ProductSort sort) {
+        boolean ascending = sort.getDirection().isAscending();
+        List<Order> orders = new ArrayList<>();
+        if (!sort.isById()) {
+            Path<Object> key = product.get(sort.getAttribute());
+            orders.add(ascending ? cb.asc(key) : cb.desc(key));
+        }
+        Path<Object> id = product.get("id");
+        orders.add(ascending ? cb.asc(id) : cb.desc(id));
+        return orders;
+    }
+
+    // Odpowiednik orders() w pamięci - ten sam porządek co widoki SortedCatalogViews
+    private static Comparator<Product> comparator(ProductSort sort) {
+        return sort.comparator(sort::keyOf, Product::getId);
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.radnom.repository;
+
+import com.example.radnom.entity.Product;
+import org.springframework.data.domain.Sort;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.regex.Pattern;
+
+// Obsługiwane sortowania listy produktów (kody jak w /api/products/sorted/{sortType})
+public enum ProductSort {
+
+    ID_ASC("id", "id", Sort.Direction.ASC),
+    PRICE_ASC("price-asc", "price", Sort.Direction.ASC),
+    PRICE_DESC("price-desc", "price", Sort.Direction.DESC),
+    NAME_ASC("name-asc", "productName", Sort.Direction.ASC),
+    NAME_DESC("name-desc", "productName", Sort.Direction.DESC),
+    RATING_DESC("rating-desc", "rating", Sort.Direction.DESC),
+    RATING_ASC("rating-asc", "rating", Sort.Direction.ASC),
+    REVIEWS_DESC("reviews-desc", "reviewCount", Sort.Direction.DESC),
+    REVIEWS_ASC("reviews-asc", "reviewCount", Sort.Direction.ASC);
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private final String code;
+    private final String attribute;
+    private final Sort.Direction direction;
+
+    ProductSort(String code, String attribute, Sort.Direction direction) {
+        this.code = code;
+        this.attribute = attribute;
+        this.direction = direction;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getAttribute() {
+        return attribute;
+    }
+
+    public Sort.Direction getDirection() {
+        return direction;
+    }
+
+    public boolean isById() {
+        return this == ID_ASC;
+    }
+
+    // ORDER BY klucz, id - id rozstrzyga remisy, kolejność jest stabilna
+    public Sort toSort() {
+        Sort byId = Sort.by(direction, "id");
+        return isById() ? byId : Sort.by(direction, attribute).and(byId);
+    }
+
+    // Porządek toSort() w pamięci, taki jak w MySQL: NULL jest najmniejszy (pierwszy przy ASC,
+    // ostatni przy DESC), remis rozstrzyga id. Nazwy porównujemy po nameKey().
+    // Widoki w pamięci i scalanie paczek muszą dawać tę samą kolejność co ORDER BY w bazie
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public <T> Comparator<T> comparator(Function<T, Comparable> key, ToIntFunction<T> id) {
+        Comparator<T> byId = Comparator.comparingInt(id);
+        Comparator<T> ascending = isById()
+                ? byId
+                : Comparator.comparing(key, Comparator.nullsFirst(Comparator.<Comparable>naturalOrder()))
+                        .thenComparing(byId);
+        return direction.isAscending() ? ascending : ascending.reversed();
+    }
+
+    // Klucz sortowania produktu do comparator() - nazwa już jako nameKey()
+    @SuppressWarnings("rawtypes")
+    public Comparable keyOf(Product product) {
+        return switch (attribute) {
+            case "price" -> product.getPrice();
+            case "productName" -> nameKey(product.getProductName());
+            case "rating" -> product.getRating();
+            case "reviewCount" -> product.getReviewCount();
+            default -> null;
+        };
+    }
+
+    // Nazwa tak, jak porównuje ją domyślna collation MySQL 8 (utf8mb4_0900_ai_ci): bez wielkości
+    // liter i znaków diakrytycznych ("Łódka" = "lodka"). Dla liter, cyfr i spacji porządek
+    // zgadza się z bazą, znaki interpunkcyjne collation układa inaczej niż kody znaków
+    public static String nameKey(String name) {
+        if (name == null) {
+            return null;
+        }
+        String withoutMarks = COMBINING_MARKS.matcher(Normalizer.normalize(name, Normalizer.Form.NFD)).replaceAll("");
+        return withoutMarks.toLowerCase(Locale.ROOT).replace('ł', 'l');
+    }
+
+    public static ProductSort fromCode(String code) {
+        if (code == null || code.trim().isEmpty()) {
+            return ID_ASC;
+        }
+        return find(code)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown sort type: " + code));
+    }
+
+    public static Optional<ProductSort> find(String code) {
+        if (code == null) {
+            return Optional.empty();
+        }
+        return Arrays.stream(values())
+                .filter(sort -> sort.code.equalsIgnoreCase(code.trim()))
+                .findFirst();
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.radnom.repository;
+
+import com.example.radnom.entity.ProductTombstone;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import static com.example.radnom.repository.ProductRepository.STREAMING_FETCH_SIZE;
+
+@Repository
+public interface ProductTombstoneRepository extends JpaRepository<ProductTombstone, Integer> {
+
+    // ✅ Usunięcia po danym momencie, w kolejności usuwania (tylko w transakcji, strumień trzeba zamknąć)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAMING_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT t FROM ProductTombstone t WHERE t.deletedAt > :since ORDER BY t.deletedAt, t.productId")
+    Stream<ProductTombstone> streamDeletedSince(@Param("since") LocalDateTime since);
+}
@@ -2,10 +2,15 @@ package com.example.radnom.service;
 
 import com.example.radnom.entity.*;
 import com.example.radnom.repository.*;
+import com.example.radnom.service.catalog.PopularityTracker;
+import com.example.radnom.service.catalog.ProductCache;
+import com.example.radnom.service.stock.StockReservationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
 import java.util.Optional;
@@ -18,8 +23,10 @@ public class CartService {
 
     private final CartRepository cartRepository;
     private final CartItemRepository cartItemRepository;
-    private final ProductRepository productRepository;
     private final UserRepository userRepository;
+    private final PopularityTracker popularityTracker;
+    private final ProductCache productCache;
+    private final StockReservationService stockReservations;
 
     // ========== PUBLIC API ==========
 
@@ -52,20 +59,25 @@ public class CartService {
 
         validateAddToCartRequest(email, productId, quantity);
         Cart cart = getOrCreateCart(email);
-        Product product = getProductById(productId);
 
         Optional<CartItem> existingItem = cartItemRepository
                 .findByCartIdAndProductId(cart.getId(), productId);
 
         if (existingItem.isPresent()) {
+            // Pozycja ma już snapshot ceny (aktualny dzięki CartRepricer) - produkt niepotrzebny.
+            // Rezerwacja przed zapisem - przy braku sztuk IllegalArgumentException("Insufficient stock")
+            reserve(cart, productId, existingItem.get().getQuantity() + quantity);
             updateExistingItem(existingItem.get(), quantity);
             cartItemRepository.save(existingItem.get());
         } else {
+            Product product = getProductById(productId);
+            reserve(cart, productId, quantity);
             CartItem newItem = createCartItem(cart, product, quantity);
             cartItemRepository.save(newItem);
             cart.addItem(newItem); // ✅ Użyj metody z encji
         }
 
+        popularityTracker.recordCartAdd(productId);
         log.info("Successfully added product {} (quantity: {}) to cart for user {}",
                 productId, quantity, email);
 
@@ -84,6 +96,7 @@ public class CartService {
 
         cartItemRepository.delete(item);
         cart.removeItem(item); // ✅ Użyj metody z encji
+        afterCommit(() -> stockReservations.release(cart.getId(), productId));
 
         log.info("Successfully removed product {} from cart for user {}", productId, email);
         return cartRepository.save(cart);
@@ -102,12 +115,14 @@ public class CartService {
                     .ifPresent(item -> {
                         cartItemRepository.delete(item);
                         cart.getItems().removeIf(ci -> ci.getId().equals(item.getId()));
+                        afterCommit(() -> stockReservations.release(cart.getId(), productId));
                     });
         } else {
             CartItem item = cartItemRepository
                     .findByCartIdAndProductId(cart.getId(), productId)
                     .orElseThrow(() -> new IllegalArgumentException("Product not found in cart"));
 
+            reserve(cart, productId, quantity);
             item.setQuantity(quantity);
             cartItemRepository.save(item);
         }
@@ -123,6 +138,7 @@ public class CartService {
         Cart cart = getOrCreateCart(email);
         cartItemRepository.deleteByCartId(cart.getId());
         cart.clear(); // ✅ Użyj metody z encji
+        afterCommit(() -> stockReservations.releaseAll(cart.getId()));
 
         log.info("Cleared cart for user {}", email);
     }
@@ -159,19 +175,17 @@ public class CartService {
     }
 
     private CartItem createCartItem(Cart cart, Product product, Integer quantity) {
-        return CartItem.builder()
+        CartItem item = CartItem.builder()
                 .cart(cart)
                 .product(product)
                 .quantity(quantity)
-                .price(product.getPrice())
-                .productName(product.getProductName())
-                .imageUrl(product.getImageUrl())
                 .build();
+        item.snapshotFrom(product);
+        return item;
     }
 
     private void updateExistingItem(CartItem item, Integer additionalQuantity) {
         item.setQuantity(item.getQuantity() + additionalQuantity);
-        item.updatePriceFromProduct(); // ✅ Aktualizuj cenę z produktu
         log.debug("Increased quantity of product {} to {}",
                 item.getProduct().getId(), item.getQuantity());
     }
@@ -190,14 +204,44 @@ public class CartService {
                 });
     }
 
+    // Z cache - encja jest odłączona, CartItem potrzebuje z niej tylko ID i danych do snapshotu
     private Product getProductById(Integer productId) {
-        return productRepository.findById(productId)
+        return productCache.get(productId)
                 .orElseThrow(() -> {
                     log.error("Product not found with ID: {}", productId);
                     return new IllegalArgumentException("Product not found");
                 });
     }
 
+    // Rezerwacja od razu (brak sztuk przerywa operację), przy rollbacku wraca poprzednia ilość
+    private void reserve(Cart cart, Integer productId, int quantity) {
+        int previous = stockReservations.hold(cart.getId(), productId, quantity);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        stockReservations.restore(cart.getId(), productId, previous);
+                    }
+                }
+            });
+        }
+    }
+
+    // Zwolnienie / sprzedaż dopiero gdy zmiana koszyka jest w bazie
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
     // ========== VALIDATION METHODS ==========
 
     private void validateUserEmail(String email) {
@@ -1,20 +1,69 @@
 package com.example.radnom.service;
 
 import com.example.radnom.entity.Product;
+import com.example.radnom.entity.dto.CursorPage;
+import com.example.radnom.entity.dto.FacetCountDTO;
+import com.example.radnom.entity.dto.FacetSearchResultDTO;
+import com.example.radnom.entity.dto.PriceBucketDTO;
+import com.example.radnom.entity.dto.ProductSearchCriteria;
+import com.example.radnom.entity.dto.ProductSummaryDTO;
+import com.example.radnom.entity.dto.QuickSearchResultDTO;
+import com.example.radnom.repository.ProductCursor;
 import com.example.radnom.repository.ProductRepository;
+import com.example.radnom.repository.ProductSort;
+import com.example.radnom.service.catalog.CatalogStatistics;
+import com.example.radnom.service.catalog.CompressedBitmap;
+import com.example.radnom.service.catalog.FacetIndex;
+import com.example.radnom.service.catalog.PopularityTracker;
+import com.example.radnom.service.catalog.PriceIndex;
+import com.example.radnom.service.catalog.ProductCache;
+import com.example.radnom.service.catalog.ProductIndex;
+import com.example.radnom.service.catalog.ProductIndexer;
+import com.example.radnom.service.catalog.RecentProductsIndex;
+import com.example.radnom.service.catalog.SimilarProductsIndex;
+import com.example.radnom.service.catalog.SingleFlight;
+import com.example.radnom.service.catalog.SortedCatalogViews;
+import com.example.radnom.service.search.AutocompleteIndex;
+import com.example.radnom.service.search.ProductSearchEngine;
+import com.example.radnom.service.search.SearchResultCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
-import java.util.Comparator;
-import java.util.List;
+import java.time.LocalDateTime;
+import java.util.*;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ProductService {
 
+    public static final int DEFAULT_PAGE_SIZE = 24;
+    public static final int MAX_PAGE_SIZE = 100;
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "createdAt", "id");
+    // Jak głęboko można stronicować ranking wyszukiwania
+    private static final int MAX_SEARCH_DEPTH = 1000;
+    // Ten sam limit listy IN co w ProductRepositoryImpl.findByCriteria
+    private static final int MAX_IN_LIST_SIZE = 5000;
+
     private final ProductRepository productRepository;
+    private final ProductCache productCache;
+    private final ProductSearchEngine searchEngine;
+    private final ProductIndexer productIndexer;
+    private final AutocompleteIndex autocompleteIndex;
+    private final CatalogStatistics catalogStatistics;
+    private final FacetIndex facetIndex;
+    private final PriceIndex priceIndex;
+    private final SortedCatalogViews sortedViews;
+    private final PopularityTracker popularityTracker;
+    private final RecentProductsIndex recentProducts;
+    private final SimilarProductsIndex similarProducts;
+    private final SearchResultCache searchResultCache;
+    // Równoczesne identyczne odczyty czekają na jedno ładowanie (SingleFlightConfig)
+    private final SingleFlight<Integer, Product> productByIdFlight;
+    private final SingleFlight<String, List<ProductSummaryDTO>> productSearchFlight;
 
     // ========== EXISTING METHODS (zachowaj te) ==========
 
@@ -25,61 +74,144 @@ public class ProductService {
 
     public Product getProductById(Integer id) {
         log.info("Getting product by id: {}", id);
-        return productRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+        Product product = productByIdFlight.execute(id, () -> productCache.get(id).orElse(null));
+        if (product == null) {
+            throw new RuntimeException("Product not found with id: " + id);
+        }
+        popularityTracker.recordView(id);
+        return product;
     }
 
-    public List<Product> getProductsByCategory(String category) {
+    public void recordProductView(Integer id) {
+        popularityTracker.recordView(id);
+    }
+
+    public List<ProductSummaryDTO> getProductsByCategory(String category) {
         log.info("Getting products by category: {}", category);
-        return productRepository.findByCategory(category);
+        return productRepository.findSummariesByCategory(category);
     }
 
-    public List<Product> getSortedProducts(String sortType) {
-        log.info("Getting sorted products by: {}", sortType);
-        List<Product> products = productRepository.findAll();
+    public List<ProductSummaryDTO> getSortedProducts(String sortType) {
+        return getSortedProducts(sortType, null);
+    }
 
-        switch (sortType.toLowerCase()) {
-            case "price-asc":
-                products.sort(Comparator.comparing(Product::getPrice));
-                break;
-            case "price-desc":
-                products.sort(Comparator.comparing(Product::getPrice).reversed());
-                break;
-            case "name-asc":
-                products.sort(Comparator.comparing(Product::getProductName, String.CASE_INSENSITIVE_ORDER));
-                break;
-            case "name-desc":
-                products.sort(Comparator.comparing(Product::getProductName, String.CASE_INSENSITIVE_ORDER).reversed());
-                break;
+    // ✅ SORTOWANIE - z limitem to wycinek gotowego widoku, bez limitu sortuje baza (ORDER BY)
+    public List<ProductSummaryDTO> getSortedProducts(String sortType, Integer limit) {
+        log.info("Getting sorted products by: {}, limit: {}", sortType, limit);
+
+        if (limit != null && limit <= 0) {
+            throw new IllegalArgumentException("Limit must be greater than 0");
+        }
+
+        Optional<ProductSort> sort = ProductSort.find(sortType);
+        if (sort.isEmpty()) {
+            // Nieznany typ sortowania - jak wcześniej, produkty bez sortowania
+            return limit == null
+                    ? productRepository.findSummaries(Sort.unsorted())
+                    : productRepository.findSummaries(PageRequest.of(0, limit));
         }
 
-        return products;
+        if (limit == null) {
+            return productRepository.findSummaries(sort.get().toSort());
+        }
+        if (sortedViews.isReady()) {
+            return loadSummaries(sortedViews.top(sort.get(), limit));
+        }
+        return productRepository.findSummaries(PageRequest.of(0, limit, sort.get().toSort()));
     }
 
-    public List<Product> getProductsByPriceRange(Integer minPrice, Integer maxPrice) {
+    public List<ProductSummaryDTO> getProductsByPriceRange(Integer minPrice, Integer maxPrice) {
         log.info("Filtering products by price range: {} - {}", minPrice, maxPrice);
 
-        return productRepository.findAll().stream()
-                .filter(p -> {
-                    boolean passMin = (minPrice == null) || (p.getPrice() >= minPrice);
-                    boolean passMax = (maxPrice == null) || (p.getPrice() <= maxPrice);
-                    return passMin && passMax;
-                })
-                .toList();
+        if (priceIndex.isReady()) {
+            return loadSummaries(toIdList(priceIndex.findIdsInRange(minPrice, maxPrice)));
+        }
+
+        return productRepository.findSummariesByPriceBetween(
+                minPrice != null ? minPrice : Integer.MIN_VALUE,
+                maxPrice != null ? maxPrice : Integer.MAX_VALUE);
+    }
+
+    // ✅ HISTOGRAM CEN (suwak ceny) - z indeksu cen, bez ładowania produktów
+    public List<PriceBucketDTO> getPriceHistogram(int buckets, Integer minPrice, Integer maxPrice) {
+        log.info("Building price histogram: {} buckets, range {} - {}", buckets, minPrice, maxPrice);
+
+        if (buckets <= 0 || buckets > 100) {
+            throw new IllegalArgumentException("Buckets must be between 1 and 100");
+        }
+        return priceIndex.histogram(buckets, minPrice, maxPrice);
     }
 
     // ========== NEW SEARCH METHODS (dodaj te) ==========
 
     // ✅ WYSZUKIWARKA PRODUKTÓW - podstawowa
-    public List<Product> searchProducts(String query) {
-        log.info("Searching products with query: '{}'", query);
+    public List<ProductSummaryDTO> searchProducts(String query) {
+        return searchProducts(query, null, null);
+    }
 
+    // ✅ Ranking BM25 - zwraca najlepsze `limit` trafień (domyślnie i najwyżej MAX_PAGE_SIZE).
+    // fuzzy: true = zawsze z literówkami, false = tylko dokładnie,
+    // null = dokładnie, a przy braku wyników drugi raz z literówkami
+    public List<ProductSummaryDTO> searchProducts(String query, Boolean fuzzy, Integer limit) {
+        log.info("Searching products with query: '{}', fuzzy: {}, limit: {}", query, fuzzy, limit);
+
+        // Wynik współdzielony przez czekające wątki - tylko do odczytu
+        String flightKey = (query != null ? query.trim().toLowerCase() : "") + "|" + fuzzy + "|" + limit;
+        return productSearchFlight.execute(flightKey,
+                () -> Collections.unmodifiableList(loadSearchResults(query, fuzzy, limit)));
+    }
+
+    private List<ProductSummaryDTO> loadSearchResults(String query, Boolean fuzzy, Integer limit) {
         if (query == null || query.trim().isEmpty()) {
-            return getAllProducts(); // zwróć wszystkie jeśli puste
+            return productRepository.findSummaries(Sort.unsorted()); // zwróć wszystkie jeśli puste
         }
 
         String searchQuery = query.trim().toLowerCase();
-        return productRepository.searchByNameOrDescription(searchQuery);
+
+        // Indeks w pamięci jeszcze się buduje (start aplikacji) - stare zapytanie LIKE
+        if (!searchReady()) {
+            return productRepository.searchSummariesByNameOrDescription(searchQuery);
+        }
+
+        int size = limit != null && limit > 0 ? Math.min(limit, MAX_PAGE_SIZE) : MAX_PAGE_SIZE;
+        SearchResultCache.Lookup lookup = searchResultCache.analyzed("ranked", searchQuery,
+                !Boolean.FALSE.equals(fuzzy), "limit=" + size + ",fuzzy=" + fuzzy, product -> true);
+        List<Integer> ids = searchResultCache.get(lookup,
+                () -> rankedSearch(searchQuery, fuzzy, size), id -> id, cachedIds -> cachedIds);
+        return loadSummaries(ids);
+    }
+
+    private List<Integer> rankedSearch(String searchQuery, Boolean fuzzy, int size) {
+        List<Integer> ids = searchEngine.searchRanked(searchQuery, size, Boolean.TRUE.equals(fuzzy));
+        if (ids.isEmpty() && fuzzy == null) {
+            ids = searchEngine.searchRanked(searchQuery, size, true);
+            log.debug("No exact matches for '{}', fuzzy search found {}", searchQuery, ids.size());
+        }
+        return ids;
+    }
+
+    // ✅ SZYBKIE WYSZUKIWANIE (autocomplete) - z drzewa prefiksowego, bez encji
+    public List<QuickSearchResultDTO> quickSearch(String query, int limit) {
+        log.debug("Quick search with query: '{}', limit: {}", query, limit);
+
+        if (query == null || query.trim().isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        if (autocompleteIndex.isReady()) {
+            return autocompleteIndex.complete(query, limit);
+        }
+
+        return searchProducts(query).stream()
+                .limit(limit)
+                .map(p -> QuickSearchResultDTO.builder()
+                        .id(p.getProductId())
+                        .name(p.getProductName())
+                        .price(p.getPrice())
+                        .imageUrl(p.getImageUrl() != null ? p.getImageUrl() : "")
+                        .category(p.getCategory() != null ? p.getCategory() : "")
+                        .build())
+                .toList();
     }
 
     // ✅ WYSZUKIWANIE PO KATEGORII
@@ -97,10 +229,15 @@ public class ProductService {
         if (name == null || name.trim().isEmpty()) {
             return getAllProducts();
         }
-        return productRepository.searchByName(name.trim().toLowerCase());
+        String searchName = name.trim().toLowerCase();
+        SearchResultCache.Lookup lookup = searchResultCache.substring("name", searchName, "",
+                product -> true, Product::getProductName);
+        return searchResultCache.get(lookup,
+                () -> productRepository.searchByName(searchName), Product::getId, this::loadProducts);
     }
 
-    // ✅ WYSZUKIWANIE ZAAWANSOWANE (nazwa, opis lub kategoria)
+    // ✅ WYSZUKIWANIE ZAAWANSOWANE (nazwa, opis lub kategoria) - jedno zapytanie LIKE zamiast
+    // findAll() i filtrowania w pamięci, wynik w cache (przy powtórce ładowanie po ID)
     public List<Product> advancedSearch(String query) {
         log.info("Advanced search with query: '{}'", query);
 
@@ -109,86 +246,456 @@ public class ProductService {
         }
 
         String searchQuery = query.trim().toLowerCase();
+        SearchResultCache.Lookup lookup = searchResultCache.substring("advanced", searchQuery, "",
+                product -> true, Product::getProductName, Product::getDescription, Product::getCategory);
+        return searchResultCache.get(lookup,
+                () -> productRepository.searchByNameOrDescriptionOrCategory(searchQuery),
+                Product::getId, this::loadProducts);
+    }
 
-        // Jeśli masz metodę searchByNameOrDescriptionOrCategory w repo, użyj jej:
-        // return productRepository.searchByNameOrDescriptionOrCategory(searchQuery);
-
-        // Albo zrób ręcznie:
-        return productRepository.findAll().stream()
-                .filter(product ->
-                        (product.getProductName() != null &&
-                                product.getProductName().toLowerCase().contains(searchQuery)) ||
-                                (product.getDescription() != null &&
-                                        product.getDescription().toLowerCase().contains(searchQuery)) ||
-                                (product.getCategory() != null &&
-                                        product.getCategory().toLowerCase().contains(searchQuery))
-                )
-                .toList();
+    // ✅ WYSZUKIWANIE ZAAWANSOWANE - tekst z indeksu, reszta (kategoria, cena, stan, sortowanie,
+    // limit) w jednym zapytaniu SQL
+    public List<Product> advancedSearch(ProductSearchCriteria criteria) {
+        log.info("Advanced search with criteria: {}", criteria);
+
+        if (!criteria.isValid()) {
+            throw new IllegalArgumentException("Invalid search criteria");
+        }
+
+        ProductSort sort = ProductSort.fromCode(criteria.getSort());
+        int limit = criteria.getLimit() != null ? Math.min(criteria.getLimit(), MAX_PAGE_SIZE) : MAX_PAGE_SIZE;
+
+        ProductSearchCriteria filters = ProductSearchCriteria.builder()
+                .category(criteria.hasCategory() ? criteria.getCategory().trim() : null)
+                .minPrice(criteria.getMinPrice())
+                .maxPrice(criteria.getMaxPrice())
+                .inStock(criteria.getInStock())
+                .build();
+        String filterKey = filters.getCategory() + "|" + filters.getMinPrice() + "|" + filters.getMaxPrice()
+                + "|" + Boolean.TRUE.equals(filters.getInStock()) + "|" + sort + "|" + limit;
+        SearchResultCache.Lookup lookup = searchResultCache.analyzedOrSubstring("criteria", criteria.getQuery(),
+                filters.getCategory(), filterKey, product -> matchesFilters(filters, product),
+                Product::getProductName, Product::getDescription, Product::getCategory);
+
+        return searchResultCache.get(lookup, () -> searchByCriteria(criteria, sort, limit),
+                Product::getId, this::loadProducts);
+    }
+
+    private List<Product> searchByCriteria(ProductSearchCriteria criteria, ProductSort sort, int limit) {
+        List<Integer> matchingIds = null;
+        if (criteria.hasQuery() && searchReady()) {
+            matchingIds = searchEngine.search(criteria.getQuery().trim().toLowerCase());
+            if (matchingIds.isEmpty()) {
+                return List.of();
+            }
+        }
+        // Dowolnie długa lista trafień zostaje przy semantyce indeksu - repozytorium dzieli IN na paczki
+
+        return productRepository.findByCriteria(criteria, matchingIds, sort, limit);
     }
 
-    // ✅ WYSZUKIWANIE Z FILTREM CENY
-    public List<Product> searchProductsWithPriceFilter(String query, Integer minPrice, Integer maxPrice) {
+    // ✅ WYSZUKIWANIE Z FILTREM CENY - przecięcie bitmap: trafienia z indeksu AND zakres z indeksu cen
+    public List<ProductSummaryDTO> searchProductsWithPriceFilter(String query, Integer minPrice, Integer maxPrice) {
         log.info("Searching products with query '{}' and price range: {}-{}",
                 query, minPrice, maxPrice);
 
-        List<Product> products;
-
         if (query == null || query.trim().isEmpty()) {
-            // Jeśli brak query, użyj filtru ceny na wszystkich produktach
-            products = getAllProducts();
-        } else {
-            // Najpierw wyszukaj po query
-            products = searchProducts(query);
-        }
-
-        // Potem zastosuj filtr ceny
-        return products.stream()
-                .filter(p -> {
-                    boolean passMin = (minPrice == null) || (p.getPrice() >= minPrice);
-                    boolean passMax = (maxPrice == null) || (p.getPrice() <= maxPrice);
-                    return passMin && passMax;
-                })
-                .toList();
+            return getProductsByPriceRange(minPrice, maxPrice);
+        }
+        if (!searchReady() || !priceIndex.isReady()) {
+            return productRepository.searchSummariesWithPriceRange(query.trim().toLowerCase(),
+                    minPrice != null ? minPrice : Integer.MIN_VALUE,
+                    maxPrice != null ? maxPrice : Integer.MAX_VALUE);
+        }
+
+        CompressedBitmap matches = toBitmap(searchEngine.search(query.trim().toLowerCase()));
+        if (minPrice != null || maxPrice != null) {
+            matches = matches.and(CompressedBitmap.of(priceIndex.findIdsInRange(minPrice, maxPrice)));
+        }
+        return loadSummaries(toIdList(matches.toArray()));
+    }
+
+    // ✅ FILTROWANIE FASETOWE - kategoria, marka, dostępność, przedział ceny (OR w fasecie, AND między)
+    public FacetSearchResultDTO filterByFacets(List<String> categories, List<String> brands,
+                                               Boolean inStock, List<String> priceBuckets, int limit) {
+        log.info("Facet filter: categories={}, brands={}, inStock={}, priceBuckets={}",
+                categories, brands, inStock, priceBuckets);
+
+        Map<FacetIndex.Facet, Set<String>> selection = new EnumMap<>(FacetIndex.Facet.class);
+        putSelection(selection, FacetIndex.Facet.CATEGORY, categories);
+        putSelection(selection, FacetIndex.Facet.BRAND, brands);
+        putSelection(selection, FacetIndex.Facet.PRICE, priceBuckets);
+        if (inStock != null) {
+            selection.put(FacetIndex.Facet.STOCK, Set.of(String.valueOf(inStock)));
+        }
+
+        FacetIndex.FacetResult result = facetIndex.filter(selection);
+
+        Map<String, List<FacetCountDTO>> facets = new LinkedHashMap<>();
+        result.counts().forEach((facet, counts) -> facets.put(facet.getParam(), counts));
+
+        int size = Math.min(Math.max(limit, 0), MAX_PAGE_SIZE);
+        return FacetSearchResultDTO.builder()
+                .total(result.matches().cardinality())
+                .products(loadSummaries(toIdList(result.matches().first(size))))
+                .facets(facets)
+                .build();
     }
 
     // ✅ POBRANIE WSZYSTKICH UNIKALNYCH KATEGORII
     public List<String> getAllCategories() {
         log.info("Getting all unique categories");
 
-        // Jeśli masz metodę w repo:
-        // return productRepository.findAllDistinctCategories();
+        if (facetIndex.isReady()) {
+            return facetIndex.values(FacetIndex.Facet.CATEGORY);
+        }
 
-        // Albo ręcznie:
-        return productRepository.findAll().stream()
-                .map(Product::getCategory)
-                .distinct()
-                .filter(category -> category != null && !category.trim().isEmpty())
+        return productRepository.findAllDistinctCategories().stream()
+                .filter(category -> !category.trim().isEmpty())
                 .sorted()
                 .toList();
     }
 
-    // ✅ POBRANIE NAJPOPULARNIEJSZYCH PRODUKTÓW (możesz dodać logikę)
-    public List<Product> getPopularProducts(int limit) {
-        log.info("Getting {} popular products", limit);
+    // ✅ KATEGORIE Z LICZBĄ PRODUKTÓW
+    public List<FacetCountDTO> getCategoryFacets() {
+        log.info("Getting category facets");
 
-        // Na razie zwróć pierwsze X produktów
-        // Możesz później dodać logikę z liczbą zamówień/odwiedzin
-        return productRepository.findAll().stream()
-                .limit(limit)
+        if (facetIndex.isReady()) {
+            return facetIndex.counts(FacetIndex.Facet.CATEGORY);
+        }
+        return toFacetCounts(productRepository.countProductsByCategory());
+    }
+
+    // ✅ MARKI
+    public List<String> getAllBrands() {
+        log.info("Getting all brands");
+
+        if (facetIndex.isReady()) {
+            return facetIndex.values(FacetIndex.Facet.BRAND);
+        }
+        return toFacetCounts(productRepository.countProductsByBrand()).stream()
+                .map(FacetCountDTO::getValue)
+                .sorted()
                 .toList();
     }
 
-    // ✅ POBRANIE NOWYCH PRODUKTÓW (jeśli masz pole createdAt)
-    public List<Product> getNewProducts(int limit) {
+    // ✅ MARKI Z LICZBĄ PRODUKTÓW
+    public List<FacetCountDTO> getBrandFacets() {
+        log.info("Getting brand facets");
+
+        if (facetIndex.isReady()) {
+            return facetIndex.counts(FacetIndex.Facet.BRAND);
+        }
+        return toFacetCounts(productRepository.countProductsByBrand());
+    }
+
+    public List<ProductSummaryDTO> getProductsByBrand(String brand) {
+        log.info("Getting products by brand: {}", brand);
+        return productRepository.findSummariesByBrand(brand);
+    }
+
+    // ✅ STATYSTYKI KATALOGU - O(1), bez ładowania produktów
+    public CatalogStatistics.Snapshot getCatalogStatistics() {
+        log.info("Getting catalog statistics");
+        return catalogStatistics.getSnapshot();
+    }
+
+    // ✅ POBRANIE NAJPOPULARNIEJSZYCH PRODUKTÓW - ranking z PopularityTracker (koszyk + wyświetlenia),
+    // dopełniony produktami z największą liczbą opinii gdy zdarzeń jest jeszcze mało
+    public List<ProductSummaryDTO> getPopularProducts(int limit) {
+        log.info("Getting {} popular products", limit);
+
+        if (limit <= 0) {
+            return List.of();
+        }
+        int size = Math.min(limit, MAX_PAGE_SIZE);
+
+        List<Integer> ids = new ArrayList<>(popularityTracker.top(size));
+        if (ids.size() < size) {
+            List<Integer> fallback = sortedViews.isReady()
+                    ? sortedViews.top(ProductSort.REVIEWS_DESC, size)
+                    : productRepository.findSummaries(PageRequest.of(0, size, ProductSort.REVIEWS_DESC.toSort()))
+                            .stream()
+                            .map(ProductSummaryDTO::getId)
+                            .toList();
+            for (Integer id : fallback) {
+                if (ids.size() >= size) {
+                    break;
+                }
+                if (!ids.contains(id)) {
+                    ids.add(id);
+                }
+            }
+        }
+        return loadSummaries(ids);
+    }
+
+    // ✅ POBRANIE NOWYCH PRODUKTÓW - z bufora najnowszych ID (wg createdAt)
+    public List<ProductSummaryDTO> getNewProducts(int limit) {
         log.info("Getting {} new products", limit);
 
-        // Jeśli masz pole createdAt w Product, możesz sortować po nim:
-        // return productRepository.findAllByOrderByCreatedAtDesc()
-        //         .stream().limit(limit).toList();
+        if (limit <= 0) {
+            return List.of();
+        }
+        int size = Math.min(limit, MAX_PAGE_SIZE);
 
-        // Na razie zwróć wszystkie
-        return productRepository.findAll().stream()
-                .limit(limit)
+        if (recentProducts.isReady()) {
+            List<Integer> ids = recentProducts.latest(size);
+            if (ids.size() >= size) {
+                return loadSummaries(ids);
+            }
+        }
+        return productRepository.findSummaries(PageRequest.of(0, size, NEWEST_FIRST));
+    }
+
+    // ✅ NOWOŚCI OD DANEJ CHWILI - tanie odpytywanie o nowe produkty w katalogu
+    public List<ProductSummaryDTO> getProductsAddedSince(LocalDateTime since, int limit) {
+        log.info("Getting up to {} products added since {}", limit, since);
+
+        if (since == null) {
+            throw new IllegalArgumentException("Timestamp is required");
+        }
+        int size = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+
+        if (recentProducts.isReady()) {
+            Optional<List<Integer>> ids = recentProducts.addedSince(since, size);
+            if (ids.isPresent()) {
+                return loadSummaries(ids.get());
+            }
+        }
+        return productRepository.findSummariesCreatedAfter(since, PageRequest.of(0, size, NEWEST_FIRST));
+    }
+
+    // ✅ PODOBNE PRODUKTY - gotowa lista sąsiadów z SimilarProductsIndex. Zanim tabela powstanie
+    // (start aplikacji), produkty z tej samej kategorii prosto z bazy
+    public List<ProductSummaryDTO> getSimilarProducts(Integer id, int limit) {
+        log.info("Getting {} products similar to {}", limit, id);
+
+        if (limit <= 0) {
+            return List.of();
+        }
+        int size = Math.min(limit, MAX_PAGE_SIZE);
+
+        if (similarProducts.isReady()) {
+            Optional<List<Integer>> ids = similarProducts.similar(id, size);
+            if (ids.isPresent()) {
+                return loadSummaries(ids.get());
+            }
+        }
+
+        Product product = productCache.get(id)
+                .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+        return productRepository.findSummariesByCategory(product.getCategory()).stream()
+                .filter(summary -> !summary.getId().equals(id))
+                .limit(size)
                 .toList();
     }
-}
\ No newline at end of file
+
+    // ========== KEYSET PAGINATION ==========
+
+    // ✅ STRONA PRODUKTÓW - seek po (klucz sortowania, product_id), koszt zależy od rozmiaru strony
+    public CursorPage<Product> getProductPage(String sortType, String category, String cursor, Integer size) {
+        ProductSort sort = ProductSort.fromCode(sortType);
+        int pageSize = resolvePageSize(size);
+        ProductCursor after = decodeCursor(cursor, sort.getCode());
+        log.info("Getting product page: sort={}, category={}, size={}, after={}",
+                sort.getCode(), category, pageSize, after != null ? after.lastId() : null);
+
+        List<Product> rows = productRepository.findPage(sort, category, after, pageSize + 1);
+        boolean hasNext = rows.size() > pageSize;
+        List<Product> items = hasNext ? rows.subList(0, pageSize) : rows;
+
+        String nextCursor = null;
+        if (hasNext) {
+            Product last = items.get(items.size() - 1);
+            nextCursor = new ProductCursor(sort.getCode(), last.getId(), sortKeyOf(sort, last)).encode();
+        }
+        return toPage(items, nextCursor);
+    }
+
+    // ✅ STRONA WYNIKÓW WYSZUKIWANIA - kolejne strony rankingu. Kursor pamięta ostatnie ID
+    // i pozycję; gdy ranking zmienił się między stronami, kontynuujemy od tej pozycji.
+    public CursorPage<Product> searchProductsPage(String query, String cursor, Integer size) {
+        int pageSize = resolvePageSize(size);
+        ProductCursor after = decodeCursor(cursor, "search");
+        log.info("Searching product page with query: '{}', size={}", query, pageSize);
+
+        if (query == null || query.trim().isEmpty()) {
+            return getProductPage(null, null, cursor, size);
+        }
+
+        int offset = after != null ? parseOffset(after.lastKey()) : 0;
+
+        // Jedna pozycja zapasu - po niej widać, czy jest następna strona
+        int depth = Math.min(offset + pageSize, MAX_SEARCH_DEPTH) + 1;
+        List<Integer> ids = searchReady()
+                ? searchEngine.searchRanked(query.trim().toLowerCase(), depth, false)
+                : productRepository.searchIdsByNameOrDescription(query.trim().toLowerCase());
+
+        int start = Math.min(offset, ids.size());
+        if (after != null) {
+            int pos = ids.indexOf(after.lastId());
+            if (pos >= 0) {
+                start = pos + 1;
+            }
+        }
+        int end = Math.min(start + pageSize, ids.size());
+        List<Integer> pageIds = ids.subList(start, end);
+
+        String nextCursor = end < ids.size() && end < MAX_SEARCH_DEPTH
+                ? new ProductCursor("search", pageIds.get(pageIds.size() - 1), String.valueOf(end)).encode()
+                : null;
+        return toPage(loadProducts(pageIds), nextCursor);
+    }
+
+    // ========== HELPERS ==========
+
+    private int resolvePageSize(Integer size) {
+        if (size == null || size <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
+
+    private ProductCursor decodeCursor(String cursor, String expectedSort) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+
+        ProductCursor decoded = ProductCursor.decode(cursor);
+        if (!expectedSort.equals(decoded.sort())) {
+            throw new IllegalArgumentException("Cursor does not match sort type: " + expectedSort);
+        }
+        return decoded;
+    }
+
+    private static int parseOffset(String value) {
+        try {
+            int offset = Integer.parseInt(value);
+            if (offset < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return offset;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    private String sortKeyOf(ProductSort sort, Product product) {
+        return switch (sort.getAttribute()) {
+            case "price" -> Objects.toString(product.getPrice(), null);
+            case "productName" -> product.getProductName();
+            case "rating" -> Objects.toString(product.getRating(), null);
+            case "reviewCount" -> Objects.toString(product.getReviewCount(), null);
+            default -> null;
+        };
+    }
+
+    // Filtry kryteriów (bez tekstu) sprawdzone na produkcie - jak predykaty w findByCriteria
+    private static boolean matchesFilters(ProductSearchCriteria filters, Product product) {
+        if (filters.getCategory() != null && !filters.getCategory().equalsIgnoreCase(product.getCategory())) {
+            return false;
+        }
+        Integer price = product.getPrice();
+        if (filters.getMinPrice() != null && (price == null || price < filters.getMinPrice())) {
+            return false;
+        }
+        if (filters.getMaxPrice() != null && (price == null || price > filters.getMaxPrice())) {
+            return false;
+        }
+        return !Boolean.TRUE.equals(filters.getInStock())
+                || (product.getStock() != null && product.getStock() > 0);
+    }
+
+    private static void putSelection(Map<FacetIndex.Facet, Set<String>> selection,
+                                     FacetIndex.Facet facet, List<String> values) {
+        if (values != null && !values.isEmpty()) {
+            selection.put(facet, new HashSet<>(values));
+        }
+    }
+
+    private static CompressedBitmap toBitmap(List<Integer> ids) {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        ids.forEach(bitmap::add);
+        return bitmap;
+    }
+
+    private static List<Integer> toIdList(int[] ids) {
+        List<Integer> list = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            list.add(id);
+        }
+        return list;
+    }
+
+    private <T> CursorPage<T> toPage(List<T> items, String nextCursor) {
+        return CursorPage.<T>builder()
+                .items(items)
+                .nextCursor(nextCursor)
+                .hasNext(nextCursor != null)
+                .size(items.size())
+                .build();
+    }
+
+
+    // Ładuje produkty po ID (klucz główny) zachowując kolejność z indeksu
+    private List<Product> loadProducts(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Integer, Product> byId = new HashMap<>();
+        for (Product product : productRepository.findAllById(ids)) {
+            byId.put(product.getId(), product);
+        }
+
+        List<Product> ordered = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            Product product = byId.get(id);
+            if (product != null) {
+                ordered.add(product);
+            }
+        }
+        return ordered;
+    }
+
+    // Indeks wyszukiwania dopiero po pierwszej pełnej przebudowie (z odtworzonymi zmianami z jej trakcie) -
+    // wcześniej ścieżki z bazą. Silnik "database" jest gotowy zawsze, indeksy nie mają tu znaczenia
+    private boolean searchReady() {
+        return searchEngine.isReady() && (productIndexer.isReady() || !(searchEngine instanceof ProductIndex));
+    }
+
+    // To samo dla list - projekcja zamiast encji
+    // Wiersze (wartość, liczba) z zapytań GROUP BY - w tej samej kolejności co FacetIndex.counts
+    private static List<FacetCountDTO> toFacetCounts(List<Object[]> rows) {
+        return rows.stream()
+                .map(row -> new FacetCountDTO((String) row[0], ((Number) row[1]).intValue()))
+                .sorted(FacetIndex.BY_COUNT)
+                .toList();
+    }
+
+    private List<ProductSummaryDTO> loadSummaries(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        // Szeroki zakres cen może zwrócić cały katalog - ładujemy partiami, żeby lista IN
+        // nie rosła bez ograniczeń (limit parametrów / rozmiar pakietu MySQL)
+        Map<Integer, ProductSummaryDTO> byId = new HashMap<>(ids.size() * 2);
+        for (int from = 0; from < ids.size(); from += MAX_IN_LIST_SIZE) {
+            List<Integer> chunk = ids.subList(from, Math.min(from + MAX_IN_LIST_SIZE, ids.size()));
+            for (ProductSummaryDTO summary : productRepository.findSummariesByIdIn(chunk)) {
+                byId.put(summary.getId(), summary);
+            }
+        }
+
+        List<ProductSummaryDTO> ordered = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            ProductSummaryDTO summary = byId.get(id);
+            if (summary != null) {
+                ordered.add(summary);
+            }
+        }
+        return ordered;
+    }
+}
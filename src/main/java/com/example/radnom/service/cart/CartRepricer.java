@@ -0,0 +1,172 @@
+package com.example.radnom.service.cart;
+
+import com.example.radnom.entity.Product;
+import com.example.radnom.service.catalog.ProductIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Przeliczanie cen w koszykach. Pozycja koszyka trzyma snapshot (cena, nazwa, zdjęcie) razem
+// z Product.priceVersion, z której go skopiowała - zapis koszyka nie czyta już produktu.
+//
+// Jako ProductIndex dostaje każdą zmianę produktu po commicie, ale reaguje tylko na zmianę
+// priceVersion (stock, opis itp. nie ruszają koszyków). Zmienione produkty czekają w kolejce
+// (ostatni stan na produkt), a repriceCarts() poprawia ich pozycje paczkami UPDATE - tylko te
+// ze starszą wersją, więc spóźniony snapshot nie nadpisze nowszego.
+// Po pełnej przebudowie (start, import bez zdarzeń) i okresowo jako siatka bezpieczeństwa
+// jeden UPDATE ... JOIN wyrównuje wszystkie pozycje, których wersja różni się od produktu.
+@Slf4j
+@Component
+public class CartRepricer implements ProductIndex {
+
+    private static final String REPRICE_ITEMS =
+            "UPDATE cart_items SET price = ?, product_name = ?, image_url = ?, price_version = ?, updated_at = ? " +
+            "WHERE product_id = ? AND (price_version IS NULL OR price_version < ?)";
+    private static final String REPRICE_STALE_ITEMS =
+            "UPDATE cart_items ci JOIN radnom p ON p.product_id = ci.product_id " +
+            "SET ci.price = p.price, ci.product_name = p.product_name, ci.image_url = p.image_url, " +
+            "ci.price_version = COALESCE(p.price_version, 0), ci.updated_at = ? " +
+            "WHERE p.price IS NOT NULL AND COALESCE(ci.price_version, -1) <> COALESCE(p.price_version, 0)";
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Ostatnia znana priceVersion produktu - po niej rozpoznajemy zmianę ceny
+    private final ConcurrentHashMap<Integer, Integer> knownVersions = new ConcurrentHashMap<>();
+    // Produkty do przeliczenia; kolejna zmiana tego samego produktu nadpisuje wpis
+    private final ConcurrentHashMap<Integer, PriceSnapshot> pending = new ConcurrentHashMap<>();
+    private volatile boolean fullRepricePending = false;
+
+    public CartRepricer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // ========== PRODUCT INDEX ==========
+
+    @Override
+    public Rebuild beginRebuild() {
+        Map<Integer, Integer> staged = new HashMap<>();
+        return new Rebuild() {
+            @Override
+            public void add(Product product) {
+                staged.put(product.getId(), versionOf(product));
+            }
+
+            @Override
+            public void finish() {
+                knownVersions.clear();
+                knownVersions.putAll(staged);
+                // Ceny mogły się zmienić bez zdarzeń (import, zmiana przed restartem)
+                fullRepricePending = true;
+            }
+        };
+    }
+
+    @Override
+    public void onProductSaved(Product product) {
+        int version = versionOf(product);
+        Integer previous = knownVersions.put(product.getId(), version);
+        // Nowy produkt nie może jeszcze być w żadnym koszyku
+        if (previous != null && previous != version && product.getPrice() != null) {
+            pending.put(product.getId(), PriceSnapshot.of(product, version));
+        }
+    }
+
+    @Override
+    public void onProductRemoved(Integer productId) {
+        knownVersions.remove(productId);
+        pending.remove(productId);
+    }
+
+    // ========== BACKGROUND ==========
+
+    // synchronized - harmonogram i ewentualne ręczne wywołanie nie wysyłają tych samych paczek dwa razy
+    @Scheduled(fixedDelayString = "${app.cart.reprice-ms:2000}")
+    public synchronized void repriceCarts() {
+        if (fullRepricePending) {
+            fullRepricePending = false;
+            repriceStaleItems();
+        }
+        repricePending();
+    }
+
+    // Siatka bezpieczeństwa - np. snapshot skopiowany z nieaktualnego jeszcze ProductCache
+    @Scheduled(fixedDelayString = "${app.cart.full-reprice-ms:3600000}",
+            initialDelayString = "${app.cart.full-reprice-ms:3600000}")
+    public void scheduleFullReprice() {
+        fullRepricePending = true;
+    }
+
+    // ========== PRIVATE ==========
+
+    private void repricePending() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<PriceSnapshot> snapshots = new ArrayList<>();
+        for (Integer productId : pending.keySet()) {
+            PriceSnapshot snapshot = pending.remove(productId);
+            if (snapshot != null) {
+                snapshots.add(snapshot);
+            }
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int updated = 0;
+        for (int from = 0; from < snapshots.size(); from += BATCH_SIZE) {
+            List<PriceSnapshot> chunk = snapshots.subList(from, Math.min(from + BATCH_SIZE, snapshots.size()));
+            List<Object[]> batch = new ArrayList<>(chunk.size());
+            for (PriceSnapshot snapshot : chunk) {
+                batch.add(new Object[]{snapshot.price(), snapshot.productName(), snapshot.imageUrl(),
+                        snapshot.version(), now, snapshot.productId(), snapshot.version()});
+            }
+            try {
+                updated += sum(jdbcTemplate.batchUpdate(REPRICE_ITEMS, batch));
+            } catch (RuntimeException e) {
+                // Paczka wraca do kolejki, chyba że w międzyczasie przyszła nowsza zmiana
+                chunk.forEach(snapshot -> pending.putIfAbsent(snapshot.productId(), snapshot));
+                log.error("Cart repricing failed for {} products: {}", chunk.size(), e.getMessage(), e);
+            }
+        }
+        log.info("Repriced {} cart items for {} products", updated, snapshots.size());
+    }
+
+    private void repriceStaleItems() {
+        try {
+            int updated = jdbcTemplate.update(REPRICE_STALE_ITEMS, Timestamp.valueOf(LocalDateTime.now()));
+            if (updated > 0) {
+                log.info("Repriced {} stale cart items", updated);
+            }
+        } catch (RuntimeException e) {
+            fullRepricePending = true;
+            log.error("Full cart repricing failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private static int versionOf(Product product) {
+        return product.getPriceVersion() != null ? product.getPriceVersion() : 0;
+    }
+
+    // Sterownik może zwrócić SUCCESS_NO_INFO (-2) zamiast liczby wierszy - liczymy tylko znane
+    private static int sum(int[] counts) {
+        int total = 0;
+        for (int count : counts) {
+            total += Math.max(count, 0);
+        }
+        return total;
+    }
+
+    private record PriceSnapshot(Integer productId, Integer price, String productName, String imageUrl, int version) {
+
+        static PriceSnapshot of(Product product, int version) {
+            return new PriceSnapshot(product.getId(), product.getPrice(), product.getProductName(),
+                    product.getImageUrl(), version);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.radnom.service.catalog;
+
+import com.example.radnom.entity.Product;
+import com.example.radnom.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+// Statystyki katalogu utrzymywane przyrostowo: liczba produktów, suma/min/max ceny
+// (multizbiór cen w TreeMap - min/max poprawne także po usunięciach) i liczba produktów
+// w kategoriach. Odczyt to zwrócenie gotowego, niezmiennego Snapshot.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CatalogStatistics implements ProductIndex {
+
+    private final ProductRepository productRepository;
+
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private final TreeMap<Integer, Integer> priceCounts = new TreeMap<>();
+    private final Map<String, Integer> categoryCounts = new HashMap<>();
+    private long priceSum;
+    private int pricedCount;
+
+    private volatile Snapshot snapshot;
+
+    // ========== READ ==========
+
+    public Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        return current != null ? current : fromDatabase();
+    }
+
+    // ========== ProductIndex ==========
+
+    @Override
+    public Rebuild beginRebuild() {
+        Map<Integer, Entry> staged = new HashMap<>();
+        return new Rebuild() {
+            @Override
+            public void add(Product product) {
+                if (product.getId() != null) {
+                    staged.put(product.getId(), entryOf(product));
+                }
+            }
+
+            @Override
+            public void finish() {
+                synchronized (CatalogStatistics.this) {
+                    entries.clear();
+                    priceCounts.clear();
+                    categoryCounts.clear();
+                    priceSum = 0;
+                    pricedCount = 0;
+
+                    staged.forEach(CatalogStatistics.this::add);
+                    publish();
+                    log.info("Catalog statistics built: {} products, {} categories",
+                            entries.size(), categoryCounts.size());
+                }
+            }
+        };
+    }
+
+    @Override
+    public synchronized void onProductSaved(Product product) {
+        remove(product.getId());
+        if (product.getId() != null) {
+            add(product.getId(), entryOf(product));
+        }
+        publish();
+    }
+
+    @Override
+    public synchronized void onProductRemoved(Integer productId) {
+        remove(productId);
+        publish();
+    }
+
+    // ========== PRIVATE ==========
+
+    private static Entry entryOf(Product product) {
+        return new Entry(product.getPrice(), normalizeCategory(product.getCategory()));
+    }
+
+    private void add(Integer productId, Entry entry) {
+        entries.put(productId, entry);
+
+        if (entry.price() != null) {
+            priceCounts.merge(entry.price(), 1, Integer::sum);
+            priceSum += entry.price();
+            pricedCount++;
+        }
+        if (entry.category() != null) {
+            categoryCounts.merge(entry.category(), 1, Integer::sum);
+        }
+    }
+
+    private void remove(Integer productId) {
+        Entry entry = entries.remove(productId);
+        if (entry == null) {
+            return;
+        }
+
+        if (entry.price() != null) {
+            decrement(priceCounts, entry.price());
+            priceSum -= entry.price();
+            pricedCount--;
+        }
+        if (entry.category() != null) {
+            decrement(categoryCounts, entry.category());
+        }
+    }
+
+    private void publish() {
+        snapshot = new Snapshot(
+                entries.size(),
+                categoryCounts.size(),
+                priceCounts.isEmpty() ? 0 : priceCounts.firstKey(),
+                priceCounts.isEmpty() ? 0 : priceCounts.lastKey(),
+                pricedCount > 0 ? (double) priceSum / pricedCount : 0.0,
+                Collections.unmodifiableMap(new TreeMap<>(categoryCounts)));
+    }
+
+    // Zimny start (indeks jeszcze niezbudowany) - jedno zapytanie agregujące zamiast findAll()
+    private Snapshot fromDatabase() {
+        Object[] row = productRepository.getProductStatistics();
+        if (row.length == 1 && row[0] instanceof Object[] nested) {
+            row = nested;
+        }
+
+        long count = row[0] != null ? ((Number) row[0]).longValue() : 0;
+        double average = row[1] != null ? ((Number) row[1]).doubleValue() : 0.0;
+        int min = row[2] != null ? ((Number) row[2]).intValue() : 0;
+        int max = row[3] != null ? ((Number) row[3]).intValue() : 0;
+
+        // Kategorie jak w add(): puste i null pomijane (normalizeCategory)
+        Map<String, Integer> perCategory = new TreeMap<>();
+        for (Object[] category : productRepository.countProductsByCategory()) {
+            perCategory.merge((String) category[0], ((Number) category[1]).intValue(), Integer::sum);
+        }
+
+        return new Snapshot(count, perCategory.size(), min, max, average,
+                Collections.unmodifiableMap(perCategory));
+    }
+
+    private static <K> void decrement(Map<K, Integer> counts, K key) {
+        counts.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private static String normalizeCategory(String category) {
+        return category != null && !category.trim().isEmpty() ? category : null;
+    }
+
+    private record Entry(Integer price, String category) {
+    }
+
+    public record Snapshot(long totalProducts, int totalCategories, int minPrice, int maxPrice,
+                           double averagePrice, Map<String, Integer> productsPerCategory) {
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.radnom.service.catalog;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Wersja katalogu do ETag / Last-Modified - rośnie przy każdym zapisie produktu, globalnie
+// i osobno dla danego produktu. ProductIndexer podbija ją dopiero po aktualizacji wszystkich
+// indeksów i cache, więc nowy ETag nigdy nie opisuje starej treści.
+//
+// Wersje żyją w pamięci. Epoka (czas startu) jest częścią ETagu, więc po restarcie klienci
+// po prostu raz pobiorą pełną odpowiedź. Mapa per produkt trzyma tylko produkty zmienione
+// od ostatniej pełnej przebudowy (generacji) - pozostałe mają wersję 0 i czas tej przebudowy.
+@Component
+public class CatalogVersion {
+
+    private final long bootMillis = System.currentTimeMillis();
+    private final String epoch = Long.toString(bootMillis, 36);
+
+    private volatile Stamp global = new Stamp(0, bootMillis);
+    private volatile Stamp generation = new Stamp(0, bootMillis);
+    private final Map<Integer, Stamp> products = new ConcurrentHashMap<>();
+
+    // ========== READ ==========
+
+    public Stamp global() {
+        return global;
+    }
+
+    public Stamp product(Integer productId) {
+        Stamp stamp = products.get(productId);
+        return stamp != null ? stamp : new Stamp(0, generation.lastModifiedMillis());
+    }
+
+    public String globalETag() {
+        return "\"c-" + epoch + "-" + global.version() + "\"";
+    }
+
+    public String productETag(Integer productId) {
+        return "\"p" + productId + "-" + epoch + "-" + generation.version()
+                + "." + product(productId).version() + "\"";
+    }
+
+    // ========== WRITE ==========
+
+    // Usunięty produkt też dostaje nową wersję (nie usuwamy wpisu), żeby stary ETag nie dał 304
+    public void bump(Integer productId) {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            global = new Stamp(global.version() + 1, Math.max(now, global.lastModifiedMillis()));
+        }
+        if (productId != null) {
+            products.compute(productId, (id, stamp) -> new Stamp(
+                    stamp != null ? stamp.version() + 1 : 1,
+                    stamp != null ? Math.max(now, stamp.lastModifiedMillis()) : now));
+        }
+    }
+
+    // Pełna przebudowa indeksów (np. po imporcie) - nowa generacja unieważnia ETagi wszystkich produktów
+    public synchronized void bumpAll() {
+        long now = Math.max(System.currentTimeMillis(), global.lastModifiedMillis());
+        global = new Stamp(global.version() + 1, now);
+        generation = new Stamp(generation.version() + 1, now);
+        products.clear();
+    }
+
+    public record Stamp(long version, long lastModifiedMillis) {
+    }
+}
@@ -0,0 +1,368 @@
+package com.example.radnom.service.catalog;
+
+import java.util.Arrays;
+
+// Skompresowana bitmapa ID w stylu Roaring: górne 16 bitów ID wybiera kontener,
+// kontener trzyma dolne 16 bitów jako posortowaną tablicę char[] (rzadki, do 4096 wartości)
+// albo jako 1024 słowa long (gęsty). AND/OR działają na całych słowach 64-bitowych.
+// Nie jest thread-safe - synchronizację zapewnia właściciel (FacetIndex).
+public final class CompressedBitmap {
+
+    private static final int ARRAY_LIMIT = 4096;
+    private static final int WORDS = 1024;
+
+    private char[] keys = new char[0];
+    private Container[] containers = new Container[0];
+    private int size;
+
+    public static CompressedBitmap of(int[] ids) {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (int id : ids) {
+            bitmap.add(id);
+        }
+        return bitmap;
+    }
+
+    // ========== MUTATION ==========
+
+    public void add(int id) {
+        char high = (char) (id >>> 16);
+        int pos = Arrays.binarySearch(keys, 0, size, high);
+        if (pos < 0) {
+            pos = -pos - 1;
+            insertContainer(pos, high, new Container());
+        }
+        containers[pos].add((char) id);
+    }
+
+    public void remove(int id) {
+        char high = (char) (id >>> 16);
+        int pos = Arrays.binarySearch(keys, 0, size, high);
+        if (pos < 0) {
+            return;
+        }
+
+        Container container = containers[pos];
+        container.remove((char) id);
+        if (container.cardinality == 0) {
+            removeContainer(pos);
+        }
+    }
+
+    // ========== QUERY ==========
+
+    public boolean contains(int id) {
+        int pos = Arrays.binarySearch(keys, 0, size, (char) (id >>> 16));
+        return pos >= 0 && containers[pos].contains((char) id);
+    }
+
+    public int cardinality() {
+        int total = 0;
+        for (int i = 0; i < size; i++) {
+            total += containers[i].cardinality;
+        }
+        return total;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int[] toArray() {
+        int[] result = new int[cardinality()];
+        int offset = 0;
+        for (int i = 0; i < size; i++) {
+            offset = containers[i].writeTo(result, offset, keys[i] << 16);
+        }
+        return result;
+    }
+
+    // Pierwsze `limit` ID rosnąco
+    public int[] first(int limit) {
+        int[] all = toArray();
+        return all.length <= limit ? all : Arrays.copyOf(all, limit);
+    }
+
+    // ========== SET OPERATIONS ==========
+
+    public CompressedBitmap and(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0, j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Container container = containers[i].and(other.containers[j]);
+                if (container.cardinality > 0) {
+                    result.insertContainer(result.size, keys[i], container);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    public CompressedBitmap or(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0, j = 0;
+        while (i < size || j < other.size) {
+            if (j >= other.size || (i < size && keys[i] < other.keys[j])) {
+                result.insertContainer(result.size, keys[i], containers[i].copy());
+                i++;
+            } else if (i >= size || keys[i] > other.keys[j]) {
+                result.insertContainer(result.size, other.keys[j], other.containers[j].copy());
+                j++;
+            } else {
+                result.insertContainer(result.size, keys[i], containers[i].or(other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    // |this AND other| bez budowania wyniku - do liczników faset
+    public int andCardinality(CompressedBitmap other) {
+        int total = 0;
+        int i = 0, j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                total += containers[i].andCardinality(other.containers[j]);
+                i++;
+                j++;
+            }
+        }
+        return total;
+    }
+
+    public CompressedBitmap copy() {
+        CompressedBitmap result = new CompressedBitmap();
+        for (int i = 0; i < size; i++) {
+            result.insertContainer(i, keys[i], containers[i].copy());
+        }
+        return result;
+    }
+
+    // ========== PRIVATE ==========
+
+    private void insertContainer(int pos, char key, Container container) {
+        if (size == keys.length) {
+            int capacity = Math.max(4, size * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            containers = Arrays.copyOf(containers, capacity);
+        }
+        System.arraycopy(keys, pos, keys, pos + 1, size - pos);
+        System.arraycopy(containers, pos, containers, pos + 1, size - pos);
+        keys[pos] = key;
+        containers[pos] = container;
+        size++;
+    }
+
+    private void removeContainer(int pos) {
+        System.arraycopy(keys, pos + 1, keys, pos, size - pos - 1);
+        System.arraycopy(containers, pos + 1, containers, pos, size - pos - 1);
+        containers[--size] = null;
+    }
+
+    // Kontener na 2^16 wartości: tablica (values != null) albo bitmapa (words != null)
+    private static final class Container {
+
+        char[] values = new char[4];
+        long[] words;
+        int cardinality;
+
+        void add(char value) {
+            if (words != null) {
+                long mask = 1L << value;
+                int w = value >>> 6;
+                if ((words[w] & mask) == 0) {
+                    words[w] |= mask;
+                    cardinality++;
+                }
+                return;
+            }
+
+            int pos = Arrays.binarySearch(values, 0, cardinality, value);
+            if (pos >= 0) {
+                return;
+            }
+            if (cardinality == ARRAY_LIMIT) {
+                toBitmap();
+                add(value);
+                return;
+            }
+
+            pos = -pos - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_LIMIT, values.length * 2));
+            }
+            System.arraycopy(values, pos, values, pos + 1, cardinality - pos);
+            values[pos] = value;
+            cardinality++;
+        }
+
+        void remove(char value) {
+            if (words != null) {
+                long mask = 1L << value;
+                int w = value >>> 6;
+                if ((words[w] & mask) != 0) {
+                    words[w] &= ~mask;
+                    cardinality--;
+                    if (cardinality <= ARRAY_LIMIT / 2) {
+                        toArrayContainer();
+                    }
+                }
+                return;
+            }
+
+            int pos = Arrays.binarySearch(values, 0, cardinality, value);
+            if (pos >= 0) {
+                System.arraycopy(values, pos + 1, values, pos, cardinality - pos - 1);
+                cardinality--;
+            }
+        }
+
+        boolean contains(char value) {
+            if (words != null) {
+                return (words[value >>> 6] & (1L << value)) != 0;
+            }
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        Container and(Container other) {
+            Container result = new Container();
+            if (words != null && other.words != null) {
+                long[] and = new long[WORDS];
+                int count = 0;
+                for (int i = 0; i < WORDS; i++) {
+                    and[i] = words[i] & other.words[i];
+                    count += Long.bitCount(and[i]);
+                }
+                result.setWords(and, count);
+                if (count <= ARRAY_LIMIT) {
+                    result.toArrayContainer();
+                }
+                return result;
+            }
+
+            Container small = words == null ? this : other;
+            Container large = small == this ? other : this;
+            char[] matched = new char[small.cardinality];
+            int count = 0;
+            for (int i = 0; i < small.cardinality; i++) {
+                if (large.contains(small.values[i])) {
+                    matched[count++] = small.values[i];
+                }
+            }
+            result.values = matched;
+            result.cardinality = count;
+            return result;
+        }
+
+        int andCardinality(Container other) {
+            if (words != null && other.words != null) {
+                int count = 0;
+                for (int i = 0; i < WORDS; i++) {
+                    count += Long.bitCount(words[i] & other.words[i]);
+                }
+                return count;
+            }
+
+            Container small = words == null ? this : other;
+            Container large = small == this ? other : this;
+            int count = 0;
+            for (int i = 0; i < small.cardinality; i++) {
+                if (large.contains(small.values[i])) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        Container or(Container other) {
+            Container result = copy();
+            if (result.words != null && other.words != null) {
+                int count = 0;
+                for (int i = 0; i < WORDS; i++) {
+                    result.words[i] |= other.words[i];
+                    count += Long.bitCount(result.words[i]);
+                }
+                result.cardinality = count;
+                return result;
+            }
+
+            if (other.words != null) {
+                return other.or(this);
+            }
+            for (int i = 0; i < other.cardinality; i++) {
+                result.add(other.values[i]);
+            }
+            return result;
+        }
+
+        Container copy() {
+            Container result = new Container();
+            if (words != null) {
+                result.setWords(words.clone(), cardinality);
+            } else {
+                result.values = Arrays.copyOf(values, Math.max(4, cardinality));
+                result.cardinality = cardinality;
+            }
+            return result;
+        }
+
+        int writeTo(int[] target, int offset, int high) {
+            if (words == null) {
+                for (int i = 0; i < cardinality; i++) {
+                    target[offset++] = high | values[i];
+                }
+                return offset;
+            }
+
+            for (int w = 0; w < WORDS; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    target[offset++] = high | (w << 6) | Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                }
+            }
+            return offset;
+        }
+
+        private void setWords(long[] newWords, int count) {
+            words = newWords;
+            values = null;
+            cardinality = count;
+        }
+
+        private void toBitmap() {
+            long[] bits = new long[WORDS];
+            for (int i = 0; i < cardinality; i++) {
+                bits[values[i] >>> 6] |= 1L << values[i];
+            }
+            setWords(bits, cardinality);
+        }
+
+        private void toArrayContainer() {
+            char[] sorted = new char[Math.max(4, cardinality)];
+            int count = 0;
+            for (int w = 0; w < WORDS; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    sorted[count++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            words = null;
+            values = sorted;
+            cardinality = count;
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.example.radnom.service.catalog;
+
+import com.example.radnom.entity.Product;
+import com.example.radnom.entity.dto.FacetCountDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Fasety katalogu: wartość fasety -> skompresowana bitmapa ID produktów.
+// Fasety: kategoria, marka, dostępność (stock > 0) i przedział ceny (app.facets.price-buckets).
+// Filtrowanie to OR bitmap w obrębie fasety i AND między fasetami, a liczniki faset
+// (ile produktów dla każdej wartości przy pozostałych filtrach) liczy się w tym samym przebiegu.
+@Slf4j
+@Component
+public class FacetIndex implements ProductIndex {
+
+    // Kolejność liczników faset (poza przedziałami cen): najliczniejsze najpierw, potem alfabetycznie
+    public static final Comparator<FacetCountDTO> BY_COUNT =
+            Comparator.comparingInt(FacetCountDTO::getCount).reversed()
+                    .thenComparing(FacetCountDTO::getValue);
+
+    public enum Facet {
+        CATEGORY("category"),
+        BRAND("brand"),
+        STOCK("inStock"),
+        PRICE("priceBucket");
+
+        private final String param;
+
+        Facet(String param) {
+            this.param = param;
+        }
+
+        public String getParam() {
+            return param;
+        }
+    }
+
+    private final int[] priceBoundaries;
+    private final Map<Facet, Map<String, CompressedBitmap>> facets = new EnumMap<>(Facet.class);
+    private final Map<Integer, Map<Facet, String>> productValues = new HashMap<>();
+    private CompressedBitmap allProducts = new CompressedBitmap();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean ready = false;
+
+    public FacetIndex(@Value("${app.facets.price-buckets:0,50,100,200,500,1000,2000,5000}") int[] priceBoundaries) {
+        this.priceBoundaries = priceBoundaries.clone();
+        Arrays.sort(this.priceBoundaries);
+        for (Facet facet : Facet.values()) {
+            facets.put(facet, new HashMap<>());
+        }
+    }
+
+    // ========== READ ==========
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Wartości posortowane alfabetycznie
+    public List<String> values(Facet facet) {
+        lock.readLock().lock();
+        try {
+            return facets.get(facet).keySet().stream()
+                    .sorted()
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Wartości z licznikami, najliczniejsze najpierw
+    public List<FacetCountDTO> counts(Facet facet) {
+        lock.readLock().lock();
+        try {
+            Map<String, Integer> counts = new HashMap<>();
+            facets.get(facet).forEach((value, ids) -> counts.put(value, ids.cardinality()));
+            return sortCounts(facet, counts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int[] productIds(Facet facet, String value) {
+        lock.readLock().lock();
+        try {
+            CompressedBitmap ids = facets.get(facet).get(value);
+            return ids != null ? ids.toArray() : new int[0];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Filtrowanie wielofasetowe. Licznik wartości fasety F uwzględnia filtry wszystkich
+    // pozostałych faset (nie F), więc UI może pokazać ile produktów przybędzie po zaznaczeniu.
+    public FacetResult filter(Map<Facet, Set<String>> selection) {
+        lock.readLock().lock();
+        try {
+            Map<Facet, CompressedBitmap> selected = new EnumMap<>(Facet.class);
+            selection.forEach((facet, values) -> {
+                if (values != null && !values.isEmpty()) {
+                    selected.put(facet, union(facet, values));
+                }
+            });
+
+            CompressedBitmap matches = allProducts;
+            for (CompressedBitmap bitmap : selected.values()) {
+                matches = matches.and(bitmap);
+            }
+
+            Map<Facet, List<FacetCountDTO>> counts = new EnumMap<>(Facet.class);
+            for (Facet facet : Facet.values()) {
+                CompressedBitmap base = allProducts;
+                for (Map.Entry<Facet, CompressedBitmap> entry : selected.entrySet()) {
+                    if (entry.getKey() != facet) {
+                        base = base.and(entry.getValue());
+                    }
+                }
+
+                Map<String, Integer> facetCounts = new HashMap<>();
+                for (Map.Entry<String, CompressedBitmap> entry : facets.get(facet).entrySet()) {
+                    int count = entry.getValue().andCardinality(base);
+                    if (count > 0) {
+                        facetCounts.put(entry.getKey(), count);
+                    }
+                }
+                counts.put(facet, sortCounts(facet, facetCounts));
+            }
+
+            return new FacetResult(matches == allProducts ? allProducts.copy() : matches, counts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ========== ProductIndex ==========
+
+    // Wartości faset liczone w trakcie czytania katalogu, indeks wymieniany dopiero w finish()
+    @Override
+    public Rebuild beginRebuild() {
+        Map<Integer, Map<Facet, String>> staged = new LinkedHashMap<>();
+        return new Rebuild() {
+            @Override
+            public void add(Product product) {
+                if (product.getId() != null) {
+                    staged.put(product.getId(), valuesOf(product));
+                }
+            }
+
+            @Override
+            public void finish() {
+                lock.writeLock().lock();
+                try {
+                    facets.values().forEach(Map::clear);
+                    productValues.clear();
+                    allProducts = new CompressedBitmap();
+                    staged.forEach(FacetIndex.this::add);
+                    ready = true;
+                    log.info("Facet index built: {} categories, {} brands, {} price buckets",
+                            facets.get(Facet.CATEGORY).size(), facets.get(Facet.BRAND).size(),
+                            facets.get(Facet.PRICE).size());
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        };
+    }
+
+    @Override
+    public void onProductSaved(Product product) {
+        lock.writeLock().lock();
+        try {
+            remove(product.getId());
+            if (product.getId() != null) {
+                add(product.getId(), valuesOf(product));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onProductRemoved(Integer productId) {
+        lock.writeLock().lock();
+        try {
+            remove(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ========== PRIVATE ==========
+
+    private Map<Facet, String> valuesOf(Product product) {
+        Map<Facet, String> values = new EnumMap<>(Facet.class);
+        putIfPresent(values, Facet.CATEGORY, product.getCategory());
+        putIfPresent(values, Facet.BRAND, product.getBrand());
+        values.put(Facet.STOCK, String.valueOf(product.getStock() != null && product.getStock() > 0));
+        if (product.getPrice() != null) {
+            values.put(Facet.PRICE, priceBucket(product.getPrice()));
+        }
+        return values;
+    }
+
+    private void add(Integer productId, Map<Facet, String> values) {
+        values.forEach((facet, value) ->
+                facets.get(facet).computeIfAbsent(value, v -> new CompressedBitmap()).add(productId));
+        productValues.put(productId, values);
+        allProducts.add(productId);
+    }
+
+    private void remove(Integer productId) {
+        Map<Facet, String> values = productValues.remove(productId);
+        if (values == null) {
+            return;
+        }
+
+        values.forEach((facet, value) -> {
+            Map<String, CompressedBitmap> byValue = facets.get(facet);
+            CompressedBitmap ids = byValue.get(value);
+            if (ids != null) {
+                ids.remove(productId);
+                if (ids.isEmpty()) {
+                    byValue.remove(value);
+                }
+            }
+        });
+        allProducts.remove(productId);
+    }
+
+    private CompressedBitmap union(Facet facet, Set<String> values) {
+        CompressedBitmap result = new CompressedBitmap();
+        for (String value : values) {
+            CompressedBitmap ids = facets.get(facet).get(value);
+            if (ids != null) {
+                result = result.or(ids);
+            }
+        }
+        return result;
+    }
+
+    // Etykieta przedziału: "50-99", ostatni otwarty: "5000+"
+    private String priceBucket(int price) {
+        int pos = Arrays.binarySearch(priceBoundaries, price);
+        int index = pos >= 0 ? pos : Math.max(0, -pos - 2);
+        if (index == priceBoundaries.length - 1) {
+            return priceBoundaries[index] + "+";
+        }
+        return priceBoundaries[index] + "-" + (priceBoundaries[index + 1] - 1);
+    }
+
+    private List<FacetCountDTO> sortCounts(Facet facet, Map<String, Integer> counts) {
+        Comparator<FacetCountDTO> order = facet == Facet.PRICE
+                ? Comparator.comparingInt(dto -> bucketStart(dto.getValue()))
+                : BY_COUNT;
+
+        return counts.entrySet().stream()
+                .map(e -> new FacetCountDTO(e.getKey(), e.getValue()))
+                .sorted(order)
+                .toList();
+    }
+
+    private static int bucketStart(String label) {
+        int end = label.indexOf('-', 1);
+        return Integer.parseInt(label.substring(0, end > 0 ? end : label.length() - 1));
+    }
+
+    private static void putIfPresent(Map<Facet, String> values, Facet facet, String value) {
+        if (value != null && !value.trim().isEmpty()) {
+            values.put(facet, value);
+        }
+    }
+
+    public record FacetResult(CompressedBitmap matches, Map<Facet, List<FacetCountDTO>> counts) {
+    }
+}
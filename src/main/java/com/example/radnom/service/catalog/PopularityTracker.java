@@ -0,0 +1,220 @@
+package com.example.radnom.service.catalog;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.function.LongSupplier;
+
+// Ranking "na czasie" dla /api/products/popular - algorytm Space-Saving z wygaszaniem w czasie.
+// Pamięć jest stała (app.popularity.capacity liczników) niezależnie od wielkości katalogu,
+// zdarzenia (dodanie do koszyka, wyświetlenie produktu) nie zapisują nic do bazy.
+//
+// Wygaszanie "forward decay": waga zdarzenia rośnie wykładniczo z czasem (exp(lambda * t)),
+// więc stare liczniki nie muszą być przeliczane - względnie tracą na znaczeniu z okresem
+// półtrwania app.popularity.half-life-hours. Gdy wagi robią się za duże, wszystko jest
+// przeskalowywane do nowego punktu odniesienia.
+//
+// Zdarzenia (każde wyświetlenie i dodanie do koszyka) nie biorą blokady: trafiają do bufora
+// - DoubleAdder na produkt, rozłożony na komórki przy rywalizacji wątków. Jeden wątek
+// (drain(), harmonogram co app.popularity.drain-ms) przenosi sumy z bufora do podsumowania
+// Space-Saving, z wagą w chwili przeniesienia - przy półtrwaniu w godzinach sekunda opóźnienia
+// nic nie zmienia. Podsumowanie (mapa + TreeSet) jest pod monitorem `this`, bierze go tylko
+// wątek przenoszący i rzadkie odczyty rankingu.
+//
+// Bufor nie rośnie z katalogiem: gdy ma więcej niż `capacity` wpisów, sumatory bez zdarzeń
+// w ostatnim okresie są z niego zdejmowane. Wątek zdarzenia mógł już pobrać taki sumator
+// z mapy i dodać do niego chwilę po zdjęciu - dlatego zdjęty sumator jest odczytywany jeszcze
+// raz przy następnym przeniesieniu i dopiero wtedy porzucany. Zdarzenie przepadłoby tylko,
+// gdyby wątek stał między pobraniem sumatora a dodaniem dłużej niż cały okres drain-ms.
+@Slf4j
+@Component
+public class PopularityTracker {
+
+    public static final double VIEW_WEIGHT = 1.0;
+    public static final double CART_ADD_WEIGHT = 5.0;
+    private static final double RESCALE_THRESHOLD = 1e12;
+
+    private final int capacity;
+    private final double lambda;
+
+    // Bufor zdarzeń do przeniesienia - bez blokad (opis wyżej)
+    private final ConcurrentHashMap<Integer, DoubleAdder> pending = new ConcurrentHashMap<>();
+    // Zdjęte z bufora w poprzednim przeniesieniu - do ostatniego odczytu (tylko wątek drain())
+    private Map<Integer, DoubleAdder> retired = new HashMap<>();
+
+    // Podsumowanie Space-Saving - pod monitorem `this`
+    private final Map<Integer, Counter> counters = new HashMap<>();
+    private final TreeSet<Counter> byCount = new TreeSet<>(
+            Comparator.comparingDouble((Counter c) -> c.count).thenComparingInt(c -> c.productId));
+    private final LongSupplier clock;
+    private long landmarkMillis;
+
+    @Autowired
+    public PopularityTracker(@Value("${app.popularity.capacity:1000}") int capacity,
+                             @Value("${app.popularity.half-life-hours:24}") double halfLifeHours) {
+        this(capacity, halfLifeHours, System::currentTimeMillis);
+    }
+
+    // Zegar podmieniany w testach wygaszania
+    PopularityTracker(int capacity, double halfLifeHours, LongSupplier clock) {
+        this.capacity = capacity;
+        this.lambda = Math.log(2) / (halfLifeHours * 3_600_000d);
+        this.clock = clock;
+        this.landmarkMillis = clock.getAsLong();
+    }
+
+    // ========== EVENTS ==========
+
+    public void recordView(Integer productId) {
+        record(productId, VIEW_WEIGHT);
+    }
+
+    public void recordCartAdd(Integer productId) {
+        record(productId, CART_ADD_WEIGHT);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!event.isDeleted()) {
+            return;
+        }
+        pending.remove(event.productId());
+        synchronized (this) {
+            retired.remove(event.productId());
+            Counter counter = counters.remove(event.productId());
+            if (counter != null) {
+                byCount.remove(counter);
+            }
+        }
+    }
+
+    // ========== BACKGROUND ==========
+
+    // Jedyne miejsce, które zmienia liczniki zdarzeniami - przenosi bufor do Space-Saving
+    @Scheduled(fixedDelayString = "${app.popularity.drain-ms:1000}")
+    public synchronized void drain() {
+        long now = clock.getAsLong();
+        double scale = Math.exp(lambda * (now - landmarkMillis));
+        if (scale > RESCALE_THRESHOLD) {
+            rescale(now);
+            scale = 1;
+        }
+
+        // Ostatni odczyt sumatorów zdjętych poprzednim razem (opis przy klasie)
+        for (Map.Entry<Integer, DoubleAdder> entry : retired.entrySet()) {
+            double weight = entry.getValue().sumThenReset();
+            if (weight > 0) {
+                add(entry.getKey(), weight * scale);
+            }
+        }
+        retired = new HashMap<>();
+
+        for (Map.Entry<Integer, DoubleAdder> entry : pending.entrySet()) {
+            DoubleAdder adder = entry.getValue();
+            double weight = adder.sumThenReset();
+            if (weight > 0) {
+                add(entry.getKey(), weight * scale);
+            } else if (pending.size() > capacity && pending.remove(entry.getKey(), adder)) {
+                // Produkt bez zdarzeń przez cały okres - zwalniamy miejsce w buforze
+                retired.put(entry.getKey(), adder);
+            }
+        }
+    }
+
+    // ========== READ ==========
+
+    // ID najpopularniejszych produktów, od najwyższego wyniku
+    public synchronized List<Integer> top(int limit) {
+        List<Integer> ids = new ArrayList<>(Math.min(limit, counters.size()));
+        Iterator<Counter> iterator = byCount.descendingIterator();
+        while (iterator.hasNext() && ids.size() < limit) {
+            ids.add(iterator.next().productId);
+        }
+        return ids;
+    }
+
+    // Bieżące wyniki podanych produktów (0 poza podsumowaniem) - porównywalne tylko między sobą
+    public synchronized double[] scores(int[] productIds) {
+        double[] scores = new double[productIds.length];
+        for (int i = 0; i < productIds.length; i++) {
+            Counter counter = counters.get(productIds[i]);
+            scores[i] = counter != null ? counter.count : 0;
+        }
+        return scores;
+    }
+
+    public synchronized int size() {
+        return counters.size();
+    }
+
+    // Liczba sumatorów w buforze zdarzeń
+    int pendingSize() {
+        return pending.size();
+    }
+
+    // ========== PRIVATE ==========
+
+    private void record(Integer productId, double weight) {
+        if (productId == null) {
+            return;
+        }
+        DoubleAdder adder = pending.get(productId);
+        if (adder == null) {
+            adder = pending.computeIfAbsent(productId, id -> new DoubleAdder());
+        }
+        adder.add(weight);
+    }
+
+    private void add(Integer productId, double decayed) {
+        Counter counter = counters.get(productId);
+        if (counter != null) {
+            byCount.remove(counter);
+            counter.count += decayed;
+            byCount.add(counter);
+            return;
+        }
+
+        if (counters.size() < capacity) {
+            counter = new Counter(productId, decayed, 0);
+        } else {
+            // Space-Saving: nowy produkt przejmuje licznik najmniej popularnego
+            Counter evicted = byCount.pollFirst();
+            counters.remove(evicted.productId);
+            counter = new Counter(productId, evicted.count + decayed, evicted.count);
+        }
+        counters.put(productId, counter);
+        byCount.add(counter);
+    }
+
+    private void rescale(long now) {
+        double factor = Math.exp(-lambda * (now - landmarkMillis));
+        List<Counter> all = new ArrayList<>(byCount);
+        byCount.clear();
+        for (Counter counter : all) {
+            counter.count *= factor;
+            counter.error *= factor;
+            byCount.add(counter);
+        }
+        landmarkMillis = now;
+        log.debug("Popularity counters rescaled by {}", factor);
+    }
+
+    private static final class Counter {
+        final int productId;
+        double count;
+        double error;   // górne oszacowanie nadmiaru odziedziczonego po wyrzuconym liczniku
+
+        Counter(int productId, double count, double error) {
+            this.productId = productId;
+            this.count = count;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.radnom.service.catalog;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Posortowana lista ID produktów na prymitywnej tablicy int[] (bez boxingu).
+// Nie jest thread-safe - synchronizację zapewnia właściciel (indeks).
+public final class PostingList {
+
+    private static final int[] EMPTY = new int[0];
+
+    private int[] ids = EMPTY;
+    private int size;
+
+    public boolean add(int id) {
+        int pos = Arrays.binarySearch(ids, 0, size, id);
+        if (pos >= 0) {
+            return false;
+        }
+
+        int insertAt = -pos - 1;
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, Math.max(4, size + (size >> 1)));
+        }
+        System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+        ids[insertAt] = id;
+        size++;
+        return true;
+    }
+
+    public boolean remove(int id) {
+        int pos = Arrays.binarySearch(ids, 0, size, id);
+        if (pos < 0) {
+            return false;
+        }
+
+        System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+        size--;
+        return true;
+    }
+
+    public boolean contains(int id) {
+        return Arrays.binarySearch(ids, 0, size, id) >= 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    // Odczyt bez kopiowania tablicy (pętla po size())
+    public int get(int index) {
+        return ids[index];
+    }
+
+    // ========== SET OPERATIONS ==========
+
+    public static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, k = 0;
+
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[k++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, k);
+    }
+
+    public static int[] union(List<PostingList> lists) {
+        if (lists.isEmpty()) {
+            return EMPTY;
+        }
+        if (lists.size() == 1) {
+            return lists.get(0).toArray();
+        }
+
+        int total = 0;
+        for (PostingList list : lists) {
+            total += list.size;
+        }
+
+        int[] merged = new int[total];
+        int offset = 0;
+        for (PostingList list : lists) {
+            System.arraycopy(list.ids, 0, merged, offset, list.size);
+            offset += list.size;
+        }
+
+        Arrays.sort(merged);
+        int k = 0;
+        for (int i = 0; i < merged.length; i++) {
+            if (k == 0 || merged[k - 1] != merged[i]) {
+                merged[k++] = merged[i];
+            }
+        }
+        return Arrays.copyOf(merged, k);
+    }
+}
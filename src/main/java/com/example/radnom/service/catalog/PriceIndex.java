@@ -0,0 +1,238 @@
+package com.example.radnom.service.catalog;
+
+import com.example.radnom.entity.Product;
+import com.example.radnom.entity.dto.PriceBucketDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Indeks cen na dwóch równoległych tablicach prymitywnych: prices[] posortowane rosnąco
+// (remis -> productIds[] rosnąco). Zakres cen = dwa wyszukiwania binarne + kopia wycinka,
+// O(log n + k), bez boxingu. Histogram liczony z tych samych tablic.
+@Slf4j
+@Component
+public class PriceIndex implements ProductIndex {
+
+    private int[] prices = new int[0];
+    private int[] productIds = new int[0];
+    private int size;
+
+    private final Map<Integer, Integer> priceById = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean ready = false;
+
+    // ========== READ ==========
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // ID produktów z ceną w [minPrice, maxPrice] (null = bez ograniczenia), posortowane po cenie
+    public int[] findIdsInRange(Integer minPrice, Integer maxPrice) {
+        lock.readLock().lock();
+        try {
+            int from = minPrice != null ? lowerBound(minPrice) : 0;
+            int to = maxPrice != null ? upperBound(maxPrice) : size;
+            return from < to ? Arrays.copyOfRange(productIds, from, to) : new int[0];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int countInRange(int minPrice, int maxPrice) {
+        lock.readLock().lock();
+        try {
+            return Math.max(0, upperBound(maxPrice) - lowerBound(minPrice));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Histogram do suwaka ceny: równe przedziały między minPrice a maxPrice
+    // (domyślnie najniższa i najwyższa cena w katalogu)
+    public List<PriceBucketDTO> histogram(int buckets, Integer minPrice, Integer maxPrice) {
+        lock.readLock().lock();
+        try {
+            if (size == 0 || buckets <= 0) {
+                return List.of();
+            }
+
+            int low = minPrice != null ? minPrice : prices[0];
+            int high = maxPrice != null ? maxPrice : prices[size - 1];
+            if (low > high) {
+                return List.of();
+            }
+
+            long span = (long) high - low + 1;
+            int width = (int) Math.max(1, (span + buckets - 1) / buckets);
+
+            List<PriceBucketDTO> result = new ArrayList<>(buckets);
+            int start = lowerBound(low);
+            for (long from = low; from <= high; from += width) {
+                int to = (int) Math.min(high, from + width - 1);
+                int end = upperBound(to);
+                result.add(new PriceBucketDTO((int) from, to, end - start));
+                start = end;
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ========== ProductIndex ==========
+
+    @Override
+    public Rebuild beginRebuild() {
+        Map<Integer, Integer> staged = new HashMap<>();
+        return new Rebuild() {
+            @Override
+            public void add(Product product) {
+                if (product.getId() != null && product.getPrice() != null) {
+                    staged.put(product.getId(), product.getPrice());
+                }
+            }
+
+            @Override
+            public void finish() {
+                // Sortowanie przed blokadą - pod nią tylko podmiana tablic
+                long[] packed = new long[staged.size()];
+                int i = 0;
+                for (Map.Entry<Integer, Integer> entry : staged.entrySet()) {
+                    packed[i++] = pack(entry.getValue(), entry.getKey());
+                }
+                Arrays.sort(packed);
+
+                int[] sortedPrices = new int[packed.length];
+                int[] sortedIds = new int[packed.length];
+                for (i = 0; i < packed.length; i++) {
+                    sortedPrices[i] = (int) (packed[i] >> 32);
+                    sortedIds[i] = (int) packed[i];
+                }
+
+                lock.writeLock().lock();
+                try {
+                    priceById.clear();
+                    priceById.putAll(staged);
+                    prices = sortedPrices;
+                    productIds = sortedIds;
+                    size = packed.length;
+                    ready = true;
+                    log.info("Price index built for {} products", size);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        };
+    }
+
+    @Override
+    public void onProductSaved(Product product) {
+        lock.writeLock().lock();
+        try {
+            remove(product.getId());
+            if (product.getId() != null && product.getPrice() != null) {
+                insert(product.getPrice(), product.getId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onProductRemoved(Integer productId) {
+        lock.writeLock().lock();
+        try {
+            remove(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ========== PRIVATE ==========
+
+    private void insert(int price, int id) {
+        int pos = position(price, id);
+        int insertAt = pos >= 0 ? pos : -pos - 1;
+
+        if (size == prices.length) {
+            int capacity = Math.max(16, size + (size >> 1));
+            prices = Arrays.copyOf(prices, capacity);
+            productIds = Arrays.copyOf(productIds, capacity);
+        }
+        System.arraycopy(prices, insertAt, prices, insertAt + 1, size - insertAt);
+        System.arraycopy(productIds, insertAt, productIds, insertAt + 1, size - insertAt);
+        prices[insertAt] = price;
+        productIds[insertAt] = id;
+        size++;
+        priceById.put(id, price);
+    }
+
+    private void remove(Integer id) {
+        Integer price = id != null ? priceById.remove(id) : null;
+        if (price == null) {
+            return;
+        }
+
+        int pos = position(price, id);
+        if (pos >= 0) {
+            System.arraycopy(prices, pos + 1, prices, pos, size - pos - 1);
+            System.arraycopy(productIds, pos + 1, productIds, pos, size - pos - 1);
+            size--;
+        }
+    }
+
+    // Wyszukiwanie binarne po parze (cena, id)
+    private int position(int price, int id) {
+        int low = 0, high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = prices[mid] != price
+                    ? Integer.compare(prices[mid], price)
+                    : Integer.compare(productIds[mid], id);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    // Pierwszy indeks z ceną >= price
+    private int lowerBound(int price) {
+        int low = 0, high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (prices[mid] < price) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Pierwszy indeks z ceną > price
+    private int upperBound(int price) {
+        int low = 0, high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (prices[mid] <= price) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static long pack(int price, int id) {
+        return ((long) price << 32) | (id & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.radnom.service.catalog;
+
+import com.example.radnom.entity.Product;
+import com.example.radnom.entity.dto.CacheStatsDTO;
+import com.example.radnom.repository.ProductRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+// Cache produktów przed ProductRepository.findById (strona produktu, operacje na koszyku).
+// Caffeine eliminuje wpisy algorytmem W-TinyLFU: nowy produkt trafia najpierw do małego okna LRU,
+// a do głównej części wchodzi tylko gdy szkic częstotliwości uzna go za częstszy niż ofiara.
+// Pojedyncze skany po rzadkich ID nie wypchną więc produktów z promocji.
+//
+// Gorące wpisy są odświeżane w tle po app.cache.products.refresh-seconds (czytelnik dostaje
+// dotychczasową wartość, nie czeka na bazę), nieużywane wygasają po app.cache.products.ttl-seconds.
+// Zmiany produktów unieważniają wpis po commicie - przez ProductIndexer jak każdy indeks.
+@Slf4j
+@Component
+public class ProductCache implements ProductIndex {
+
+    private final LoadingCache<Integer, Product> cache;
+    private final long maximumSize;
+
+    public ProductCache(ProductRepository productRepository,
+                        @Value("${app.cache.products.maximum-size:10000}") long maximumSize,
+                        @Value("${app.cache.products.ttl-seconds:600}") long ttlSeconds,
+                        @Value("${app.cache.products.refresh-seconds:300}") long refreshSeconds) {
+        this.maximumSize = maximumSize;
+        // Brak produktu = null, Caffeine go nie zapamiętuje (nowy produkt nie będzie "niewidoczny")
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .refreshAfterWrite(Duration.ofSeconds(Math.min(refreshSeconds, ttlSeconds)))
+                .recordStats()
+                .build(id -> productRepository.findById(id).orElse(null));
+    }
+
+    // ========== READ ==========
+
+    public Optional<Product> get(Integer productId) {
+        if (productId == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(cache.get(productId));
+    }
+
+    public CacheStatsDTO stats() {
+        CacheStats stats = cache.stats();
+        return CacheStatsDTO.builder()
+                .name("products")
+                .size(cache.estimatedSize())
+                .maximumSize(maximumSize)
+                .hits(stats.hitCount())
+                .misses(stats.missCount())
+                .hitRate(stats.hitRate())
+                .evictions(stats.evictionCount())
+                .loads(stats.loadCount())
+                .averageLoadMillis(stats.averageLoadPenalty() / 1_000_000d)
+                .build();
+    }
+
+    // ========== INVALIDATION ==========
+
+    public void invalidate(Integer productId) {
+        cache.invalidate(productId);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    // Nie wkładamy encji z eventu - należy do sesji, która ją zapisała. Następny odczyt pobierze świeżą.
+    @Override
+    public Rebuild beginRebuild() {
+        long[] count = new long[1];
+        return new Rebuild() {
+            @Override
+            public void add(Product product) {
+                count[0]++;
+            }
+
+            @Override
+            public void finish() {
+                cache.invalidateAll();
+                log.info("Product cache cleared after catalog rebuild ({} products)", count[0]);
+            }
+        };
+    }
+
+    @Override
+    public void onProductSaved(Product product) {
+        cache.invalidate(product.getId());
+    }
+
+    @Override
+    public void onProductRemoved(Integer productId) {
+        cache.invalidate(productId);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.radnom.service.catalog;
+
+import com.example.radnom.entity.Product;
+
+// Zdarzenie publikowane po zapisie/usunięciu produktu (patrz ProductEntityListener)
+public record ProductChangedEvent(Type type, Integer productId, Product product) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    public boolean isDeleted() {
+        return type == Type.DELETED;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.radnom.service.catalog;
+
+import com.example.radnom.entity.Product;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.function.Supplier;
+
+// Listener JPA dla encji Product - Hibernate tworzy go przez Spring (SpringBeanContainer),
+// więc można wstrzyknąć publisher. Indeksy słuchają ProductChangedEvent po commicie.
+// Uwaga: SpringBeanContainer tworzy własną instancję (createBean), inną niż singleton
+// wstrzykiwany do serwisów - stan współdzielony z Hibernate musi być statyczny.
+@Component
+@RequiredArgsConstructor
+public class ProductEntityListener {
+
+    // Przez JDBC, nie przez EntityManager - @PostRemove działa w trakcie flush, a JdbcTemplate
+    // i tak dostaje połączenie bieżącej transakcji JPA
+    private static final String INSERT_TOMBSTONE =
+            "INSERT INTO product_tombstones (product_id, deleted_at) VALUES (?, ?) "
+                    + "ON DUPLICATE KEY UPDATE deleted_at = VALUES(deleted_at)";
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+
+    // Import hurtowy zapisuje tysiące wierszy - zamiast zdarzenia na każdy z nich
+    // indeksy są przebudowywane raz na końcu (ProductIndexer.rebuildAll).
+    // Statyczne - flagę musi zobaczyć instancja utworzona przez Hibernate
+    private static final ThreadLocal<Boolean> suppressed = ThreadLocal.withInitial(() -> false);
+
+    // Wykonuje zapis bez publikowania ProductChangedEvent w bieżącym wątku
+    public static <T> T withoutEvents(Supplier<T> work) {
+        boolean previous = suppressed.get();
+        suppressed.set(true);
+        try {
+            return work.get();
+        } finally {
+            suppressed.set(previous);
+        }
+    }
+
+    @PostPersist
+    public void afterInsert(Product product) {
+        publish(ProductChangedEvent.Type.CREATED, product);
+    }
+
+    @PostUpdate
+    public void afterUpdate(Product product) {
+        publish(ProductChangedEvent.Type.UPDATED, product);
+    }
+
+    @PostRemove
+    public void afterDelete(Product product) {
+        // Ślad dla eksportu przyrostowego - także przy wyłączonych zdarzeniach
+        jdbcTemplate.update(INSERT_TOMBSTONE, product.getId(), Timestamp.valueOf(LocalDateTime.now()));
+        publish(ProductChangedEvent.Type.DELETED, product);
+    }
+
+    private void publish(ProductChangedEvent.Type type, Product product) {
+        if (suppressed.get()) {
+            return;
+        }
+        eventPublisher.publishEvent(new ProductChangedEvent(type, product.getId(), product));
+    }
+}
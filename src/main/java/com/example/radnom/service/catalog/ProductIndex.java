@@ -0,0 +1,25 @@
+package com.example.radnom.service.catalog;
+
+import com.example.radnom.entity.Product;
+
+// Wspólny kontrakt dla struktur w pamięci budowanych z katalogu produktów.
+// ProductIndexer buduje je od zera (start, import) i aktualizuje przyrostowo po każdym zapisie.
+public interface ProductIndex {
+
+    // Pełna przebudowa: ProductIndexer podaje produkty po jednym z kursora bazy - encja zaraz potem
+    // jest odłączana, więc Rebuild zapamiętuje z niej tylko to, czego indeks potrzebuje.
+    // Do finish() odczyty i zmiany przyrostowe idą do dotychczasowego stanu.
+    Rebuild beginRebuild();
+
+    void onProductSaved(Product product);
+
+    void onProductRemoved(Integer productId);
+
+    interface Rebuild {
+
+        void add(Product product);
+
+        // Podmienia stan indeksu na zbudowany (krótko, pod blokadą indeksu)
+        void finish();
+    }
+}
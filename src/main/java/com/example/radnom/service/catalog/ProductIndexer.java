@@ -0,0 +1,176 @@
+package com.example.radnom.service.catalog;
+
+import com.example.radnom.entity.Product;
+import com.example.radnom.repository.ProductRepository;
+import com.example.radnom.service.search.SearchResultCache;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+// Pełna przebudowa czyta katalog kursorem (jak CatalogStreamer) - każdy produkt trafia do
+// Rebuild każdego indeksu i jest od razu odłączany, w pamięci nie ma naraz całego katalogu.
+//
+// Zapisy trwają w trakcie przebudowy (start przy działającym Tomcacie, import). Zdarzenia z tego
+// czasu idą od razu do dotychczasowych indeksów i są zapamiętywane (ostatnie na produkt), a po
+// podmianie stanu (finish) odtwarzane - zmiana nowsza niż odczyt kursora nie ginie.
+// Zmiany przyrostowe, podmiana i odtworzenie są pod monitorem `this`, więc odtworzenie starszego
+// zdarzenia nie wyprzedzi nowszego.
+@Slf4j
+@Component
+public class ProductIndexer {
+
+    private final ProductRepository productRepository;
+    private final List<ProductIndex> indexes;
+    private final CatalogVersion catalogVersion;
+    private final SearchResultCache searchResultCache;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+
+    // Jedna przebudowa naraz (start vs import)
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    // Zdarzenia do odtworzenia po trwającej przebudowie (null = nie trwa); pod monitorem `this`
+    private Map<Integer, ProductChangedEvent> replay;
+    // Pierwsza przebudowa zakończona razem z odtworzeniem zmian - wcześniej wyszukiwanie idzie do bazy
+    private volatile boolean ready = false;
+
+    public ProductIndexer(ProductRepository productRepository,
+                          List<ProductIndex> indexes,
+                          CatalogVersion catalogVersion,
+                          SearchResultCache searchResultCache,
+                          EntityManager entityManager,
+                          PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.indexes = indexes;
+        this.catalogVersion = catalogVersion;
+        this.searchResultCache = searchResultCache;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    // ========== READ ==========
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // ========== FULL REBUILD ==========
+
+    // Po ApplicationReadyEvent Tomcat już przyjmuje zapisy - stąd odtwarzanie zdarzeń poniżej
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildAll() {
+        rebuildLock.lock();
+        try {
+            long start = System.currentTimeMillis();
+            synchronized (this) {
+                replay = new LinkedHashMap<>();
+            }
+
+            List<ProductIndex.Rebuild> rebuilds = new ArrayList<>(indexes.size());
+            for (ProductIndex index : indexes) {
+                rebuilds.add(index.beginRebuild());
+            }
+            long count;
+            try {
+                count = streamCatalog(rebuilds);
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    replay = null;
+                }
+                throw e;
+            }
+
+            int replayed;
+            synchronized (this) {
+                for (ProductIndex.Rebuild rebuild : rebuilds) {
+                    rebuild.finish();
+                }
+                replayed = replay.size();
+                for (ProductChangedEvent event : replay.values()) {
+                    applyToIndexes(event);
+                }
+                replay = null;
+                searchResultCache.invalidateAll();
+                catalogVersion.bumpAll();
+                ready = true;
+            }
+
+            log.info("Rebuilt {} product indexes from {} products in {} ms ({} changes replayed)",
+                    indexes.size(), count, System.currentTimeMillis() - start, replayed);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    // ========== INCREMENTAL UPDATES ==========
+
+    // Dopiero po commicie - wycofana transakcja nie może zmienić indeksów
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        log.debug("Product {} {} - updating {} indexes",
+                event.productId(), event.type(), indexes.size());
+
+        applyToIndexes(event);
+        if (replay != null) {
+            replay.put(event.productId(), event);
+        }
+        // Cache wyników po indeksach - wyszukiwanie po unieważnieniu widzi już nowy stan
+        try {
+            searchResultCache.onProductChanged(event.product(), event.productId(), event.isDeleted());
+        } catch (RuntimeException e) {
+            log.error("Search cache invalidation failed for product {}: {}", event.productId(), e.getMessage(), e);
+            searchResultCache.invalidateAll();
+        }
+        // Na końcu - nowy ETag dopiero gdy indeksy i cache pokazują już nowy stan
+        catalogVersion.bump(event.productId());
+    }
+
+    // ========== PRIVATE ==========
+
+    private long streamCatalog(List<ProductIndex.Rebuild> rebuilds) {
+        Long count = readOnlyTransaction.execute(status -> {
+            long rows = 0;
+            try (Stream<Product> products = productRepository.streamAllOrderById()) {
+                Iterator<Product> iterator = products.iterator();
+                while (iterator.hasNext()) {
+                    Product product = iterator.next();
+                    for (ProductIndex.Rebuild rebuild : rebuilds) {
+                        rebuild.add(product);
+                    }
+                    entityManager.detach(product);
+                    rows++;
+                }
+            }
+            return rows;
+        });
+        return count != null ? count : 0;
+    }
+
+    private void applyToIndexes(ProductChangedEvent event) {
+        for (ProductIndex index : indexes) {
+            try {
+                if (event.isDeleted()) {
+                    index.onProductRemoved(event.productId());
+                } else {
+                    index.onProductSaved(event.product());
+                }
+            } catch (RuntimeException e) {
+                log.error("Index {} failed for product {}: {}",
+                        index.getClass().getSimpleName(), event.productId(), e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.radnom.service.catalog;
+
+import com.example.radnom.entity.Product;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+
+// Bufor cykliczny ID najnowszych produktów (wg createdAt), od najnowszego.
+// Niezmiennik: bufor zawiera dokładnie `count` najnowszych produktów katalogu,
+// więc /new czyta pierwsze N pozycji bez zapytania do bazy.
+@Slf4j
+@Component
+public class RecentProductsIndex implements ProductIndex {
+
+    private final int capacity;
+    private final long[] createdAt;
+    private final int[] productIds;
+    private int head;   // pozycja najnowszego
+    private int count;
+    // Najnowszy createdAt spośród produktów, które nie zmieściły się w buforze
+    private long newestOutside = Long.MIN_VALUE;
+    private volatile boolean ready = false;
+
+    public RecentProductsIndex(@Value("${app.catalog.recent-capacity:500}") int capacity) {
+        this.capacity = capacity;
+        this.createdAt = new long[capacity];
+        this.productIds = new int[capacity];
+    }
+
+    // ========== READ ==========
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public synchronized List<Integer> latest(int limit) {
+        int n = Math.min(limit, count);
+        List<Integer> ids = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            ids.add(productIds[slot(i)]);
+        }
+        return ids;
+    }
+
+    // Produkty dodane po `since`, od najnowszego. Pusty Optional gdy bufor nie sięga tak daleko
+    // (był pełny, a najstarszy wpis jest nowszy niż `since`) - wtedy trzeba zapytać bazę.
+    public synchronized Optional<List<Integer>> addedSince(LocalDateTime since, int limit) {
+        long threshold = toMillis(since);
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < count && ids.size() < limit; i++) {
+            if (createdAt[slot(i)] <= threshold) {
+                return Optional.of(ids);
+            }
+            ids.add(productIds[slot(i)]);
+        }
+
+        boolean complete = ids.size() >= limit || newestOutside <= threshold;
+        return complete ? Optional.of(ids) : Optional.empty();
+    }
+
+    // ========== ProductIndex ==========
+
+    // Z kursora zostaje tylko capacity + 1 najnowszych (kopiec, na szczycie najstarszy z nich)
+    @Override
+    public Rebuild beginRebuild() {
+        Comparator<Stamp> newestFirst = Comparator.comparingLong(Stamp::time)
+                .thenComparingInt(Stamp::id)
+                .reversed();
+        PriorityQueue<Stamp> newest = new PriorityQueue<>(newestFirst.reversed());
+        return new Rebuild() {
+            @Override
+            public void add(Product product) {
+                if (product.getId() == null || product.getCreatedAt() == null) {
+                    return;
+                }
+                newest.add(new Stamp(toMillis(product.getCreatedAt()), product.getId()));
+                if (newest.size() > capacity + 1) {
+                    newest.poll();
+                }
+            }
+
+            @Override
+            public void finish() {
+                List<Stamp> sorted = new ArrayList<>(newest);
+                sorted.sort(newestFirst);
+
+                synchronized (RecentProductsIndex.this) {
+                    head = 0;
+                    count = 0;
+                    newestOutside = Long.MIN_VALUE;
+                    for (Stamp stamp : sorted) {
+                        if (count == capacity) {
+                            newestOutside = stamp.time();
+                            break;
+                        }
+                        createdAt[count] = stamp.time();
+                        productIds[count] = stamp.id();
+                        count++;
+                    }
+                    ready = true;
+                    log.info("Recent products buffer built with {} of {} slots", count, capacity);
+                }
+            }
+        };
+    }
+
+    @Override
+    public synchronized void onProductSaved(Product product) {
+        if (product.getId() == null || product.getCreatedAt() == null || indexOf(product.getId()) >= 0) {
+            return;
+        }
+
+        long time = toMillis(product.getCreatedAt());
+        // Poza buforem są nowsze produkty - ten nie należy do najnowszych
+        if (time < newestOutside) {
+            return;
+        }
+        // Pełny bufor i starszy niż ogon - od razu wypadłby z bufora
+        if (count == capacity && time < createdAt[slot(count - 1)]) {
+            newestOutside = time;
+            return;
+        }
+        insert(time, product.getId());
+    }
+
+    @Override
+    public synchronized void onProductRemoved(Integer productId) {
+        int pos = indexOf(productId);
+        if (pos < 0) {
+            return;
+        }
+
+        for (int i = pos; i < count - 1; i++) {
+            createdAt[slot(i)] = createdAt[slot(i + 1)];
+            productIds[slot(i)] = productIds[slot(i + 1)];
+        }
+        count--;
+    }
+
+    // ========== PRIVATE ==========
+
+    private void insert(long time, int id) {
+        if (count == capacity) {
+            newestOutside = Math.max(newestOutside, createdAt[slot(count - 1)]);
+        }
+
+        // Zwykle nowy produkt jest najnowszy: cofamy głowę o jedną pozycję, O(1)
+        if (count == 0 || time >= createdAt[head]) {
+            head = (head - 1 + capacity) % capacity;
+            createdAt[head] = time;
+            productIds[head] = id;
+            count = Math.min(count + 1, capacity);
+            return;
+        }
+
+        // Rzadki przypadek (np. createdAt ustawione ręcznie) - wstawienie z przesunięciem
+        int pos = 0;
+        while (pos < count && createdAt[slot(pos)] > time) {
+            pos++;
+        }
+        int last = Math.min(count, capacity - 1);
+        for (int i = last; i > pos; i--) {
+            createdAt[slot(i)] = createdAt[slot(i - 1)];
+            productIds[slot(i)] = productIds[slot(i - 1)];
+        }
+        createdAt[slot(pos)] = time;
+        productIds[slot(pos)] = id;
+        count = Math.min(count + 1, capacity);
+    }
+
+    private int indexOf(int id) {
+        for (int i = 0; i < count; i++) {
+            if (productIds[slot(i)] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int slot(int offset) {
+        return (head + offset) % capacity;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private record Stamp(long time, int id) {
+    }
+}
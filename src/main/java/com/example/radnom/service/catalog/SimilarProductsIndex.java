@@ -0,0 +1,712 @@
+package com.example.radnom.service.catalog;
+
+import com.example.radnom.entity.Product;
+import com.example.radnom.service.search.TextAnalyzer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Podobne produkty - gotowa tabela top-K sąsiadów dla każdego produktu, odczyt to jedno get().
+//
+// Produkt -> wektor cech o stałej długości (feature hashing, DIMENSIONS floatów): kategoria,
+// marka, terminy nazwy (TextAnalyzer), cena w skali logarytmicznej i ocena jako "miękkie"
+// kubełki (bliskie wartości dzielą wymiar). Wektor ma długość 1, podobieństwo = iloczyn skalarny.
+//
+// Pełne przeliczenie (start, co app.similar.rebuild-ms gdy były zmiany) równolegle w ForkJoinPool.
+// Kandydaci to tylko produkty z tej samej kategorii albo marki (blokowanie), a w dużych blokach
+// okno app.similar.window najbliższych cenowo - koszt O(n * okno) zamiast O(n^2).
+// Zmiana produktu przelicza przyrostowo jego listę i listy jego kandydatów (to samo okno cenowe);
+// listy, z których produkt wypadł, dopełni dopiero następne pełne przeliczenie. Listy zawierające
+// produkt są w odwrotnej mapie, usunięcie nie przegląda całej tabeli.
+//
+// Wszystkie przeliczenia robi jeden wątek (worker) - zapis produktu i ProductIndexer tylko
+// wrzucają zmianę do kolejki (ostatni stan na produkt) albo zlecają pełne przeliczenie.
+// Stan do przeliczeń należy wyłącznie do workera, czytający widzą tylko tabelę.
+@Slf4j
+@Component
+public class SimilarProductsIndex implements ProductIndex {
+
+    private static final int DIMENSIONS = 64;
+    // Udział grup cech w wektorze (przed normalizacją)
+    private static final float CATEGORY_WEIGHT = 1.0f;
+    private static final float BRAND_WEIGHT = 0.8f;
+    private static final float NAME_WEIGHT = 1.0f;
+    private static final float PRICE_WEIGHT = 0.7f;
+    private static final float RATING_WEIGHT = 0.3f;
+    // Kubełki cen co 25% (log), ocen co pół gwiazdki
+    private static final double PRICE_STEP = Math.log(1.25);
+    private static final double RATING_STEP = 0.5;
+    // Poniżej tylu produktów zadanie ForkJoin liczy samo, powyżej dzieli się na pół
+    private static final int TASK_THRESHOLD = 128;
+
+
+    private final TextAnalyzer analyzer;
+    private final int neighbours;
+    private final int window;
+    private final ForkJoinPool pool;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "similar-products");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Tabela do odczytu: wpisy niezmienne, podmieniane w całości
+    private final ConcurrentHashMap<Integer, Neighbours> table = new ConcurrentHashMap<>();
+
+    // Stan do przeliczeń - tylko wątek workera.
+    // Członkowie bloków jako klucze (cena, id), posortowane - okno cenowe to dwa iteratory
+    private final Map<Integer, Features> features = new HashMap<>();
+    private final Map<String, NavigableSet<Long>> categoryMembers = new HashMap<>();
+    private final Map<String, NavigableSet<Long>> brandMembers = new HashMap<>();
+    // Odwrotność tabeli: produkt -> produkty, na których liście jest
+    private final Map<Integer, int[]> listedIn = new HashMap<>();
+    private int changesSinceBuild;
+
+    // Zmiany czekające na workera (null = produkt usunięty); pod monitorem `pending`
+    private final Map<Integer, Features> pending = new LinkedHashMap<>();
+    private boolean drainScheduled;
+
+    private volatile boolean ready = false;
+
+    public SimilarProductsIndex(TextAnalyzer analyzer,
+                                @Value("${app.similar.neighbours:12}") int neighbours,
+                                @Value("${app.similar.window:500}") int window,
+                                @Value("${app.similar.parallelism:0}") int parallelism) {
+        this.analyzer = analyzer;
+        this.neighbours = neighbours;
+        this.window = window;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    // ========== READ ==========
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // ID najbardziej podobnych, od najbliższego; pusty Optional gdy produktu nie ma w tabeli
+    public Optional<List<Integer>> similar(Integer productId, int limit) {
+        Neighbours entry = table.get(productId);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        int n = Math.min(limit, entry.ids().length);
+        List<Integer> ids = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            ids.add(entry.ids()[i]);
+        }
+        return Optional.of(ids);
+    }
+
+    // ========== PRODUCT INDEX ==========
+
+    // finish() tylko zleca przeliczenie - ProductIndexer trzyma w nim swój monitor
+    @Override
+    public Rebuild beginRebuild() {
+        List<Features> all = new ArrayList<>();
+        return new Rebuild() {
+            @Override
+            public void add(Product product) {
+                all.add(featuresOf(product));
+            }
+
+            @Override
+            public void finish() {
+                runOnWorker("full build", () -> {
+                    install(all);
+                    buildTable();
+                });
+            }
+        };
+    }
+
+    @Override
+    public void onProductSaved(Product product) {
+        enqueue(product.getId(), featuresOf(product));
+    }
+
+    @Override
+    public void onProductRemoved(Integer productId) {
+        enqueue(productId, null);
+    }
+
+    // ========== BACKGROUND ==========
+
+    // Zmiany przyrostowe nie dopełniają list, z których produkt wypadł - okresowo liczymy od nowa
+    // (z cech w pamięci, bez bazy)
+    @Scheduled(fixedDelayString = "${app.similar.rebuild-ms:3600000}",
+            initialDelayString = "${app.similar.rebuild-ms:3600000}")
+    public void refresh() {
+        runOnWorker("refresh", () -> {
+            if (changesSinceBuild > 0) {
+                buildTable();
+            }
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        worker.shutdownNow();
+        pool.shutdownNow();
+    }
+
+    // ========== WORKER ==========
+
+    private void enqueue(Integer productId, Features updated) {
+        synchronized (pending) {
+            pending.put(productId, updated);
+            if (drainScheduled) {
+                return;
+            }
+            drainScheduled = true;
+        }
+        runOnWorker("incremental update", this::drainPending);
+    }
+
+    private void drainPending() {
+        Map<Integer, Features> changes;
+        synchronized (pending) {
+            changes = new LinkedHashMap<>(pending);
+            pending.clear();
+            drainScheduled = false;
+        }
+        for (Map.Entry<Integer, Features> change : changes.entrySet()) {
+            if (change.getValue() != null) {
+                applySaved(change.getValue());
+            } else {
+                applyRemoved(change.getKey());
+            }
+        }
+    }
+
+    private void runOnWorker(String what, Runnable task) {
+        worker.execute(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                log.error("Similar products {} failed: {}", what, e.getMessage(), e);
+            }
+        });
+    }
+
+    private void applySaved(Features updated) {
+        Features previous = features.get(updated.id());
+        // Zmiana stanu magazynowego, opisu itp. nie rusza wektora
+        if (previous != null && previous.sameAs(updated)) {
+            return;
+        }
+        if (previous != null) {
+            removeMember(previous);
+        }
+        features.put(updated.id(), updated);
+        addMember(updated);
+        changesSinceBuild++;
+        relink(updated);
+    }
+
+    private void applyRemoved(Integer productId) {
+        Features previous = features.remove(productId);
+        if (previous != null) {
+            removeMember(previous);
+        }
+        changesSinceBuild++;
+        unlink(productId);
+    }
+
+    // ========== FULL BUILD ==========
+
+    private void install(List<Features> all) {
+        features.clear();
+        categoryMembers.clear();
+        brandMembers.clear();
+        for (Features f : all) {
+            features.put(f.id(), f);
+            addMember(f);
+        }
+    }
+
+    private void buildTable() {
+        long start = System.currentTimeMillis();
+        List<Features> snapshot = new ArrayList<>(features.values());
+        changesSinceBuild = 0;
+
+        BuildContext context = new BuildContext(snapshot);
+        Neighbours[] computed = context.compute();
+
+        // Podmiana wpis po wpisie - czytający nie trafia na pustą tabelę
+        for (int i = 0; i < computed.length; i++) {
+            table.put(snapshot.get(i).id(), computed[i]);
+        }
+        table.keySet().retainAll(features.keySet());
+        rebuildListedIn(context, computed);
+
+        ready = true;
+        log.info("Built similar products table for {} products in {} ms",
+                computed.length, System.currentTimeMillis() - start);
+    }
+
+    // Dwa przejścia (zliczenie, wypełnienie) - tablice od razu w docelowym rozmiarze
+    private void rebuildListedIn(BuildContext context, Neighbours[] computed) {
+        Map<Integer, Integer> positions = new HashMap<>(context.size * 2);
+        for (int i = 0; i < context.size; i++) {
+            positions.put(context.ids[i], i);
+        }
+        int[] counts = new int[context.size];
+        for (Neighbours list : computed) {
+            for (int id : list.ids()) {
+                counts[positions.get(id)]++;
+            }
+        }
+        int[][] owners = new int[context.size][];
+        for (int i = 0; i < computed.length; i++) {
+            for (int id : computed[i].ids()) {
+                int pos = positions.get(id);
+                if (owners[pos] == null) {
+                    owners[pos] = new int[counts[pos]];
+                    counts[pos] = 0;
+                }
+                owners[pos][counts[pos]++] = context.ids[i];
+            }
+        }
+        listedIn.clear();
+        for (int i = 0; i < context.size; i++) {
+            if (owners[i] != null) {
+                listedIn.put(context.ids[i], owners[i]);
+            }
+        }
+    }
+
+    // Tablice pod pełne przeliczenie: wektory jednym ciągłym float[], bloki kategorii i marek
+    // jako pozycje posortowane po cenie
+    private final class BuildContext {
+        private final int size;
+        private final int[] ids;
+        private final float[] vectors;
+        private final int[][] categoryBlock;
+        private final int[] categoryPos;
+        private final int[][] brandBlock;
+        private final int[] brandPos;
+        private final Neighbours[] result;
+
+        private BuildContext(List<Features> all) {
+            size = all.size();
+            ids = new int[size];
+            vectors = new float[size * DIMENSIONS];
+            categoryBlock = new int[size][];
+            categoryPos = new int[size];
+            brandBlock = new int[size][];
+            brandPos = new int[size];
+            result = new Neighbours[size];
+
+            Map<String, List<Integer>> byCategory = new HashMap<>();
+            Map<String, List<Integer>> byBrand = new HashMap<>();
+            for (int i = 0; i < size; i++) {
+                Features f = all.get(i);
+                ids[i] = f.id();
+                System.arraycopy(f.vector(), 0, vectors, i * DIMENSIONS, DIMENSIONS);
+                byCategory.computeIfAbsent(f.category(), k -> new ArrayList<>()).add(i);
+                if (f.brand() != null) {
+                    byBrand.computeIfAbsent(f.brand(), k -> new ArrayList<>()).add(i);
+                }
+            }
+            assignBlocks(byCategory, all, categoryBlock, categoryPos);
+            assignBlocks(byBrand, all, brandBlock, brandPos);
+        }
+
+        private Neighbours[] compute() {
+            pool.invoke(new NeighbourTask(this, 0, size));
+            return result;
+        }
+
+        private void computeOne(int i) {
+            TopK top = new TopK(neighbours);
+            int half = window / 2;
+
+            int[] block = categoryBlock[i];
+            int pos = categoryPos[i];
+            for (int k = Math.max(0, pos - half), end = Math.min(block.length, pos + half + 1); k < end; k++) {
+                int j = block[k];
+                if (j != i) {
+                    top.offer(ids[j], dot(vectors, i, vectors, j));
+                }
+            }
+
+            block = brandBlock[i];
+            if (block != null) {
+                pos = brandPos[i];
+                for (int k = Math.max(0, pos - half), end = Math.min(block.length, pos + half + 1); k < end; k++) {
+                    int j = block[k];
+                    // Ta sama kategoria w oknie - już policzony wyżej
+                    if (j == i || (categoryBlock[j] == categoryBlock[i]
+                            && Math.abs(categoryPos[j] - categoryPos[i]) <= half)) {
+                        continue;
+                    }
+                    top.offer(ids[j], dot(vectors, i, vectors, j));
+                }
+            }
+            result[i] = top.toNeighbours();
+        }
+
+        private static void assignBlocks(Map<String, List<Integer>> groups, List<Features> all,
+                                         int[][] blockOf, int[] posOf) {
+            for (List<Integer> members : groups.values()) {
+                int[] block = members.stream()
+                        .sorted(Comparator.comparingInt((Integer i) -> all.get(i).price())
+                                .thenComparingInt(i -> all.get(i).id()))
+                        .mapToInt(Integer::intValue)
+                        .toArray();
+                for (int k = 0; k < block.length; k++) {
+                    blockOf[block[k]] = block;
+                    posOf[block[k]] = k;
+                }
+            }
+        }
+    }
+
+    private static final class NeighbourTask extends RecursiveAction {
+        private final BuildContext context;
+        private final int from;
+        private final int to;
+
+        private NeighbourTask(BuildContext context, int from, int to) {
+            this.context = context;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= TASK_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    context.computeOne(i);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new NeighbourTask(context, from, mid), new NeighbourTask(context, mid, to));
+        }
+    }
+
+    // ========== INCREMENTAL ==========
+
+    // Nowa lista produktu + jego miejsce na listach kandydatów
+    private void relink(Features product) {
+        unlink(product.id());
+
+        TopK top = new TopK(neighbours);
+        for (Integer candidateId : candidatesOf(product)) {
+            Features candidate = features.get(candidateId);
+            float score = dot(product.vector(), 0, candidate.vector(), 0);
+            top.offer(candidateId, score);
+
+            Neighbours current = table.get(candidateId);
+            if (current != null) {
+                Neighbours offered = current.offer(product.id(), score, neighbours);
+                if (offered != current) {
+                    putList(candidateId, offered);
+                }
+            }
+        }
+        putList(product.id(), top.toNeighbours());
+    }
+
+    // Produkt znika ze swojej listy i z list, na których jest (z listedIn, bez przeglądania tabeli)
+    private void unlink(Integer productId) {
+        putList(productId, null);
+        int[] owners = listedIn.remove(productId);
+        if (owners == null) {
+            return;
+        }
+        for (int owner : owners) {
+            Neighbours current = table.get(owner);
+            if (current != null) {
+                putList(owner, current.without(productId));
+            }
+        }
+    }
+
+    // Podmiana listy w tabeli (null = usunięcie) razem z listedIn
+    private void putList(int owner, Neighbours list) {
+        Neighbours previous = list != null ? table.put(owner, list) : table.remove(owner);
+        if (previous != null) {
+            for (int id : previous.ids()) {
+                if (list == null || !list.contains(id)) {
+                    removeListed(id, owner);
+                }
+            }
+        }
+        if (list != null) {
+            for (int id : list.ids()) {
+                if (previous == null || !previous.contains(id)) {
+                    addListed(id, owner);
+                }
+            }
+        }
+    }
+
+    private void addListed(int id, int owner) {
+        int[] owners = listedIn.get(id);
+        if (owners == null) {
+            listedIn.put(id, new int[]{owner});
+            return;
+        }
+        int[] grown = Arrays.copyOf(owners, owners.length + 1);
+        grown[owners.length] = owner;
+        listedIn.put(id, grown);
+    }
+
+    private void removeListed(int id, int owner) {
+        int[] owners = listedIn.get(id);
+        if (owners == null) {
+            return;
+        }
+        for (int i = 0; i < owners.length; i++) {
+            if (owners[i] == owner) {
+                if (owners.length == 1) {
+                    listedIn.remove(id);
+                } else {
+                    int[] shrunk = Arrays.copyOf(owners, owners.length - 1);
+                    System.arraycopy(owners, i + 1, shrunk, i, owners.length - i - 1);
+                    listedIn.put(id, shrunk);
+                }
+                return;
+            }
+        }
+    }
+
+    // Kandydaci jak w pełnym przeliczeniu: blok kategorii i marki, po window/2 najbliższych cenowo
+    // z każdej strony
+    private Set<Integer> candidatesOf(Features product) {
+        Set<Integer> candidates = new HashSet<>();
+        addWindow(categoryMembers.get(product.category()), product, candidates);
+        if (product.brand() != null) {
+            addWindow(brandMembers.get(product.brand()), product, candidates);
+        }
+        candidates.remove(product.id());
+        return candidates;
+    }
+
+    private void addWindow(NavigableSet<Long> members, Features product, Set<Integer> out) {
+        if (members == null) {
+            return;
+        }
+        long key = memberKey(product);
+        int half = window / 2;
+        Iterator<Long> lower = members.headSet(key, false).descendingIterator();
+        for (int i = 0; i < half && lower.hasNext(); i++) {
+            out.add(idOf(lower.next()));
+        }
+        Iterator<Long> upper = members.tailSet(key, false).iterator();
+        for (int i = 0; i < half && upper.hasNext(); i++) {
+            out.add(idOf(upper.next()));
+        }
+    }
+
+    private void addMember(Features f) {
+        categoryMembers.computeIfAbsent(f.category(), k -> new TreeSet<>()).add(memberKey(f));
+        if (f.brand() != null) {
+            brandMembers.computeIfAbsent(f.brand(), k -> new TreeSet<>()).add(memberKey(f));
+        }
+    }
+
+    private void removeMember(Features f) {
+        removeFrom(categoryMembers, f.category(), memberKey(f));
+        if (f.brand() != null) {
+            removeFrom(brandMembers, f.brand(), memberKey(f));
+        }
+    }
+
+    private static void removeFrom(Map<String, NavigableSet<Long>> groups, String key, long member) {
+        NavigableSet<Long> members = groups.get(key);
+        if (members != null && members.remove(member) && members.isEmpty()) {
+            groups.remove(key);
+        }
+    }
+
+    // Porządek (cena, id) jak bloki w BuildContext
+    private static long memberKey(Features f) {
+        return ((long) f.price() << 32) | (f.id() & 0xffffffffL);
+    }
+
+    private static int idOf(long memberKey) {
+        return (int) memberKey;
+    }
+
+    // ========== FEATURES ==========
+
+    private Features featuresOf(Product product) {
+        float[] vector = new float[DIMENSIONS];
+        String category = key(product.getCategory());
+        String brand = key(product.getBrand());
+        int price = product.getPrice() != null ? product.getPrice() : 0;
+
+        addHashed(vector, "c:" + category, CATEGORY_WEIGHT);
+        if (brand != null) {
+            addHashed(vector, "b:" + brand, BRAND_WEIGHT);
+        }
+
+        List<String> terms = analyzer.analyze(product.getProductName());
+        if (!terms.isEmpty()) {
+            float termWeight = NAME_WEIGHT / (float) Math.sqrt(terms.size());
+            for (String term : terms) {
+                addHashed(vector, "n:" + term, termWeight);
+            }
+        }
+
+        if (product.getPrice() != null) {
+            addSoftBucket(vector, "p:", Math.log1p(Math.max(price, 0)) / PRICE_STEP, PRICE_WEIGHT);
+        }
+        if (product.getRating() != null) {
+            addSoftBucket(vector, "r:", product.getRating() / RATING_STEP, RATING_WEIGHT);
+        }
+
+        normalize(vector);
+        return new Features(product.getId(), vector, category != null ? category : "", brand, price);
+    }
+
+    // Wartość między kubełkami dzieli wagę na oba sąsiednie - 100 zł i 110 zł są blisko,
+    // mimo że wpadają do różnych kubełków
+    private static void addSoftBucket(float[] vector, String prefix, double position, float weight) {
+        long bucket = (long) Math.floor(position);
+        float upper = (float) (position - bucket);
+        addHashed(vector, prefix + bucket, weight * (1 - upper));
+        addHashed(vector, prefix + (bucket + 1), weight * upper);
+    }
+
+    // Feature hashing ze znakiem - kolizje różnych cech częściowo się znoszą zamiast sumować
+    private static void addHashed(float[] vector, String feature, float weight) {
+        int h = feature.hashCode() * 0x9E3779B9;
+        h ^= h >>> 16;
+        int index = (h & 0x7fffffff) % DIMENSIONS;
+        vector[index] += (h & 0x80000000) != 0 ? -weight : weight;
+    }
+
+    private static void normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        if (norm == 0) {
+            return;
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] *= scale;
+        }
+    }
+
+    private static float dot(float[] a, int aIndex, float[] b, int bIndex) {
+        int aOffset = aIndex * DIMENSIONS;
+        int bOffset = bIndex * DIMENSIONS;
+        // Cztery niezależne sumy - pętla nie czeka na wynik poprzedniego dodawania
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        for (int d = 0; d < DIMENSIONS; d += 4) {
+            s0 += a[aOffset + d] * b[bOffset + d];
+            s1 += a[aOffset + d + 1] * b[bOffset + d + 1];
+            s2 += a[aOffset + d + 2] * b[bOffset + d + 2];
+            s3 += a[aOffset + d + 3] * b[bOffset + d + 3];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    private static String key(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return value.trim().toLowerCase();
+    }
+
+    // ========== TYPES ==========
+
+    private record Features(int id, float[] vector, String category, String brand, int price) {
+
+        boolean sameAs(Features other) {
+            return price == other.price
+                    && category.equals(other.category)
+                    && Objects.equals(brand, other.brand)
+                    && Arrays.equals(vector, other.vector);
+        }
+    }
+
+    // Lista sąsiadów malejąco po podobieństwie (remis - mniejsze ID); niezmienna
+    private record Neighbours(int[] ids, float[] scores) {
+
+        boolean contains(int id) {
+            for (int existing : ids) {
+                if (existing == id) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        Neighbours without(int id) {
+            TopK top = new TopK(ids.length);
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] != id) {
+                    top.offer(ids[i], scores[i]);
+                }
+            }
+            return top.toNeighbours();
+        }
+
+        // Ta sama lista (this), gdy produkt się nie mieści
+        Neighbours offer(int id, float score, int limit) {
+            if (ids.length >= limit && !better(score, id, scores[ids.length - 1], ids[ids.length - 1])) {
+                return this;
+            }
+            TopK top = new TopK(limit);
+            for (int i = 0; i < ids.length; i++) {
+                top.offer(ids[i], scores[i]);
+            }
+            top.offer(id, score);
+            return top.toNeighbours();
+        }
+    }
+
+    // K najlepszych w tablicach posortowanych malejąco - K jest małe, wstawianie liniowe
+    private static final class TopK {
+        private final int[] ids;
+        private final float[] scores;
+        private int size;
+
+        private TopK(int capacity) {
+            this.ids = new int[capacity];
+            this.scores = new float[capacity];
+        }
+
+        private void offer(int id, float score) {
+            if (score <= 0 || ids.length == 0) {
+                return;
+            }
+            if (size == ids.length && !better(score, id, scores[size - 1], ids[size - 1])) {
+                return;
+            }
+            int pos = size < ids.length ? size++ : size - 1;
+            while (pos > 0 && better(score, id, scores[pos - 1], ids[pos - 1])) {
+                ids[pos] = ids[pos - 1];
+                scores[pos] = scores[pos - 1];
+                pos--;
+            }
+            ids[pos] = id;
+            scores[pos] = score;
+        }
+
+        private Neighbours toNeighbours() {
+            return new Neighbours(Arrays.copyOf(ids, size), Arrays.copyOf(scores, size));
+        }
+    }
+
+    private static boolean better(float score, int id, float otherScore, int otherId) {
+        return score > otherScore || (score == otherScore && id < otherId);
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.radnom.service.catalog;
+
+import com.example.radnom.entity.dto.SingleFlightStatsDTO;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Łączenie równoczesnych identycznych odczytów: pierwszy wątek z danym kluczem ("lider") wykonuje
+// ładowanie, kolejne czekają na jego wynik zamiast wysyłać to samo zapytanie do bazy.
+// Wynik nie jest zapamiętywany - po zakończeniu lotu następne wywołanie ładuje od nowa
+// (od pamiętania są ProductCache i SearchResultCache).
+//
+// Czekający nie wisi dłużej niż timeout - dostaje WaitTimeoutException, a lider ładuje dalej.
+// Wyjątek lidera trafia do wszystkich czekających.
+@Slf4j
+public class SingleFlight<K, V> {
+
+    private final String name;
+    private final long timeoutNanos;
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public SingleFlight(String name, Duration timeout) {
+        this.name = name;
+        this.timeoutNanos = timeout.toNanos();
+    }
+
+    // ========== EXECUTE ==========
+
+    public V execute(K key, Supplier<V> loader) {
+        calls.increment();
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+
+        if (existing != null) {
+            coalesced.increment();
+            return await(key, existing);
+        }
+
+        executions.increment();
+        try {
+            V value = loader.get();
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            failures.increment();
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            // Najpierw wynik, potem zdjęcie z mapy - spóźniony czekający i tak go dostanie
+            inFlight.remove(key, flight);
+        }
+    }
+
+    public SingleFlightStatsDTO stats() {
+        long totalCalls = calls.sum();
+        long coalescedCalls = coalesced.sum();
+        return SingleFlightStatsDTO.builder()
+                .name(name)
+                .calls(totalCalls)
+                .executions(executions.sum())
+                .coalesced(coalescedCalls)
+                .coalescedRatio(totalCalls > 0 ? (double) coalescedCalls / totalCalls : 0)
+                .timeouts(timeouts.sum())
+                .failures(failures.sum())
+                .inFlight(inFlight.size())
+                .timeoutMillis(TimeUnit.NANOSECONDS.toMillis(timeoutNanos))
+                .build();
+    }
+
+    // ========== PRIVATE ==========
+
+    private V await(K key, CompletableFuture<V> flight) {
+        try {
+            return flight.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            log.warn("Single-flight {} timed out waiting for key {}", name, key);
+            throw new WaitTimeoutException(name, key);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + name + " " + key, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    // Lider nie skończył w czasie - przeciążenie, nie brak danych
+    public static class WaitTimeoutException extends RuntimeException {
+        public WaitTimeoutException(String name, Object key) {
+            super("Timed out waiting for in-flight " + name + " load of " + key);
+        }
+    }
+}
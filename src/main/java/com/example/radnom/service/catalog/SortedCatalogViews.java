@@ -0,0 +1,131 @@
+package com.example.radnom.service.catalog;
+
+import com.example.radnom.entity.Product;
+import com.example.radnom.repository.ProductSort;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+
+// Utrzymywane posortowane widoki katalogu - po jednym na każde ProductSort.
+// "Top 20 najtańszych" to odczyt pierwszych 20 elementów, a nie sortowanie O(n log n).
+// Kolejność jak ORDER BY w bazie (ProductSort.comparator) - widok i zapytanie bez limitu dają
+// tę samą listę. Klucz nazwy jest zapisany już jako ProductSort.nameKey, więc porównanie
+// to zwykłe compareTo.
+@Slf4j
+@Component
+public class SortedCatalogViews implements ProductIndex {
+
+    private final Map<ProductSort, ConcurrentSkipListSet<Entry>> views = new EnumMap<>(ProductSort.class);
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+    private volatile boolean ready = false;
+
+    public SortedCatalogViews() {
+        for (ProductSort sort : ProductSort.values()) {
+            views.put(sort, new ConcurrentSkipListSet<>(comparatorFor(sort)));
+        }
+    }
+
+    // ========== READ ==========
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Pierwsze `limit` ID w danym porządku (produkty bez wartości klucza jak w MySQL: na początku
+    // przy ASC, na końcu przy DESC)
+    public List<Integer> top(ProductSort sort, int limit) {
+        List<Integer> ids = new ArrayList<>(Math.min(limit, entries.size()));
+        for (Entry entry : views.get(sort)) {
+            if (ids.size() >= limit) {
+                break;
+            }
+            ids.add(entry.id());
+        }
+        return ids;
+    }
+
+    // ========== ProductIndex ==========
+
+    @Override
+    public Rebuild beginRebuild() {
+        List<Entry> staged = new ArrayList<>();
+        return new Rebuild() {
+            @Override
+            public void add(Product product) {
+                if (product.getId() != null) {
+                    staged.add(Entry.of(product));
+                }
+            }
+
+            @Override
+            public void finish() {
+                synchronized (SortedCatalogViews.this) {
+                    views.values().forEach(Set::clear);
+                    entries.clear();
+                    staged.forEach(SortedCatalogViews.this::add);
+                    ready = true;
+                    log.info("Sorted catalog views built: {} views x {} products", views.size(), entries.size());
+                }
+            }
+        };
+    }
+
+    @Override
+    public synchronized void onProductSaved(Product product) {
+        remove(product.getId());
+        add(product);
+    }
+
+    @Override
+    public synchronized void onProductRemoved(Integer productId) {
+        remove(productId);
+    }
+
+    // ========== PRIVATE ==========
+
+    private void add(Product product) {
+        if (product.getId() != null) {
+            add(Entry.of(product));
+        }
+    }
+
+    private void add(Entry entry) {
+        entries.put(entry.id(), entry);
+        views.values().forEach(view -> view.add(entry));
+    }
+
+    private void remove(Integer productId) {
+        Entry entry = productId != null ? entries.remove(productId) : null;
+        if (entry != null) {
+            views.values().forEach(view -> view.remove(entry));
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static Comparator<Entry> comparatorFor(ProductSort sort) {
+        Function<Entry, Comparable> key = switch (sort.getAttribute()) {
+            case "price" -> Entry::price;
+            case "productName" -> Entry::name;
+            case "rating" -> Entry::rating;
+            case "reviewCount" -> Entry::reviewCount;
+            default -> entry -> null;
+        };
+        return sort.comparator(key, Entry::id);
+    }
+
+    private record Entry(int id, Integer price, String name, Double rating, Integer reviewCount) {
+
+        static Entry of(Product product) {
+            return new Entry(
+                    product.getId(),
+                    product.getPrice(),
+                    ProductSort.nameKey(product.getProductName()),
+                    product.getRating(),
+                    product.getReviewCount());
+        }
+    }
+}
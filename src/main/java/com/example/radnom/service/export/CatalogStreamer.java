@@ -0,0 +1,123 @@
+package com.example.radnom.service.export;
+
+import com.example.radnom.repository.ProductRepository;
+import com.example.radnom.repository.ProductTombstoneRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+// Zapis produktów prosto do strumienia odpowiedzi (JSON, NDJSON, CSV). Wiersze idą z kursora bazy
+// (ProductRepository.streamAllOrderById / streamUpdatedSince), każdy jest zapisywany i od razu
+// odłączany od persistence context - pamięć nie rośnie z liczbą produktów.
+//
+// Eksport przyrostowy (since): produkty z updatedAt > since, potem usunięcia z product_tombstones,
+// w jednej transakcji tylko do odczytu. Odbiorca zapamiętuje znacznik z nagłówka odpowiedzi
+// (watermark()) i podaje go jako since przy następnym pobraniu.
+@Slf4j
+@Component
+public class CatalogStreamer {
+
+    // Co tyle wierszy bufor jest wypychany do klienta
+    private static final int FLUSH_EVERY = 500;
+
+    private final ProductRepository productRepository;
+    private final ProductTombstoneRepository tombstoneRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long watermarkLagSeconds;
+
+    public CatalogStreamer(ProductRepository productRepository,
+                           ProductTombstoneRepository tombstoneRepository,
+                           EntityManager entityManager,
+                           ObjectMapper objectMapper,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${app.export.watermark-lag-seconds:60}") long watermarkLagSeconds) {
+        this.productRepository = productRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.watermarkLagSeconds = watermarkLagSeconds;
+    }
+
+    // ========== API ==========
+
+    // Cały katalog jako tablica JSON, rosnąco po ID
+    public long writeAll(OutputStream out) {
+        return export(ProductExportFormat.JSON, null, out);
+    }
+
+    // Pełny eksport (since == null) albo zmiany i usunięcia po since
+    public long export(ProductExportFormat format, LocalDateTime since, OutputStream out) {
+        long start = System.currentTimeMillis();
+        Long written = readOnlyTransaction.execute(status -> {
+            try {
+                ProductRowWriter writer = format.open(out, objectMapper);
+                writer.begin();
+
+                long count;
+                if (since == null) {
+                    count = copy(productRepository::streamAllOrderById, writer::write, writer);
+                } else {
+                    count = copy(() -> productRepository.streamUpdatedSince(since), writer::write, writer);
+                    count += copy(() -> tombstoneRepository.streamDeletedSince(since), writer::writeDeleted, writer);
+                }
+
+                writer.end();
+                return count;
+            } catch (IOException e) {
+                // Najczęściej klient zerwał połączenie w trakcie
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        log.info("Streamed {} {} rows{} in {} ms", written, format,
+                since != null ? " changed since " + since : "", System.currentTimeMillis() - start);
+        return written != null ? written : 0;
+    }
+
+    // Znacznik dla następnego eksportu przyrostowego - liczony PRZED otwarciem kursora i cofnięty
+    // o app.export.watermark-lag-seconds, żeby objąć transakcje zatwierdzone z opóźnieniem.
+    // Wiersze z zakładki trafią do dwóch kolejnych eksportów - odbiorca nadpisuje je po productId.
+    public LocalDateTime watermark() {
+        return LocalDateTime.now().minusSeconds(watermarkLagSeconds).truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    // ========== PRIVATE ==========
+
+    private interface RowHandler<T> {
+        void write(T row) throws IOException;
+    }
+
+    private <T> long copy(Supplier<Stream<T>> query, RowHandler<T> handler, ProductRowWriter writer)
+            throws IOException {
+        long count = 0;
+        try (Stream<T> rows = query.get()) {
+            Iterator<T> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                T row = iterator.next();
+                handler.write(row);
+                entityManager.detach(row);
+                if (++count % FLUSH_EVERY == 0) {
+                    writer.flush();
+                }
+            }
+        }
+        return count;
+    }
+}
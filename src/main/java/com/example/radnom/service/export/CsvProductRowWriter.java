@@ -0,0 +1,105 @@
+package com.example.radnom.service.export;
+
+import com.example.radnom.entity.Product;
+import com.example.radnom.entity.ProductTombstone;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+// CSV (RFC 4180) z nagłówkiem. Nazwy kolumn jak w imporcie (CsvProductReader) - plik eksportu
+// da się wczytać z powrotem, kolumny product_id / *_at / deleted import pomija.
+class CsvProductRowWriter implements ProductRowWriter {
+
+    private static final String[] HEADER = {
+            "product_id", "product_name", "price", "product_date", "description", "category",
+            "image_url", "stock", "weight", "dimensions", "brand", "rating", "review_count",
+            "created_at", "updated_at", "deleted"
+    };
+
+    private final Writer writer;
+
+    CsvProductRowWriter(OutputStream out) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    @Override
+    public void begin() throws IOException {
+        for (int i = 0; i < HEADER.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(HEADER[i]);
+        }
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void write(Product product) throws IOException {
+        field(product.getId());
+        field(product.getProductName());
+        field(product.getPrice());
+        field(product.getProductDate());
+        field(product.getDescription());
+        field(product.getCategory());
+        field(product.getImageUrl());
+        field(product.getStock());
+        field(product.getWeight());
+        field(product.getDimensions());
+        field(product.getBrand());
+        field(product.getRating());
+        field(product.getReviewCount());
+        field(product.getCreatedAt());
+        field(product.getUpdatedAt());
+        writer.write("false\r\n");
+    }
+
+    @Override
+    public void writeDeleted(ProductTombstone tombstone) throws IOException {
+        field(tombstone.getProductId());
+        // Puste kolumny danych, w updated_at moment usunięcia
+        for (int i = 1; i < HEADER.length - 2; i++) {
+            writer.write(',');
+        }
+        field(tombstone.getDeletedAt());
+        writer.write("true\r\n");
+    }
+
+    @Override
+    public void end() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    // Wartość + przecinek; cudzysłowy tylko gdy potrzebne
+    private void field(Object value) throws IOException {
+        if (value != null) {
+            String text = value.toString();
+            if (needsQuoting(text)) {
+                writer.write('"');
+                writer.write(text.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(text);
+            }
+        }
+        writer.write(',');
+    }
+
+    private static boolean needsQuoting(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.radnom.service.export;
+
+import com.example.radnom.entity.Product;
+import com.example.radnom.entity.ProductTombstone;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+// JSON generatorem Jacksona: tablica (jak GET /api/products) albo NDJSON - obiekt na linię
+class JsonProductRowWriter implements ProductRowWriter {
+
+    private final JsonGenerator generator;
+    private final ObjectWriter productWriter;
+    private final boolean lines;
+
+    JsonProductRowWriter(ObjectMapper objectMapper, OutputStream out, boolean lines) throws IOException {
+        this.generator = objectMapper.getFactory().createGenerator(out);
+        // Strumień odpowiedzi zamyka kontener, nie generator
+        this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        if (lines) {
+            // Separator między obiektami najwyższego poziomu - domyślnie spacja
+            this.generator.setRootValueSeparator(null);
+        }
+        // Bez flush po każdym obiekcie - o flush dba CatalogStreamer
+        this.productWriter = objectMapper.writerFor(Product.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.lines = lines;
+    }
+
+    @Override
+    public void begin() throws IOException {
+        if (!lines) {
+            generator.writeStartArray();
+        }
+    }
+
+    @Override
+    public void write(Product product) throws IOException {
+        productWriter.writeValue(generator, product);
+        endLine();
+    }
+
+    @Override
+    public void writeDeleted(ProductTombstone tombstone) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("productId", tombstone.getProductId());
+        generator.writeBooleanField("deleted", true);
+        generator.writeStringField("deletedAt", tombstone.getDeletedAt().toString());
+        generator.writeEndObject();
+        endLine();
+    }
+
+    @Override
+    public void end() throws IOException {
+        if (!lines) {
+            generator.writeEndArray();
+        }
+        generator.close();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        generator.flush();
+    }
+
+    private void endLine() throws IOException {
+        if (lines) {
+            generator.writeRaw('\n');
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.radnom.service.export;
+
+import com.example.radnom.entity.Product;
+import com.example.radnom.entity.ProductTombstone;
+
+import java.io.Flushable;
+import java.io.IOException;
+
+// Zapis wierszy eksportu w jednym formacie. Strumienia wyjściowego nie zamyka - robi to kontener.
+interface ProductRowWriter extends Flushable {
+
+    void begin() throws IOException;
+
+    void write(Product product) throws IOException;
+
+    // Usunięcie z eksportu przyrostowego: sam productId + deleted = true
+    void writeDeleted(ProductTombstone tombstone) throws IOException;
+
+    void end() throws IOException;
+}
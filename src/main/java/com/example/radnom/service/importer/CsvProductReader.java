@@ -0,0 +1,195 @@
+package com.example.radnom.service.importer;
+
+import com.example.radnom.entity.Product;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// CSV (RFC 4180): pierwszy wiersz to nagłówek z nazwami kolumn, pola w cudzysłowach mogą
+// zawierać przecinki, "" i nowe linie. Kolejność kolumn dowolna, nieznane są pomijane,
+// puste komórki zostawiają wartości domyślne encji.
+class CsvProductReader implements ProductRecordReader {
+
+    private enum Column {
+        NAME, PRICE, PRODUCT_DATE, DESCRIPTION, CATEGORY, IMAGE_URL, STOCK,
+        WEIGHT, DIMENSIONS, BRAND, RATING, REVIEW_COUNT
+    }
+
+    private final BufferedReader reader;
+    private final Column[] columns;
+    private final StringBuilder field = new StringBuilder();
+    private final List<String> record = new ArrayList<>();
+    private long lineNumber;
+
+    CsvProductReader(BufferedReader reader) {
+        this.reader = reader;
+        try {
+            this.columns = readHeader();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot read CSV header: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public Product next() throws IOException {
+        List<String> values;
+        do {
+            values = readRecord();
+            if (values == null) {
+                return null;
+            }
+        } while (values.size() == 1 && values.get(0).isBlank());
+
+        if (values.size() > columns.length) {
+            throw new IllegalArgumentException("Expected " + columns.length + " columns, got " + values.size());
+        }
+
+        Product product = new Product();
+        for (int i = 0; i < values.size(); i++) {
+            String value = values.get(i).trim();
+            if (columns[i] != null && !value.isEmpty()) {
+                apply(product, columns[i], value);
+            }
+        }
+        return product;
+    }
+
+    @Override
+    public long lineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    // ========== PRIVATE ==========
+
+    private Column[] readHeader() throws IOException {
+        List<String> header = readRecord();
+        if (header == null) {
+            throw new IllegalArgumentException("CSV file is empty");
+        }
+
+        Column[] result = new Column[header.size()];
+        boolean hasName = false;
+        boolean hasPrice = false;
+        for (int i = 0; i < header.size(); i++) {
+            result[i] = column(header.get(i));
+            hasName |= result[i] == Column.NAME;
+            hasPrice |= result[i] == Column.PRICE;
+        }
+        if (!hasName || !hasPrice) {
+            throw new IllegalArgumentException("CSV header must contain product_name and price columns");
+        }
+        return result;
+    }
+
+    // "product_name", "productName", "Product Name" -> NAME; nieznana kolumna -> null
+    private static Column column(String name) {
+        String key = name.trim().replace("\uFEFF", "").replace("_", "").replace(" ", "")
+                .toLowerCase(Locale.ROOT);
+        return switch (key) {
+            case "productname", "name" -> Column.NAME;
+            case "price" -> Column.PRICE;
+            case "productdate" -> Column.PRODUCT_DATE;
+            case "description" -> Column.DESCRIPTION;
+            case "category" -> Column.CATEGORY;
+            case "imageurl" -> Column.IMAGE_URL;
+            case "stock" -> Column.STOCK;
+            case "weight" -> Column.WEIGHT;
+            case "dimensions" -> Column.DIMENSIONS;
+            case "brand" -> Column.BRAND;
+            case "rating" -> Column.RATING;
+            case "reviewcount" -> Column.REVIEW_COUNT;
+            default -> null;
+        };
+    }
+
+    private static void apply(Product product, Column column, String value) {
+        switch (column) {
+            case NAME -> product.setProductName(value);
+            case PRICE -> product.setPrice(parseInt(value, "price"));
+            case PRODUCT_DATE -> product.setProductDate(value);
+            case DESCRIPTION -> product.setDescription(value);
+            case CATEGORY -> product.setCategory(value);
+            case IMAGE_URL -> product.setImageUrl(value);
+            case STOCK -> product.setStock(parseInt(value, "stock"));
+            case WEIGHT -> product.setWeight(parseDouble(value, "weight"));
+            case DIMENSIONS -> product.setDimensions(value);
+            case BRAND -> product.setBrand(value);
+            case RATING -> product.setRating(parseDouble(value, "rating"));
+            case REVIEW_COUNT -> product.setReviewCount(parseInt(value, "review_count"));
+        }
+    }
+
+    private static Integer parseInt(String value, String column) {
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + column + ": " + value);
+        }
+    }
+
+    private static Double parseDouble(String value, String column) {
+        try {
+            return Double.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + column + ": " + value);
+        }
+    }
+
+    // Jeden rekord - może obejmować kilka linii, gdy pole w cudzysłowie zawiera nową linię.
+    // null na końcu pliku
+    private List<String> readRecord() throws IOException {
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+        lineNumber++;
+        record.clear();
+        field.setLength(0);
+        boolean quoted = false;
+
+        while (c != -1) {
+            char ch = (char) c;
+            if (quoted) {
+                if (ch == '"') {
+                    reader.mark(1);
+                    int following = reader.read();
+                    if (following == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        reader.reset();
+                    }
+                } else {
+                    if (ch == '\n') {
+                        lineNumber++;
+                    }
+                    field.append(ch);
+                }
+            } else if (ch == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (ch == ',') {
+                record.add(field.toString());
+                field.setLength(0);
+            } else if (ch == '\n') {
+                break;
+            } else if (ch != '\r') {
+                field.append(ch);
+            }
+            c = reader.read();
+        }
+
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        record.add(field.toString());
+        return record;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.radnom.service.importer;
+
+import com.example.radnom.entity.Product;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+// Jeden obiekt JSON w linii. Każda linia parsowana osobno - uszkodzona linia
+// odrzuca tylko siebie, nie resztę pliku
+class NdjsonProductReader implements ProductRecordReader {
+
+    private final BufferedReader reader;
+    private final ObjectReader productReader;
+    private long lineNumber;
+
+    NdjsonProductReader(BufferedReader reader, ObjectMapper objectMapper) {
+        this.reader = reader;
+        this.productReader = objectMapper.readerFor(Product.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    @Override
+    public Product next() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+            lineNumber++;
+        } while (line.isBlank());
+
+        try {
+            Product product = productReader.readValue(line);
+            // ID zawsze nadaje generator
+            product.setId(null);
+            return product;
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    @Override
+    public long lineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
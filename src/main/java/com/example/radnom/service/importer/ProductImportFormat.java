@@ -0,0 +1,39 @@
+package com.example.radnom.service.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.util.Locale;
+
+public enum ProductImportFormat {
+    CSV,
+    NDJSON;
+
+    // Jawny parametr ?format= ma pierwszeństwo, potem Content-Type żądania
+    public static ProductImportFormat resolve(String format, String contentType) {
+        if (format != null && !format.isBlank()) {
+            try {
+                return valueOf(format.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported import format: " + format);
+            }
+        }
+        if (contentType != null) {
+            String type = contentType.toLowerCase(Locale.ROOT);
+            if (type.startsWith("text/csv")) {
+                return CSV;
+            }
+            if (type.startsWith("application/x-ndjson") || type.startsWith("application/jsonl")) {
+                return NDJSON;
+            }
+        }
+        throw new IllegalArgumentException("Import format required: ?format=csv|ndjson or matching Content-Type");
+    }
+
+    public ProductRecordReader open(BufferedReader reader, ObjectMapper objectMapper) {
+        return switch (this) {
+            case CSV -> new CsvProductReader(reader);
+            case NDJSON -> new NdjsonProductReader(reader, objectMapper);
+        };
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.radnom.service.importer;
+
+import com.example.radnom.entity.dto.ProductImportStatusDTO;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Stan jednego importu - zapisuje wątek importu, czyta endpoint statusu
+class ProductImportJob {
+
+    enum Status { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    // Więcej komunikatów o błędnych wierszach nie ma sensu trzymać
+    private static final int MAX_ERRORS = 100;
+
+    private final String id = UUID.randomUUID().toString();
+    private final ProductImportFormat format;
+    private final Path file;
+    private final long bytes;
+    private final LocalDateTime submittedAt = LocalDateTime.now();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong imported = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final List<String> errors = new ArrayList<>();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile long startedNanos;
+    private volatile long finishedNanos;
+    private volatile String message;
+
+    ProductImportJob(ProductImportFormat format, Path file, long bytes) {
+        this.format = format;
+        this.file = file;
+        this.bytes = bytes;
+    }
+
+    String id() {
+        return id;
+    }
+
+    ProductImportFormat format() {
+        return format;
+    }
+
+    Path file() {
+        return file;
+    }
+
+    long importedRows() {
+        return imported.get();
+    }
+
+    // ========== PROGRESS ==========
+
+    void start() {
+        startedAt = LocalDateTime.now();
+        startedNanos = System.nanoTime();
+        status = Status.RUNNING;
+    }
+
+    void accepted() {
+        processed.incrementAndGet();
+    }
+
+    void committed(int rows) {
+        imported.addAndGet(rows);
+    }
+
+    void rejected(long line, String reason) {
+        processed.incrementAndGet();
+        rejected.incrementAndGet();
+        synchronized (errors) {
+            if (errors.size() < MAX_ERRORS) {
+                errors.add("line " + line + ": " + reason);
+            }
+        }
+    }
+
+    void finish(Status finalStatus, String finalMessage) {
+        finishedAt = LocalDateTime.now();
+        finishedNanos = System.nanoTime();
+        message = finalMessage;
+        status = finalStatus;
+    }
+
+    // ========== SNAPSHOT ==========
+
+    ProductImportStatusDTO toDTO() {
+        List<String> errorsSnapshot;
+        synchronized (errors) {
+            errorsSnapshot = List.copyOf(errors);
+        }
+
+        double rowsPerSecond = 0;
+        if (startedNanos != 0) {
+            long end = finishedNanos != 0 ? finishedNanos : System.nanoTime();
+            double seconds = (end - startedNanos) / 1_000_000_000.0;
+            rowsPerSecond = seconds > 0 ? Math.round(imported.get() / seconds) : 0;
+        }
+
+        return ProductImportStatusDTO.builder()
+                .jobId(id)
+                .format(format.name())
+                .status(status.name())
+                .bytes(bytes)
+                .processedRows(processed.get())
+                .importedRows(imported.get())
+                .rejectedRows(rejected.get())
+                .rowsPerSecond(rowsPerSecond)
+                .submittedAt(submittedAt)
+                .startedAt(startedAt)
+                .finishedAt(finishedAt)
+                .message(message)
+                .errors(errorsSnapshot)
+                .build();
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.radnom.service.importer;
+
+import com.example.radnom.entity.Product;
+import com.example.radnom.entity.dto.ProductImportStatusDTO;
+import com.example.radnom.service.catalog.ProductEntityListener;
+import com.example.radnom.service.catalog.ProductIndexer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Import hurtowy produktów z CSV / NDJSON.
+// Treść żądania trafia najpierw do pliku tymczasowego (żądanie HTTP kończy się od razu z ID zadania),
+// potem jeden wątek w tle czyta plik strumieniowo i zapisuje paczkami - każda paczka to osobna
+// transakcja: persist -> flush (batche JDBC po app.jpa.batch-size) -> commit -> clear.
+// Zdarzenia per produkt są wyłączone, indeksy przebudowuje się raz na końcu (ProductIndexer czyta
+// katalog kursorem i odtwarza zmiany, które inni zapisali w trakcie przebudowy).
+@Slf4j
+@Service
+public class ProductImportService {
+
+    // Tyle zakończonych zadań pamiętamy dla endpointu statusu
+    private static final int MAX_TRACKED_JOBS = 20;
+
+    // Jak kolumna description w Product - dłuższy opis wywróciłby całą paczkę
+    private static final int MAX_DESCRIPTION_LENGTH = 1000;
+
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final ProductIndexer productIndexer;
+    private final TransactionTemplate chunkTransaction;
+    private final int chunkSize;
+
+    // Importy jeden po drugim - dwa równoległe tylko walczyłyby o te same blokady
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "product-import");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<String, ProductImportJob> jobs = Collections.synchronizedMap(
+            new LinkedHashMap<>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, ProductImportJob> eldest) {
+                    return size() > MAX_TRACKED_JOBS;
+                }
+            });
+
+    public ProductImportService(EntityManager entityManager,
+                                ObjectMapper objectMapper,
+                                ProductIndexer productIndexer,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${app.import.chunk-size:5000}") int chunkSize) {
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.productIndexer = productIndexer;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    // ========== API ==========
+
+    // ✅ Zapisuje treść do pliku tymczasowego i kolejkuje import
+    public ProductImportStatusDTO submit(InputStream body, ProductImportFormat format) throws IOException {
+        Path file = Files.createTempFile("product-import-", "." + format.name().toLowerCase(Locale.ROOT));
+        long bytes;
+        try {
+            bytes = Files.copy(body, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        if (bytes == 0) {
+            Files.deleteIfExists(file);
+            throw new IllegalArgumentException("Import file is empty");
+        }
+
+        ProductImportJob job = new ProductImportJob(format, file, bytes);
+        jobs.put(job.id(), job);
+        executor.execute(() -> run(job));
+
+        log.info("Queued product import {} ({}, {} bytes)", job.id(), format, bytes);
+        return job.toDTO();
+    }
+
+    // ✅ Postęp zadania
+    public Optional<ProductImportStatusDTO> getStatus(String jobId) {
+        ProductImportJob job = jobs.get(jobId);
+        return Optional.ofNullable(job).map(ProductImportJob::toDTO);
+    }
+
+    // ✅ Ostatnie zadania, od najnowszego
+    public List<ProductImportStatusDTO> getRecentJobs() {
+        List<ProductImportStatusDTO> result = new ArrayList<>();
+        synchronized (jobs) {
+            for (ProductImportJob job : jobs.values()) {
+                result.add(job.toDTO());
+            }
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // ========== JOB ==========
+
+    private void run(ProductImportJob job) {
+        job.start();
+        try (BufferedReader input = Files.newBufferedReader(job.file(), StandardCharsets.UTF_8);
+             ProductRecordReader reader = job.format().open(input, objectMapper)) {
+
+            ProductEntityListener.withoutEvents(() -> {
+                importRows(reader, job);
+                return null;
+            });
+            job.finish(ProductImportJob.Status.COMPLETED, null);
+
+        } catch (IllegalArgumentException | IOException | UncheckedIOException e) {
+            job.finish(ProductImportJob.Status.FAILED, e.getMessage());
+        } catch (RuntimeException e) {
+            // Np. błąd bazy - paczki zatwierdzone wcześniej zostają w katalogu
+            log.error("Product import {} failed: {}", job.id(), e.getMessage(), e);
+            job.finish(ProductImportJob.Status.FAILED, e.getMessage());
+        } finally {
+            deleteQuietly(job.file());
+            if (job.importedRows() > 0) {
+                productIndexer.rebuildAll();
+            }
+        }
+
+        ProductImportStatusDTO result = job.toDTO();
+        log.info("Product import {} {}: {} imported, {} rejected, {} rows/s",
+                job.id(), result.getStatus(), result.getImportedRows(),
+                result.getRejectedRows(), result.getRowsPerSecond());
+    }
+
+    private void importRows(ProductRecordReader reader, ProductImportJob job) {
+        List<Product> chunk = new ArrayList<>(chunkSize);
+        while (true) {
+            Product product;
+            try {
+                product = reader.next();
+            } catch (IllegalArgumentException e) {
+                job.rejected(reader.lineNumber(), e.getMessage());
+                continue;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (product == null) {
+                break;
+            }
+
+            String problem = validate(product);
+            if (problem != null) {
+                job.rejected(reader.lineNumber(), problem);
+                continue;
+            }
+
+            job.accepted();
+            chunk.add(product);
+            if (chunk.size() >= chunkSize) {
+                writeChunk(chunk, job);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            writeChunk(chunk, job);
+        }
+    }
+
+    private void writeChunk(List<Product> chunk, ProductImportJob job) {
+        chunkTransaction.executeWithoutResult(status -> {
+            for (Product product : chunk) {
+                entityManager.persist(product);
+            }
+            entityManager.flush();
+            // Persistence context nie rośnie z liczbą zaimportowanych wierszy
+            entityManager.clear();
+        });
+        job.committed(chunk.size());
+        chunk.clear();
+    }
+
+    // null = wiersz poprawny
+    private static String validate(Product product) {
+        if (product.getProductName() == null || product.getProductName().isBlank()) {
+            return "product_name is required";
+        }
+        if (product.getPrice() == null || product.getPrice() < 0) {
+            return "price must be >= 0";
+        }
+        if (product.getDescription() != null && product.getDescription().length() > MAX_DESCRIPTION_LENGTH) {
+            return "description longer than " + MAX_DESCRIPTION_LENGTH + " characters";
+        }
+        if (product.getStock() != null && product.getStock() < 0) {
+            return "stock must be >= 0";
+        }
+        return null;
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete import file {}: {}", file, e.getMessage());
+        }
+    }
+}
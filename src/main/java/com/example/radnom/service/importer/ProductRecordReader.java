@@ -0,0 +1,17 @@
+package com.example.radnom.service.importer;
+
+import com.example.radnom.entity.Product;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+// Strumieniowy odczyt produktów z pliku importu - jeden wiersz naraz, bez wczytywania całości
+public interface ProductRecordReader extends Closeable {
+
+    // Następny produkt albo null na końcu pliku. Błędny wiersz -> IllegalArgumentException,
+    // ale jest już zużyty - kolejne wywołanie czyta dalej
+    Product next() throws IOException;
+
+    // Numer linii ostatnio odczytanego wiersza (do komunikatów o błędach)
+    long lineNumber();
+}
@@ -0,0 +1,423 @@
+package com.example.radnom.service.search;
+
+import com.example.radnom.entity.Product;
+import com.example.radnom.entity.dto.QuickSearchResultDTO;
+import com.example.radnom.service.catalog.PopularityTracker;
+import com.example.radnom.service.catalog.ProductIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Drzewo prefiksowe (trie) dla /api/products/search/quick.
+// Klucze: znormalizowana nazwa produktu, każdy jej sufiks od początku słowa ("laptop gamingowy",
+// "gamingowy") oraz kategoria. Każdy węzeł trzyma gotową listę kandydatów, więc zapytanie
+// to przejście po prefiksie + odczyt tablicy, bez ładowania encji.
+//
+// Kolejność jak w /api/products/popular: najpierw bieżąca popularność z PopularityTracker,
+// potem liczba opinii (ten sam fallback co getPopularProducts przy zimnym starcie).
+// Popularność zmienia się z każdym zdarzeniem, więc nie może sortować list w węzłach -
+// węzeł trzyma CANDIDATES najlepszych wg liczby opinii (zmienia się tylko przy zapisie
+// produktu), a zapytanie przestawia je wg popularności i bierze pierwsze MAX_SUGGESTIONS.
+@Slf4j
+@Component
+public class AutocompleteIndex implements ProductIndex {
+
+    public static final int MAX_SUGGESTIONS = 10;
+    private static final int CANDIDATES = MAX_SUGGESTIONS * 3;
+    private static final int MAX_KEY_LENGTH = 48;
+
+    private final PopularityTracker popularityTracker;
+
+    // Podmieniane w całości po przebudowie - pod blokadą zapisu
+    private Node root = new Node();
+    private Map<Integer, Suggestion> suggestions = new HashMap<>();
+    private Map<Integer, List<String>> productKeys = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean ready = false;
+
+    public AutocompleteIndex(PopularityTracker popularityTracker) {
+        this.popularityTracker = popularityTracker;
+    }
+
+    // ========== QUERY ==========
+
+    public List<QuickSearchResultDTO> complete(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            key = key.substring(0, MAX_KEY_LENGTH);
+        }
+
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.child(key.charAt(i));
+            }
+            if (node == null) {
+                return List.of();
+            }
+
+            int[] candidates = byPopularity(node.top);
+            int count = Math.min(Math.min(limit, MAX_SUGGESTIONS), candidates.length);
+            List<QuickSearchResultDTO> results = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                results.add(suggestions.get(candidates[i]).toDTO());
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // ========== ProductIndex ==========
+
+    // Nowe drzewo budowane obok (osobna instancja, bez blokady), pod blokadą tylko podmiana
+    @Override
+    public Rebuild beginRebuild() {
+        AutocompleteIndex next = new AutocompleteIndex(popularityTracker);
+        return new Rebuild() {
+            @Override
+            public void add(Product product) {
+                next.addProduct(product);
+            }
+
+            @Override
+            public void finish() {
+                lock.writeLock().lock();
+                try {
+                    root = next.root;
+                    suggestions = next.suggestions;
+                    productKeys = next.productKeys;
+                    ready = true;
+                    log.info("Autocomplete trie built for {} products", suggestions.size());
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        };
+    }
+
+    @Override
+    public void onProductSaved(Product product) {
+        lock.writeLock().lock();
+        try {
+            removeProduct(product.getId());
+            addProduct(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onProductRemoved(Integer productId) {
+        lock.writeLock().lock();
+        try {
+            removeProduct(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ========== PRIVATE - INDEXING ==========
+
+    private void addProduct(Product product) {
+        if (product.getId() == null || product.getProductName() == null) {
+            return;
+        }
+
+        int id = product.getId();
+        suggestions.put(id, Suggestion.of(product));
+
+        List<String> keys = keysFor(product);
+        productKeys.put(id, keys);
+        for (String key : keys) {
+            insert(key, id);
+        }
+    }
+
+    private void removeProduct(Integer productId) {
+        List<String> keys = productKeys.remove(productId);
+        if (keys != null) {
+            for (String key : keys) {
+                delete(key, productId);
+            }
+        }
+        suggestions.remove(productId);
+    }
+
+    private List<String> keysFor(Product product) {
+        Set<String> keys = new LinkedHashSet<>();
+
+        List<String> words = SearchTokenizer.tokenize(product.getProductName());
+        words.replaceAll(TextAnalyzer::fold);
+        for (int i = 0; i < words.size(); i++) {
+            keys.add(truncate(String.join(" ", words.subList(i, words.size()))));
+        }
+
+        String category = normalize(product.getCategory());
+        if (!category.isEmpty()) {
+            keys.add(truncate(category));
+        }
+        return new ArrayList<>(keys);
+    }
+
+    private void insert(String key, int id) {
+        Node[] path = new Node[key.length() + 1];
+        Node node = root;
+        path[0] = node;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.childOrCreate(key.charAt(i));
+            path[i + 1] = node;
+        }
+
+        node.addTerminal(id);
+
+        // Nowy ID może wejść do top-K każdego węzła na ścieżce - wystarczy wstawić, O(K) na węzeł
+        for (int i = path.length - 1; i >= 0; i--) {
+            if (!path[i].offerTop(id, suggestions)) {
+                break;
+            }
+        }
+    }
+
+    private void delete(String key, int id) {
+        Node[] path = new Node[key.length() + 1];
+        Node node = root;
+        path[0] = node;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.child(key.charAt(i));
+            if (node == null) {
+                return;
+            }
+            path[i + 1] = node;
+        }
+
+        node.removeTerminal(id);
+
+        // Od liścia do korzenia: przelicz top-K tam gdzie był usunięty ID, usuń puste węzły
+        for (int i = path.length - 1; i >= 0; i--) {
+            Node current = path[i];
+            if (i > 0 && current.isEmpty()) {
+                path[i - 1].removeChild(key.charAt(i - 1));
+                continue;
+            }
+            if (!current.recomputeTopIfContains(id, suggestions)) {
+                break;
+            }
+        }
+    }
+
+    // ========== PRIVATE - HELPERS ==========
+
+    // Kandydaci są już po liczbie opinii - sortowanie stabilne zachowuje ją przy równej popularności
+    private int[] byPopularity(int[] candidates) {
+        double[] scores = popularityTracker.scores(candidates);
+        Integer[] order = new Integer[candidates.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(scores[b], scores[a]));
+
+        int[] sorted = new int[candidates.length];
+        for (int i = 0; i < order.length; i++) {
+            sorted[i] = candidates[order[i]];
+        }
+        return sorted;
+    }
+
+    // Bez polskich znaków - "sluch" podpowiada "Słuchawki" (bez stemmingu, to wciąż prefiks)
+    static String normalize(String text) {
+        List<String> tokens = SearchTokenizer.tokenize(text);
+        tokens.replaceAll(TextAnalyzer::fold);
+        return String.join(" ", tokens);
+    }
+
+    private static String truncate(String key) {
+        return key.length() > MAX_KEY_LENGTH ? key.substring(0, MAX_KEY_LENGTH) : key;
+    }
+
+    // Kolejność kandydatów w węźle: liczba opinii malejąco, potem ID rosnąco (stabilny wynik)
+    private static int compare(int a, int b, Map<Integer, Suggestion> suggestions) {
+        int byReviews = Integer.compare(suggestions.get(b).reviews(), suggestions.get(a).reviews());
+        return byReviews != 0 ? byReviews : Integer.compare(a, b);
+    }
+
+    // ========== INNER CLASSES ==========
+
+    private record Suggestion(Integer id, String name, Integer price, String imageUrl,
+                              String category, int reviews) {
+
+        static Suggestion of(Product product) {
+            return new Suggestion(
+                    product.getId(),
+                    product.getProductName(),
+                    product.getPrice(),
+                    product.getImageUrl() != null ? product.getImageUrl() : "",
+                    product.getCategory() != null ? product.getCategory() : "",
+                    product.getReviewCount() != null ? product.getReviewCount() : 0);
+        }
+
+        QuickSearchResultDTO toDTO() {
+            return QuickSearchResultDTO.builder()
+                    .id(id)
+                    .name(name)
+                    .price(price)
+                    .imageUrl(imageUrl)
+                    .category(category)
+                    .build();
+        }
+    }
+
+    private static final class Node {
+
+        private static final char[] NO_KEYS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+        private static final int[] NO_IDS = new int[0];
+
+        // Dzieci jako posortowane tablice - dużo mniej pamięci niż HashMap na każdy węzeł
+        char[] keys = NO_KEYS;
+        Node[] children = NO_CHILDREN;
+        // ID produktów, których klucz kończy się dokładnie w tym węźle - większość węzłów nie ma
+        // żadnego (wspólna pusta tablica), reszta zwykle jeden-dwa
+        int[] terminals = NO_IDS;
+        // Najlepsi kandydaci (CANDIDATES) całego poddrzewa, posortowani wg compare()
+        int[] top = NO_IDS;
+
+        Node child(char c) {
+            int pos = Arrays.binarySearch(keys, c);
+            return pos >= 0 ? children[pos] : null;
+        }
+
+        Node childOrCreate(char c) {
+            int pos = Arrays.binarySearch(keys, c);
+            if (pos >= 0) {
+                return children[pos];
+            }
+
+            int insertAt = -pos - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            System.arraycopy(keys, insertAt, newKeys, insertAt + 1, keys.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+
+            Node child = new Node();
+            newKeys[insertAt] = c;
+            newChildren[insertAt] = child;
+            keys = newKeys;
+            children = newChildren;
+            return child;
+        }
+
+        void removeChild(char c) {
+            int pos = Arrays.binarySearch(keys, c);
+            if (pos < 0) {
+                return;
+            }
+
+            char[] newKeys = new char[keys.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(keys, 0, newKeys, 0, pos);
+            System.arraycopy(children, 0, newChildren, 0, pos);
+            System.arraycopy(keys, pos + 1, newKeys, pos, keys.length - pos - 1);
+            System.arraycopy(children, pos + 1, newChildren, pos, children.length - pos - 1);
+            keys = newKeys;
+            children = newChildren;
+        }
+
+        void addTerminal(int id) {
+            for (int existing : terminals) {
+                if (existing == id) {
+                    return;
+                }
+            }
+            int[] newTerminals = Arrays.copyOf(terminals, terminals.length + 1);
+            newTerminals[terminals.length] = id;
+            terminals = newTerminals;
+        }
+
+        void removeTerminal(int id) {
+            for (int i = 0; i < terminals.length; i++) {
+                if (terminals[i] == id) {
+                    int[] newTerminals = terminals.length == 1 ? NO_IDS : new int[terminals.length - 1];
+                    System.arraycopy(terminals, 0, newTerminals, 0, i);
+                    System.arraycopy(terminals, i + 1, newTerminals, i, terminals.length - i - 1);
+                    terminals = newTerminals;
+                    return;
+                }
+            }
+        }
+
+        boolean isEmpty() {
+            return keys.length == 0 && terminals.length == 0;
+        }
+
+        // Zwraca true jeśli top-K się zmieniło (wtedy rodzic też może się zmienić)
+        boolean offerTop(int id, Map<Integer, Suggestion> suggestions) {
+            for (int existing : top) {
+                if (existing == id) {
+                    return false;
+                }
+            }
+
+            int pos = 0;
+            while (pos < top.length && compare(top[pos], id, suggestions) < 0) {
+                pos++;
+            }
+            if (pos >= CANDIDATES) {
+                return false;
+            }
+
+            int newLength = Math.min(top.length + 1, CANDIDATES);
+            int[] newTop = new int[newLength];
+            System.arraycopy(top, 0, newTop, 0, pos);
+            newTop[pos] = id;
+            System.arraycopy(top, pos, newTop, pos + 1, newLength - pos - 1);
+            top = newTop;
+            return true;
+        }
+
+        // Przelicza top-K z terminali i top-K dzieci (te są już poprawne)
+        boolean recomputeTopIfContains(int id, Map<Integer, Suggestion> suggestions) {
+            boolean contains = false;
+            for (int existing : top) {
+                if (existing == id) {
+                    contains = true;
+                    break;
+                }
+            }
+            if (!contains) {
+                return false;
+            }
+
+            Set<Integer> candidates = new HashSet<>();
+            for (int terminal : terminals) {
+                candidates.add(terminal);
+            }
+            for (Node child : children) {
+                for (int childId : child.top) {
+                    candidates.add(childId);
+                }
+            }
+
+            top = candidates.stream()
+                    .filter(suggestions::containsKey)
+                    .sorted((a, b) -> compare(a, b, suggestions))
+                    .limit(CANDIDATES)
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            return true;
+        }
+    }
+}
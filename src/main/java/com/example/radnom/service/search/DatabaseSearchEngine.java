@@ -0,0 +1,27 @@
+package com.example.radnom.service.search;
+
+import com.example.radnom.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Stare zachowanie (LIKE '%q%' w MySQL) - do porównań albo gdy indeks w pamięci jest wyłączony
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.search.engine", havingValue = "database")
+public class DatabaseSearchEngine implements ProductSearchEngine {
+
+    private final ProductRepository productRepository;
+
+    @Override
+    public List<Integer> search(String query) {
+        return productRepository.searchIdsByNameOrDescription(query.trim().toLowerCase());
+    }
+
+    @Override
+    public boolean isReady() {
+        return true;
+    }
+}
@@ -0,0 +1,473 @@
+package com.example.radnom.service.search;
+
+import com.example.radnom.entity.Product;
+import com.example.radnom.service.catalog.PostingList;
+import com.example.radnom.service.catalog.ProductIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Indeks odwrócony termin -> posortowana lista ID produktów z częstością terminu w każdym polu.
+// Indeksowane pola: productName, description, category, brand. Terminy i zapytania przechodzą
+// przez TextAnalyzer (bez polskich znaków, rdzeń słowa, bez stopwords).
+//
+// search(): wszystkie tokeny muszą wystąpić (AND), ostatni token dopasowany prefiksowo
+// (użytkownik wciąż pisze w SearchBar). W trybie z literówkami token pasuje też do terminów
+// ze słownika w małej odległości edycyjnej (TrigramIndex). Wynik - zbiór ID do filtrowania.
+//
+// searchRanked(): ranking BM25F (wagi pól w SearchField), tokeny połączone OR - produkty
+// z większą liczbą trafionych słów są po prostu wyżej. Ocena dokument po dokumencie algorytmem
+// MaxScore: terminy, których suma górnych ograniczeń nie przebije progu kopca top-K, nie
+// generują kandydatów, a liczenie wyniku kandydata kończy się, gdy nie ma szans wejść do top-K.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.search.engine", havingValue = "inverted-index", matchIfMissing = true)
+public class InvertedIndexSearchEngine implements ProductSearchEngine, ProductIndex {
+
+    // Parametry BM25
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Rozwinięcia tokenu mają mniejszą wagę niż dokładny termin
+    private static final double PREFIX_WEIGHT = 0.7;
+    private static final double FUZZY_WEIGHT = 0.5;
+    private static final int MAX_PREFIX_EXPANSIONS = 32;
+
+    private static final SearchField[] FIELDS = SearchField.values();
+    private static final int NO_MORE_DOCS = Integer.MAX_VALUE;
+
+    private final TextAnalyzer analyzer;
+
+    // Podmieniane w całości po przebudowie - pod blokadą zapisu
+    private NavigableMap<String, TermPostings> dictionary = new TreeMap<>();
+    private Map<Integer, IndexedDocument> documents = new HashMap<>();
+    private long[] totalFieldLengths = new long[FIELDS.length];
+    private TrigramIndex trigrams = new TrigramIndex();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean ready = false;
+
+    // ========== SEARCH ==========
+
+    @Override
+    public List<Integer> search(String query) {
+        return search(query, false);
+    }
+
+    @Override
+    public List<Integer> searchFuzzy(String query) {
+        return search(query, true);
+    }
+
+    @Override
+    public List<Integer> searchRanked(String query, int limit, boolean fuzzy) {
+        List<String> tokens = analyzer.analyzeQuery(query);
+        if (tokens.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            List<TermCursor> cursors = new ArrayList<>();
+            expandQuery(tokens, fuzzy).forEach((term, weight) -> {
+                TermPostings postings = dictionary.get(term);
+                cursors.add(new TermCursor(postings, weight * idf(postings.size())));
+            });
+            return maxScoreTopK(cursors, limit, averageFieldLengths());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Dopuszczalna liczba literówek zależy od długości tokenu
+    static int allowedEdits(String token) {
+        if (token.length() < 4) {
+            return 0;
+        }
+        return token.length() < 8 ? 1 : 2;
+    }
+
+    private List<Integer> search(String query, boolean fuzzy) {
+        // Rdzeń jest prefiksem pełnego słowa, więc prefiks ostatniego terminu obejmuje też odmiany
+        List<String> tokens = analyzer.analyzeQuery(query);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            int[] result = null;
+            for (int i = 0; i < tokens.size(); i++) {
+                boolean prefix = i == tokens.size() - 1;
+                int[] matches = union(postingsFor(tokens.get(i), prefix, fuzzy));
+
+                result = result == null ? matches : PostingList.intersect(result, matches);
+                if (result.length == 0) {
+                    return List.of();
+                }
+            }
+            return toList(result);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ========== ProductIndex ==========
+
+    // Analiza tekstu i listy wystąpień w osobnej instancji, bez blokady - wyszukiwanie działa
+    // na dotychczasowym indeksie, pod blokadą tylko podmiana struktur
+    @Override
+    public Rebuild beginRebuild() {
+        InvertedIndexSearchEngine next = new InvertedIndexSearchEngine(analyzer);
+        return new Rebuild() {
+            @Override
+            public void add(Product product) {
+                next.addDocument(product);
+            }
+
+            @Override
+            public void finish() {
+                lock.writeLock().lock();
+                try {
+                    dictionary = next.dictionary;
+                    documents = next.documents;
+                    totalFieldLengths = next.totalFieldLengths;
+                    trigrams = next.trigrams;
+                    ready = true;
+                    log.info("Search index built: {} products, {} terms ({} for fuzzy matching)",
+                            documents.size(), dictionary.size(), trigrams.size());
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        };
+    }
+
+    @Override
+    public void onProductSaved(Product product) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(product.getId());
+            addDocument(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onProductRemoved(Integer productId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ========== PRIVATE - INDEXING ==========
+
+    private void addDocument(Product product) {
+        if (product.getId() == null) {
+            return;
+        }
+
+        Map<String, Integer> frequencies = new HashMap<>();
+        int[] fieldLengths = new int[FIELDS.length];
+        addField(frequencies, fieldLengths, SearchField.NAME, product.getProductName());
+        addField(frequencies, fieldLengths, SearchField.CATEGORY, product.getCategory());
+        addField(frequencies, fieldLengths, SearchField.BRAND, product.getBrand());
+        addField(frequencies, fieldLengths, SearchField.DESCRIPTION, product.getDescription());
+
+        // Dokument trzyma klucze słownika (jeden String na termin w całym indeksie) - termin
+        // znika z pamięci razem z ostatnią listą wystąpień w removeDocument
+        String[] terms = new String[frequencies.size()];
+        int t = 0;
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            Map.Entry<String, TermPostings> existing = dictionary.ceilingEntry(entry.getKey());
+            String term;
+            TermPostings postings;
+            if (existing != null && existing.getKey().equals(entry.getKey())) {
+                term = existing.getKey();
+                postings = existing.getValue();
+            } else {
+                term = entry.getKey();
+                postings = new TermPostings();
+                dictionary.put(term, postings);
+                trigrams.add(term);
+            }
+            postings.put(product.getId(), entry.getValue());
+            terms[t++] = term;
+        }
+
+        for (int f = 0; f < FIELDS.length; f++) {
+            totalFieldLengths[f] += fieldLengths[f];
+        }
+        documents.put(product.getId(), new IndexedDocument(terms, fieldLengths));
+    }
+
+    private void addField(Map<String, Integer> frequencies, int[] fieldLengths, SearchField field, String text) {
+        List<String> terms = analyzer.analyze(text);
+        fieldLengths[field.ordinal()] = terms.size();
+        for (String term : terms) {
+            frequencies.merge(term, field.increment(0), (packed, one) -> field.increment(packed));
+        }
+    }
+
+    private void removeDocument(Integer productId) {
+        IndexedDocument document = documents.remove(productId);
+        if (document == null) {
+            return;
+        }
+
+        for (int f = 0; f < FIELDS.length; f++) {
+            totalFieldLengths[f] -= document.fieldLengths()[f];
+        }
+        for (String term : document.terms()) {
+            TermPostings postings = dictionary.get(term);
+            if (postings != null) {
+                postings.remove(productId);
+                if (postings.isEmpty()) {
+                    dictionary.remove(term);
+                    trigrams.remove(term);
+                }
+            }
+        }
+    }
+
+    // ========== PRIVATE - QUERY ==========
+
+    // Listy do zsumowania dla jednego tokenu: dokładny termin (lub zakres prefiksu)
+    // i ewentualnie terminy podobne
+    private List<TermPostings> postingsFor(String token, boolean prefix, boolean fuzzy) {
+        List<TermPostings> lists = new ArrayList<>();
+        if (prefix) {
+            lists.addAll(dictionary.subMap(token, token + Character.MAX_VALUE).values());
+        } else {
+            TermPostings postings = dictionary.get(token);
+            if (postings != null) {
+                lists.add(postings);
+            }
+        }
+
+        if (fuzzy) {
+            for (String term : trigrams.similarTerms(token, allowedEdits(token))) {
+                lists.add(dictionary.get(term));
+            }
+        }
+        return lists;
+    }
+
+    // Termin -> waga w zapytaniu. Prefiks ostatniego tokenu rozwijany do najczęstszych terminów.
+    private Map<String, Double> expandQuery(List<String> tokens, boolean fuzzy) {
+        Map<String, Double> weights = new LinkedHashMap<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            if (dictionary.containsKey(token)) {
+                weights.merge(token, 1.0, Math::max);
+            }
+
+            if (i == tokens.size() - 1) {
+                dictionary.subMap(token, false, token + Character.MAX_VALUE, false).entrySet().stream()
+                        .sorted(Comparator.comparingInt((Map.Entry<String, TermPostings> e) -> e.getValue().size())
+                                .reversed())
+                        .limit(MAX_PREFIX_EXPANSIONS)
+                        .forEach(e -> weights.merge(e.getKey(), PREFIX_WEIGHT, Math::max));
+            }
+
+            if (fuzzy) {
+                for (String term : trigrams.similarTerms(token, allowedEdits(token))) {
+                    weights.merge(term, FUZZY_WEIGHT, Math::max);
+                }
+            }
+        }
+        return weights;
+    }
+
+    // ========== PRIVATE - RANKING ==========
+
+    private double idf(int documentFrequency) {
+        int n = documents.size();
+        return Math.log(1 + (n - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+
+    private double[] averageFieldLengths() {
+        double[] averages = new double[FIELDS.length];
+        int n = Math.max(1, documents.size());
+        for (int f = 0; f < FIELDS.length; f++) {
+            averages[f] = Math.max(1.0, (double) totalFieldLengths[f] / n);
+        }
+        return averages;
+    }
+
+    // BM25F: częstości z pól ważone i znormalizowane długością pola, potem jedno nasycenie K1
+    private double score(TermCursor cursor, double[] averageLengths) {
+        int packed = cursor.postings.frequenciesAt(cursor.position);
+        int[] lengths = documents.get(cursor.doc()).fieldLengths();
+
+        double tf = 0;
+        for (SearchField field : FIELDS) {
+            int frequency = field.frequency(packed);
+            if (frequency > 0) {
+                int f = field.ordinal();
+                double norm = 1 - B + B * lengths[f] / averageLengths[f];
+                tf += field.getBoost() * frequency / norm;
+            }
+        }
+        return cursor.weight * tf * (K1 + 1) / (K1 + tf);
+    }
+
+    // MaxScore: kursory posortowane rosnąco po górnym ograniczeniu wyniku. Prefiks kursorów,
+    // których suma ograniczeń nie przekracza progu (najsłabszy wynik w pełnym kopcu), jest
+    // "nieistotny" - dokument tylko z tych terminów nie wejdzie do top-K, więc kandydatów
+    // wyznaczają wyłącznie pozostałe kursory.
+    private List<Integer> maxScoreTopK(List<TermCursor> cursors, int k, double[] averageLengths) {
+        if (cursors.isEmpty()) {
+            return List.of();
+        }
+        cursors.sort(Comparator.comparingDouble(c -> c.upperBound));
+
+        int n = cursors.size();
+        double[] boundPrefix = new double[n];
+        for (int i = 0; i < n; i++) {
+            boundPrefix[i] = cursors.get(i).upperBound + (i > 0 ? boundPrefix[i - 1] : 0);
+        }
+
+        // Kopiec min: na szczycie najsłabszy wynik (remis - wyższe ID wypada pierwsze)
+        PriorityQueue<ScoredDoc> heap = new PriorityQueue<>(
+                Comparator.comparingDouble(ScoredDoc::score).thenComparing(ScoredDoc::doc, Comparator.reverseOrder()));
+        double threshold = -1;
+        int firstEssential = 0;
+
+        while (firstEssential < n) {
+            int doc = NO_MORE_DOCS;
+            for (int i = firstEssential; i < n; i++) {
+                doc = Math.min(doc, cursors.get(i).doc());
+            }
+            if (doc == NO_MORE_DOCS) {
+                break;
+            }
+
+            double score = 0;
+            for (int i = firstEssential; i < n; i++) {
+                TermCursor cursor = cursors.get(i);
+                if (cursor.doc() == doc) {
+                    score += score(cursor, averageLengths);
+                    cursor.next();
+                }
+            }
+            for (int i = firstEssential - 1; i >= 0; i--) {
+                if (score + boundPrefix[i] <= threshold) {
+                    break;
+                }
+                TermCursor cursor = cursors.get(i);
+                cursor.advance(doc);
+                if (cursor.doc() == doc) {
+                    score += score(cursor, averageLengths);
+                }
+            }
+
+            if (heap.size() < k) {
+                heap.add(new ScoredDoc(doc, score));
+            } else if (score > threshold) {
+                heap.poll();
+                heap.add(new ScoredDoc(doc, score));
+            } else {
+                continue;
+            }
+            if (heap.size() == k) {
+                threshold = heap.peek().score();
+                while (firstEssential < n && boundPrefix[firstEssential] <= threshold) {
+                    firstEssential++;
+                }
+            }
+        }
+
+        List<ScoredDoc> ranked = new ArrayList<>(heap);
+        ranked.sort(Comparator.comparingDouble(ScoredDoc::score).reversed().thenComparingInt(ScoredDoc::doc));
+        List<Integer> ids = new ArrayList<>(ranked.size());
+        for (ScoredDoc scored : ranked) {
+            ids.add(scored.doc());
+        }
+        return ids;
+    }
+
+    // ========== PRIVATE - HELPERS ==========
+
+    private static int[] union(List<TermPostings> lists) {
+        if (lists.size() == 1) {
+            return lists.get(0).toArray();
+        }
+
+        int total = 0;
+        for (TermPostings list : lists) {
+            total += list.size();
+        }
+        int[] merged = new int[total];
+        int offset = 0;
+        for (TermPostings list : lists) {
+            for (int i = 0; i < list.size(); i++) {
+                merged[offset++] = list.docAt(i);
+            }
+        }
+
+        Arrays.sort(merged);
+        int k = 0;
+        for (int i = 0; i < merged.length; i++) {
+            if (k == 0 || merged[k - 1] != merged[i]) {
+                merged[k++] = merged[i];
+            }
+        }
+        return Arrays.copyOf(merged, k);
+    }
+
+    private static List<Integer> toList(int[] ids) {
+        List<Integer> list = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            list.add(id);
+        }
+        return list;
+    }
+
+    private record IndexedDocument(String[] terms, int[] fieldLengths) {
+    }
+
+    private record ScoredDoc(int doc, double score) {
+    }
+
+    // Pozycja w liście wystąpień jednego terminu zapytania
+    private static final class TermCursor {
+        private final TermPostings postings;
+        private final double weight;
+        // tf / (K1 + tf) < 1, więc wynik terminu nie przekroczy weight * (K1 + 1)
+        private final double upperBound;
+        private int position;
+
+        private TermCursor(TermPostings postings, double weight) {
+            this.postings = postings;
+            this.weight = weight;
+            this.upperBound = weight * (K1 + 1);
+        }
+
+        private int doc() {
+            return position < postings.size() ? postings.docAt(position) : NO_MORE_DOCS;
+        }
+
+        private void next() {
+            position++;
+        }
+
+        private void advance(int target) {
+            position = postings.seek(position, target);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.radnom.service.search;
+
+import java.util.List;
+
+// Wymienny silnik wyszukiwania produktów - zwraca same ID, encje ładuje ProductService.
+// Wybór implementacji: app.search.engine = inverted-index (domyślnie) | database
+public interface ProductSearchEngine {
+
+    List<Integer> search(String query);
+
+    // Wyszukiwanie odporne na literówki - silniki bez tej możliwości szukają zwyczajnie
+    default List<Integer> searchFuzzy(String query) {
+        return search(query);
+    }
+
+    // Najtrafniejsze ID (od najlepszego), najwyżej limit. Domyślnie - pierwsze ze zwykłego wyniku.
+    default List<Integer> searchRanked(String query, int limit, boolean fuzzy) {
+        List<Integer> ids = fuzzy ? searchFuzzy(query) : search(query);
+        return ids.size() > limit ? ids.subList(0, limit) : ids;
+    }
+
+    boolean isReady();
+}
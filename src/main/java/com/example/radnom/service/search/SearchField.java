@@ -0,0 +1,32 @@
+package com.example.radnom.service.search;
+
+// Pola produktu w indeksie wyszukiwarki z wagą do BM25F - trafienie w nazwie znaczy
+// więcej niż w opisie. Częstości terminu w polach są pakowane po 8 bitów w jeden int.
+public enum SearchField {
+    NAME(3.0),
+    CATEGORY(1.5),
+    BRAND(1.5),
+    DESCRIPTION(1.0);
+
+    private static final int BITS = 8;
+    private static final int MAX_FREQUENCY = (1 << BITS) - 1;
+
+    private final double boost;
+
+    SearchField(double boost) {
+        this.boost = boost;
+    }
+
+    public double getBoost() {
+        return boost;
+    }
+
+    public int frequency(int packed) {
+        return (packed >>> (ordinal() * BITS)) & MAX_FREQUENCY;
+    }
+
+    // Dodaje jedno wystąpienie (licznik nasyca się na 255)
+    public int increment(int packed) {
+        return frequency(packed) == MAX_FREQUENCY ? packed : packed + (1 << (ordinal() * BITS));
+    }
+}
@@ -0,0 +1,438 @@
+package com.example.radnom.service.search;
+
+import com.example.radnom.entity.Product;
+import com.example.radnom.entity.dto.CacheStatsDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+// Cache wyników wyszukiwania: klucz to znormalizowane zapytanie (terminy po TextAnalyzer albo
+// tekst LIKE) + filtry, wartość to sama lista ID w kolejności wyników (int[], nie encje).
+// Caffeine z limitem wagi = łączna liczba trzymanych ID (z kosztem indeksu po produkcie),
+// eliminacja W-TinyLFU jak w ProductCache.
+//
+// Unieważnianie po zmianie produktu (ProductIndexer, po aktualizacji indeksów) jest precyzyjne -
+// wypada tylko wpis, którego wynik mógł się zmienić:
+//  - produkt jest na liście wpisu (mógł wypaść albo zmienić pozycję), albo
+//  - produkt w nowym stanie pasuje do zapytania i filtrów wpisu (mógł dojść).
+// Kandydatów nie szukamy skanem wszystkich wpisów - wpisy są w dwóch indeksach odwrotnych:
+//  - po ID produktu z listy (pierwszy warunek),
+//  - po "wyzwalaczach" zapytania (drugi warunek): termin ("t:", produkt szuka po prefiksach
+//    swoich terminów), usunięcia do 2 znaków z terminu fuzzy ("f:", jak SymSpell - terminy
+//    w odległości <= 2 mają wspólny wariant), pierwszy trigram tekstu LIKE ("s:") albo kategoria
+//    filtra ("c:"), gdy tekstu nie da się tak opisać.
+// Wpisy bez wyzwalacza (puste zapytanie bez kategorii, LIKE krótszy niż 3 znaki) sprawdzamy
+// przy każdej zmianie - i tak pasuje do nich prawie każdy produkt.
+// Ranking BM25 zależy też od statystyk całego katalogu (idf, średnie długości pól) - ich drobny
+// dryf po zmianie niezwiązanego produktu celowo nie unieważnia wpisów.
+@Slf4j
+@Component
+public class SearchResultCache {
+
+    // Większych wyników nie cache'ujemy ("a" pasuje do wszystkiego) - zajęłyby cały limit
+    private static final int MAX_CACHED_IDS = 10_000;
+    // Klucz, wpis i węzeł Caffeine to ~100-150 B - liczone jako tyle "ID" wagi
+    private static final int ENTRY_OVERHEAD = 32;
+    // ID w indeksie po produkcie (węzeł zbioru) to ~40 B - tyle "ID" wagi na każde ID wpisu
+    private static final int PRODUCT_INDEX_WEIGHT = 10;
+    private static final int TRIGRAM = 3;
+    // Powyżej tylu ID przynależność sprawdzamy w posortowanej kopii, poniżej liniowo
+    private static final int LINEAR_SCAN_LIMIT = 64;
+    // Najwięcej edycji, jakie dopuszcza wyszukiwanie z literówkami (allowedEdits w silniku)
+    private static final int MAX_FUZZY_EDITS = 2;
+    private static final int MIN_FUZZY_LENGTH = 4;
+
+    private final TextAnalyzer analyzer;
+    private final Cache<Key, Entry> cache;
+    private final long maximumWeight;
+
+    // Zmienia się przy każdym unieważnieniu - wynik policzony przed zmianą nie trafi do cache po niej
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    // Indeksy odwrotne wpisów (opis na górze); zbiory zmieniane tylko w compute() na ich kluczu.
+    // Wpis wypisuje się z nich w removalListener, gdy wypada z cache z dowolnego powodu
+    private final ConcurrentHashMap<Integer, Set<Entry>> entriesByProduct = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<Entry>> entriesByTrigger = new ConcurrentHashMap<>();
+    private final Set<Entry> unkeyedEntries = ConcurrentHashMap.newKeySet();
+
+    public SearchResultCache(TextAnalyzer analyzer,
+                             @Value("${app.cache.search.maximum-ids:2000000}") long maximumWeight) {
+        this.analyzer = analyzer;
+        this.maximumWeight = maximumWeight;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maximumWeight)
+                .weigher((Key key, Entry entry) -> entry.weight())
+                .removalListener((Key key, Entry entry, RemovalCause cause) -> unregister(entry))
+                .recordStats()
+                .build();
+    }
+
+    // ========== LOOKUPS ==========
+
+    // Zapytanie do wyszukiwarki: kluczem są terminy po analizie ("Laptopów" i "laptop" to ten sam wpis).
+    // Produkt pasuje, gdy ma któryś termin, termin zaczynający się od ostatniego (prefiks)
+    // albo - przy fuzzy - termin w odległości edycyjnej
+    public Lookup analyzed(String kind, String query, boolean fuzzy, String filters, Predicate<Product> filter) {
+        List<String> terms = analyzer.analyzeQuery(query);
+        Key key = new Key(kind, String.join(" ", terms), filters);
+        return new Lookup(key, change -> filter.test(change.product()) && matchesTerms(terms, fuzzy, change),
+                termTriggers(terms, fuzzy));
+    }
+
+    // Zapytanie LIKE '%tekst%' po wskazanych polach
+    @SafeVarargs
+    public final Lookup substring(String kind, String text, String filters, Predicate<Product> filter,
+                                  Function<Product, String>... fields) {
+        String needle = text.trim().toLowerCase();
+        Key key = new Key(kind, needle, filters);
+        return new Lookup(key, change -> filter.test(change.product()) && containsText(change.product(), needle, fields),
+                substringTriggers(needle));
+    }
+
+    // Wyszukiwarka z awaryjnym LIKE (advancedSearch z kryteriami) - wynik może pochodzić z każdej
+    // z dwóch ścieżek, więc produkt pasuje, gdy pasuje do którejkolwiek.
+    // category (może być null) - filtr kategorii wpisu, wyzwalacz gdy tekst go nie daje
+    @SafeVarargs
+    public final Lookup analyzedOrSubstring(String kind, String query, String category, String filters,
+                                            Predicate<Product> filter, Function<Product, String>... fields) {
+        String needle = query == null ? "" : query.trim().toLowerCase();
+        List<String> terms = analyzer.analyzeQuery(needle);
+        Key key = new Key(kind, needle, filters);
+
+        Set<String> triggers = null;
+        Set<String> termTriggers = termTriggers(terms, false);
+        Set<String> substringTriggers = substringTriggers(needle);
+        if (!needle.isEmpty() && termTriggers != null && substringTriggers != null) {
+            triggers = new HashSet<>(termTriggers);
+            triggers.addAll(substringTriggers);
+        } else if (category != null) {
+            triggers = Set.of("c:" + category.toLowerCase());
+        }
+        return new Lookup(key, change -> filter.test(change.product())
+                && (needle.isEmpty() || matchesTerms(terms, false, change)
+                || containsText(change.product(), needle, fields)), triggers);
+    }
+
+    // Wynik z cache (load odtwarza go z listy ID) albo z search - wtedy jego ID trafiają do cache
+    public <T> List<T> get(Lookup lookup, Supplier<List<T>> search,
+                           Function<T, Integer> idOf, Function<List<Integer>, List<T>> load) {
+        Entry cached = cache.getIfPresent(lookup.key());
+        if (cached != null) {
+            return load.apply(toList(cached.ids()));
+        }
+
+        long generationBefore = generation.get();
+        List<T> results = search.get();
+        // Po zmianie produktu w trakcie wyszukiwania wynik może być sprzed niej - nie zapisujemy
+        if (results.size() <= MAX_CACHED_IDS && generation.get() == generationBefore) {
+            int[] ids = new int[results.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = idOf.apply(results.get(i));
+            }
+            Entry entry = Entry.of(lookup, ids);
+            // Kolejność: indeksy, put, ponowne sprawdzenie generacji. Unieważnienie podbija generację
+            // przed przeszukaniem indeksów - albo znajdzie ten wpis, albo my zobaczymy nową generację
+            register(entry);
+            cache.put(lookup.key(), entry);
+            if (generation.get() != generationBefore) {
+                cache.asMap().remove(lookup.key(), entry);
+            }
+        }
+        return results;
+    }
+
+    // ========== INVALIDATION ==========
+
+    public void onProductChanged(Product product, Integer productId, boolean deleted) {
+        generation.incrementAndGet();
+        ChangedProduct change = new ChangedProduct(deleted ? null : product, analyzer);
+
+        Set<Entry> candidates = new HashSet<>(unkeyedEntries);
+        if (productId != null) {
+            candidates.addAll(entriesByProduct.getOrDefault(productId, Set.of()));
+        }
+        if (!deleted) {
+            for (String trigger : change.triggers()) {
+                candidates.addAll(entriesByTrigger.getOrDefault(trigger, Set.of()));
+            }
+        }
+
+        int removed = 0;
+        for (Entry entry : candidates) {
+            if ((entry.contains(productId) || (!deleted && entry.affectedBy().test(change)))
+                    && cache.asMap().remove(entry.key(), entry)) {
+                removed++;
+            }
+        }
+        invalidations.addAndGet(removed);
+        log.debug("Product {} changed - invalidated {} cached searches", productId, removed);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        long size = cache.estimatedSize();
+        cache.invalidateAll();
+        invalidations.addAndGet(size);
+    }
+
+    // ========== STATS ==========
+
+    // maximumSize to limit wagi (liczba ID), estimatedBytes - przybliżona pamięć wpisów
+    public CacheStatsDTO stats() {
+        CacheStats stats = cache.stats();
+        long weight = cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+        return CacheStatsDTO.builder()
+                .name("search-results")
+                .size(cache.estimatedSize())
+                .maximumSize(maximumWeight)
+                .hits(stats.hitCount())
+                .misses(stats.missCount())
+                .hitRate(stats.hitRate())
+                .evictions(stats.evictionCount())
+                .invalidations(invalidations.get())
+                .estimatedBytes(weight * Integer.BYTES)
+                .build();
+    }
+
+    // ========== ENTRY INDEXES ==========
+
+    private void register(Entry entry) {
+        for (int id : entry.ids()) {
+            entriesByProduct.compute(id, (key, entries) -> withEntry(entries, entry));
+        }
+        if (entry.triggers() == null) {
+            unkeyedEntries.add(entry);
+            return;
+        }
+        for (String trigger : entry.triggers()) {
+            entriesByTrigger.compute(trigger, (key, entries) -> withEntry(entries, entry));
+        }
+    }
+
+    private void unregister(Entry entry) {
+        if (entry == null) {
+            return;
+        }
+        for (int id : entry.ids()) {
+            entriesByProduct.computeIfPresent(id, (key, entries) -> withoutEntry(entries, entry));
+        }
+        if (entry.triggers() == null) {
+            unkeyedEntries.remove(entry);
+            return;
+        }
+        for (String trigger : entry.triggers()) {
+            entriesByTrigger.computeIfPresent(trigger, (key, entries) -> withoutEntry(entries, entry));
+        }
+    }
+
+    private static Set<Entry> withEntry(Set<Entry> entries, Entry entry) {
+        Set<Entry> result = entries != null ? entries : ConcurrentHashMap.newKeySet();
+        result.add(entry);
+        return result;
+    }
+
+    private static Set<Entry> withoutEntry(Set<Entry> entries, Entry entry) {
+        entries.remove(entry);
+        return entries.isEmpty() ? null : entries;
+    }
+
+    // ========== TRIGGERS ==========
+
+    // null = bez wyzwalacza (puste zapytanie pasuje do wszystkiego)
+    private static Set<String> termTriggers(List<String> terms, boolean fuzzy) {
+        if (terms.isEmpty()) {
+            return null;
+        }
+        Set<String> triggers = new HashSet<>();
+        for (String term : terms) {
+            triggers.add("t:" + term);
+            if (fuzzy && term.length() >= MIN_FUZZY_LENGTH) {
+                addDeletions("f:", term, MAX_FUZZY_EDITS, triggers);
+            }
+        }
+        return triggers;
+    }
+
+    // Tekst zawierający needle zawiera też jego pierwszy trigram
+    private static Set<String> substringTriggers(String needle) {
+        return needle.length() >= TRIGRAM ? Set.of("s:" + needle.substring(0, TRIGRAM)) : null;
+    }
+
+    private static void addDeletions(String prefix, String term, int edits, Set<String> out) {
+        out.add(prefix + term);
+        if (edits == 0) {
+            return;
+        }
+        for (int i = 0; i < term.length(); i++) {
+            addDeletions(prefix, term.substring(0, i) + term.substring(i + 1), edits - 1, out);
+        }
+    }
+
+    // ========== MATCHING ==========
+
+    private static boolean matchesTerms(List<String> queryTerms, boolean fuzzy, ChangedProduct change) {
+        if (queryTerms.isEmpty()) {
+            return true;
+        }
+        Set<String> productTerms = change.terms();
+        String last = queryTerms.get(queryTerms.size() - 1);
+
+        for (String term : queryTerms) {
+            if (productTerms.contains(term)) {
+                return true;
+            }
+        }
+        for (String productTerm : productTerms) {
+            if (productTerm.startsWith(last)) {
+                return true;
+            }
+            if (fuzzy) {
+                for (String term : queryTerms) {
+                    if (term.length() >= MIN_FUZZY_LENGTH
+                            && TrigramIndex.distance(term, productTerm, MAX_FUZZY_EDITS) <= MAX_FUZZY_EDITS) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    @SafeVarargs
+    private static boolean containsText(Product product, String needle, Function<Product, String>... fields) {
+        for (Function<Product, String> field : fields) {
+            String value = field.apply(product);
+            if (value != null && value.toLowerCase().contains(needle)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<Integer> toList(int[] ids) {
+        List<Integer> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            result.add(id);
+        }
+        return result;
+    }
+
+    // ========== TYPES ==========
+
+    public record Key(String kind, String text, String filters) {
+    }
+
+    // Klucz + warunek "ta zmiana produktu może zmienić wynik" + wyzwalacze warunku (null = brak)
+    public record Lookup(Key key, Predicate<ChangedProduct> affectedBy, Set<String> triggers) {
+    }
+
+    // Zmieniony produkt; terminy liczone dopiero gdy któryś wpis o nie zapyta, i tylko raz
+    public static final class ChangedProduct {
+        private final Product product;
+        private final TextAnalyzer analyzer;
+        private Set<String> terms;
+        private Set<String> triggers;
+
+        private ChangedProduct(Product product, TextAnalyzer analyzer) {
+            this.product = product;
+            this.analyzer = analyzer;
+        }
+
+        public Product product() {
+            return product;
+        }
+
+        public Set<String> terms() {
+            if (terms == null) {
+                terms = new HashSet<>();
+                terms.addAll(analyzer.analyze(product.getProductName()));
+                terms.addAll(analyzer.analyze(product.getCategory()));
+                terms.addAll(analyzer.analyze(product.getBrand()));
+                terms.addAll(analyzer.analyze(product.getDescription()));
+            }
+            return terms;
+        }
+
+        // Wyzwalacze wszystkich wpisów, do których ten stan produktu może pasować
+        Set<String> triggers() {
+            if (triggers == null) {
+                triggers = new HashSet<>();
+                for (String term : terms()) {
+                    for (int end = 1; end <= term.length(); end++) {
+                        triggers.add("t:" + term.substring(0, end));
+                    }
+                    if (term.length() >= MIN_FUZZY_LENGTH - MAX_FUZZY_EDITS) {
+                        addDeletions("f:", term, MAX_FUZZY_EDITS, triggers);
+                    }
+                }
+                addTrigrams(product.getProductName());
+                addTrigrams(product.getDescription());
+                addTrigrams(product.getCategory());
+                addTrigrams(product.getBrand());
+                if (product.getCategory() != null) {
+                    triggers.add("c:" + product.getCategory().toLowerCase());
+                }
+            }
+            return triggers;
+        }
+
+        private void addTrigrams(String text) {
+            if (text == null) {
+                return;
+            }
+            String lower = text.toLowerCase();
+            for (int i = 0; i + TRIGRAM <= lower.length(); i++) {
+                triggers.add("s:" + lower.substring(i, i + TRIGRAM));
+            }
+        }
+    }
+
+    // Równość jak tożsamość (tablice i predykat porównywane referencją) - w indeksach i przy
+    // remove(key, entry) to zawsze ten konkretny wpis, nie nowszy pod tym samym kluczem
+    private record Entry(Key key, int[] ids, int[] sortedIds, Predicate<ChangedProduct> affectedBy,
+                         Set<String> triggers) {
+
+        static Entry of(Lookup lookup, int[] ids) {
+            int[] sorted = null;
+            if (ids.length > LINEAR_SCAN_LIMIT) {
+                sorted = ids.clone();
+                Arrays.sort(sorted);
+            }
+            return new Entry(lookup.key(), ids, sorted, lookup.affectedBy(), lookup.triggers());
+        }
+
+        boolean contains(Integer productId) {
+            if (productId == null) {
+                return false;
+            }
+            if (sortedIds != null) {
+                return Arrays.binarySearch(sortedIds, productId) >= 0;
+            }
+            for (int id : ids) {
+                if (id == productId) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        int weight() {
+            return ids.length * (1 + PRODUCT_INDEX_WEIGHT) + (sortedIds != null ? sortedIds.length : 0)
+                    + ENTRY_OVERHEAD;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.radnom.service.search;
+
+import java.util.Arrays;
+
+// Lista wystąpień jednego terminu: posortowane ID produktów + równoległa tablica częstości
+// w polach (SearchField) spakowanych po 8 bitów w int - bez obiektów na wystąpienie.
+// Nie jest thread-safe - synchronizację zapewnia właściciel (InvertedIndexSearchEngine).
+public final class TermPostings {
+
+    private static final int[] EMPTY = new int[0];
+
+    private int[] docs = EMPTY;
+    private int[] frequencies = EMPTY;
+    private int size;
+
+    public void put(int doc, int packedFrequencies) {
+        int pos = Arrays.binarySearch(docs, 0, size, doc);
+        if (pos >= 0) {
+            frequencies[pos] = packedFrequencies;
+            return;
+        }
+
+        int insertAt = -pos - 1;
+        if (size == docs.length) {
+            int capacity = Math.max(4, size + (size >> 1));
+            docs = Arrays.copyOf(docs, capacity);
+            frequencies = Arrays.copyOf(frequencies, capacity);
+        }
+        System.arraycopy(docs, insertAt, docs, insertAt + 1, size - insertAt);
+        System.arraycopy(frequencies, insertAt, frequencies, insertAt + 1, size - insertAt);
+        docs[insertAt] = doc;
+        frequencies[insertAt] = packedFrequencies;
+        size++;
+    }
+
+    public boolean remove(int doc) {
+        int pos = Arrays.binarySearch(docs, 0, size, doc);
+        if (pos < 0) {
+            return false;
+        }
+
+        System.arraycopy(docs, pos + 1, docs, pos, size - pos - 1);
+        System.arraycopy(frequencies, pos + 1, frequencies, pos, size - pos - 1);
+        size--;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int docAt(int index) {
+        return docs[index];
+    }
+
+    public int frequenciesAt(int index) {
+        return frequencies[index];
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(docs, size);
+    }
+
+    // Pierwsza pozycja >= from z ID >= target (wyszukiwanie wykładnicze, potem binarne);
+    // size() gdy takiej nie ma
+    public int seek(int from, int target) {
+        if (from >= size || docs[from] >= target) {
+            return from;
+        }
+
+        int step = 1;
+        int low = from;
+        int high = from + 1;
+        while (high < size && docs[high] < target) {
+            low = high;
+            step <<= 1;
+            high = from + step;
+        }
+        high = Math.min(high, size);
+
+        int pos = Arrays.binarySearch(docs, low + 1, high, target);
+        return pos >= 0 ? pos : -pos - 1;
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.radnom.service.search;
+
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.*;
+
+// Analiza tekstu dla wyszukiwarki, ta sama przy indeksowaniu i przy zapytaniu:
+// tokenizacja + małe litery (SearchTokenizer) -> zdjęcie polskich znaków (ł -> l, ó -> o ...)
+// -> lekki stemming (odcięcie typowych końcówek fleksyjnych) -> stopwords.
+// Dzięki temu "laptopow", "laptopów" i "laptop" dają ten sam termin "laptop".
+//
+// Analizator nie trzyma stanu - jeden obiekt String na termin zapewnia słownik indeksu
+// (InvertedIndexSearchEngine), który razem z ostatnią listą wystąpień zwalnia też termin.
+@Component
+public class TextAnalyzer {
+
+    // Stem krótszy niż to nic już nie znaczy - końcówki nie odcinamy
+    private static final int MIN_STEM_LENGTH = 3;
+
+    // Od najdłuższych, po zdjęciu znaków diakrytycznych
+    private static final String[] SUFFIXES = {
+            "owego", "owych", "owymi",
+            "iami", "owie", "owej",
+            "ami", "ach", "owi", "ego", "emu", "ymi", "imi", "ich", "ych", "owa", "owe", "owy", "iem",
+            "ow", "om", "em", "ie", "ia", "ii", "ej", "ym", "im",
+            "a", "e", "i", "y", "o", "u"
+    };
+
+    private static final Set<String> STOPWORDS = Set.of(
+            "a", "i", "w", "z", "o", "u", "na", "do", "od", "po", "za", "ze", "we", "dla", "lub", "oraz",
+            "sie", "jest", "to", "nie", "bez", "pod", "nad", "przez", "przy", "jak", "ten", "ta", "te",
+            "the", "and", "of", "for", "with");
+
+    // ========== PIPELINE ==========
+
+    // Tekst produktu -> terminy do indeksu
+    public List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        for (String token : SearchTokenizer.tokenize(text)) {
+            String term = normalizeToken(token);
+            if (term != null) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+    // Zapytanie -> terminy. Ostatni token zostaje nawet gdy jest stopwordem -
+    // użytkownik może dopiero pisać ("do" -> "domowy")
+    public List<String> analyzeQuery(String query) {
+        List<String> tokens = SearchTokenizer.tokenize(query);
+        List<String> terms = new ArrayList<>(tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            String term = normalizeToken(tokens.get(i));
+            if (term == null && i == tokens.size() - 1) {
+                term = fold(tokens.get(i));
+            }
+            if (term != null) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+    // ========== STAGES ==========
+
+    // ą ć ę ł ń ó ś ź ż -> a c e l n o s z z; inne znaki z akcentem przez dekompozycję Unicode
+    public static String fold(String token) {
+        StringBuilder folded = null;
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            if (c < 128) {
+                if (folded != null) {
+                    folded.append(c);
+                }
+                continue;
+            }
+            if (folded == null) {
+                folded = new StringBuilder(token.length()).append(token, 0, i);
+            }
+            folded.append(foldChar(c));
+        }
+        return folded != null ? folded.toString() : token;
+    }
+
+    // Odcina najdłuższą pasującą końcówkę; tokeny z cyframi (modele, rozmiary) bez zmian
+    public static String stem(String token) {
+        for (int i = 0; i < token.length(); i++) {
+            if (Character.isDigit(token.charAt(i))) {
+                return token;
+            }
+        }
+        for (String suffix : SUFFIXES) {
+            if (token.length() - suffix.length() >= MIN_STEM_LENGTH && token.endsWith(suffix)) {
+                return token.substring(0, token.length() - suffix.length());
+            }
+        }
+        return token;
+    }
+
+    // ========== PRIVATE ==========
+
+    // null = stopword
+    private static String normalizeToken(String token) {
+        String folded = fold(token);
+        if (STOPWORDS.contains(folded)) {
+            return null;
+        }
+        return stem(folded);
+    }
+
+    private static char foldChar(char c) {
+        return switch (c) {
+            case 'ą' -> 'a';
+            case 'ć' -> 'c';
+            case 'ę' -> 'e';
+            case 'ł' -> 'l';
+            case 'ń' -> 'n';
+            case 'ó' -> 'o';
+            case 'ś' -> 's';
+            case 'ź', 'ż' -> 'z';
+            default -> {
+                String decomposed = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+                char base = decomposed.charAt(0);
+                yield base < 128 ? base : c;
+            }
+        };
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.radnom.service.search;
+
+import com.example.radnom.service.catalog.PostingList;
+
+import java.util.*;
+
+// Indeks trigramów nad słownikiem wyszukiwarki - do wyszukiwania z literówkami.
+// Termin "$klawiatura$" -> trigramy "$kl", "kla", ..., "ra$". Kandydaci na podobne terminy to te,
+// które dzielą z zapytaniem dość trigramów (edycja niszczy najwyżej 3 trigramy, przestawienie
+// sąsiednich znaków 4) i mają podobną długość. Dopiero kandydaci przechodzą ograniczoną odległość
+// edycyjną (Damerau / OSA, przerwanie gdy cały wiersz przekroczy limit) - słownika nie skanujemy.
+//
+// Tylko terminy z samych liter - w numerach modeli "1080" vs "1060" literówki nie ma.
+// Nie jest thread-safe - synchronizację zapewnia właściciel (InvertedIndexSearchEngine).
+public final class TrigramIndex {
+
+    private static final char PAD = '$';
+    private static final int GRAMS_PER_EDIT = 4;
+    private static final int MIN_TERM_LENGTH = 3;
+
+    private final Map<String, Integer> termIds = new HashMap<>();
+    private final Deque<Integer> freeIds = new ArrayDeque<>();
+    private final Map<String, PostingList> grams = new HashMap<>();
+    private String[] terms = new String[256];
+    private int nextId;
+
+    // Liczniki wspólnych trigramów per termin - osobne dla każdego czytającego wątku
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    // ========== WRITE ==========
+
+    public void add(String term) {
+        if (!isIndexable(term) || termIds.containsKey(term)) {
+            return;
+        }
+
+        int id = freeIds.isEmpty() ? nextId++ : freeIds.pop();
+        if (id >= terms.length) {
+            terms = Arrays.copyOf(terms, terms.length * 2);
+        }
+        terms[id] = term;
+        termIds.put(term, id);
+
+        for (String gram : trigrams(term)) {
+            grams.computeIfAbsent(gram, g -> new PostingList()).add(id);
+        }
+    }
+
+    public void remove(String term) {
+        Integer id = termIds.remove(term);
+        if (id == null) {
+            return;
+        }
+
+        for (String gram : trigrams(term)) {
+            PostingList postings = grams.get(gram);
+            if (postings != null) {
+                postings.remove(id);
+                if (postings.isEmpty()) {
+                    grams.remove(gram);
+                }
+            }
+        }
+        terms[id] = null;
+        freeIds.push(id);
+    }
+
+    public void clear() {
+        termIds.clear();
+        freeIds.clear();
+        grams.clear();
+        terms = new String[256];
+        nextId = 0;
+    }
+
+    public int size() {
+        return termIds.size();
+    }
+
+    // ========== READ ==========
+
+    // Terminy w odległości <= maxEdits od zapytania, od najbliższych
+    public List<String> similarTerms(String query, int maxEdits) {
+        if (maxEdits <= 0 || !isIndexable(query)) {
+            return List.of();
+        }
+
+        Set<String> queryGrams = trigrams(query);
+        int minShared = Math.max(1, queryGrams.size() - GRAMS_PER_EDIT * maxEdits);
+
+        Scratch work = scratch.get();
+        work.ensureCapacity(nextId);
+        int touched = 0;
+
+        for (String gram : queryGrams) {
+            PostingList postings = grams.get(gram);
+            if (postings == null) {
+                continue;
+            }
+            for (int i = 0; i < postings.size(); i++) {
+                int id = postings.get(i);
+                if (work.counts[id]++ == 0) {
+                    work.touched[touched++] = id;
+                }
+            }
+        }
+
+        List<Match> matches = new ArrayList<>();
+        for (int i = 0; i < touched; i++) {
+            int id = work.touched[i];
+            if (work.counts[id] >= minShared) {
+                String term = terms[id];
+                int distance = distance(query, term, maxEdits);
+                if (distance <= maxEdits) {
+                    matches.add(new Match(term, distance));
+                }
+            }
+            work.counts[id] = 0;
+        }
+
+        matches.sort(Comparator.comparingInt(Match::distance).thenComparing(Match::term));
+        List<String> result = new ArrayList<>(matches.size());
+        for (Match match : matches) {
+            result.add(match.term());
+        }
+        return result;
+    }
+
+    // ========== EDIT DISTANCE ==========
+
+    // Odległość OSA (wstawienie, usunięcie, zamiana, przestawienie sąsiednich znaków);
+    // gdy przekracza max, zwraca max + 1 bez liczenia reszty macierzy
+    static int distance(String a, String b, int max) {
+        int n = a.length();
+        int m = b.length();
+        if (Math.abs(n - m) > max) {
+            return max + 1;
+        }
+
+        int[] beforePrevious = new int[m + 1];
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            previous[j] = j;
+        }
+
+        for (int i = 1; i <= n; i++) {
+            char ca = a.charAt(i - 1);
+            current[0] = i;
+            int rowMin = i;
+
+            for (int j = 1; j <= m; j++) {
+                char cb = b.charAt(j - 1);
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1),
+                        previous[j - 1] + (ca == cb ? 0 : 1));
+                if (i > 1 && j > 1 && ca == b.charAt(j - 2) && a.charAt(i - 2) == cb) {
+                    value = Math.min(value, beforePrevious[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] recycled = beforePrevious;
+            beforePrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[m], max + 1);
+    }
+
+    // ========== PRIVATE ==========
+
+    private static boolean isIndexable(String term) {
+        if (term == null || term.length() < MIN_TERM_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < term.length(); i++) {
+            if (!Character.isLetter(term.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Set<String> trigrams(String term) {
+        String padded = PAD + term + PAD;
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            result.add(padded.substring(i, i + 3));
+        }
+        return result;
+    }
+
+    private record Match(String term, int distance) {
+    }
+
+    private static final class Scratch {
+        private int[] counts = new int[0];
+        private int[] touched = new int[0];
+
+        private void ensureCapacity(int capacity) {
+            if (counts.length < capacity) {
+                int size = Math.max(capacity, counts.length * 2);
+                counts = new int[size];
+                touched = new int[size];
+            }
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package com.example.radnom.service.stock;
+
+import com.example.radnom.entity.Product;
+import com.example.radnom.entity.dto.StockReservationStatsDTO;
+import com.example.radnom.repository.ProductRepository;
+import com.example.radnom.service.catalog.CatalogVersion;
+import com.example.radnom.service.catalog.ProductChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Rezerwacje stanu magazynowego dla koszyków - w pamięci, bez blokad wierszy w bazie.
+//
+// Każdy produkt ma licznik `available` = stock z bazy - trzymane rezerwacje - sprzedane jeszcze
+// niezapisane. Rezerwacja to pętla CAS na tym liczniku (bez globalnej blokady - kupujący różne
+// produkty w ogóle się nie spotykają, ten sam produkt rozstrzyga compareAndSet).
+// Rezerwacja należy do koszyka i wygasa po app.stock.hold-minutes bez odświeżenia;
+// wygasłe zwalnia sweepExpiredHolds().
+//
+// Baza jest uzgadniana w tle (reconcile): sprzedane sztuki (commit) idą jednym batchem
+// UPDATE stock = stock - ?, potem stany śledzonych produktów są czytane z bazy i różnica
+// (zmiana przez panel, import) trafia do licznika.
+// Stan jest w pamięci jednej instancji - po restarcie rezerwacje znikają, koszyk rezerwuje
+// ponownie przy następnej zmianie.
+@Slf4j
+@Service
+public class StockReservationService {
+
+    // updated_at razem ze stock - sprzedaż trafia do eksportu przyrostowego (updatedAt > since)
+    private static final String DECREMENT_STOCK =
+            "UPDATE radnom SET stock = GREATEST(stock - ?, 0), updated_at = CURRENT_TIMESTAMP WHERE product_id = ?";
+    // Stany czytane paczkami - IN (...) z tyloma ID
+    private static final int REFRESH_BATCH_SIZE = 500;
+
+    private final ProductRepository productRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CatalogVersion catalogVersion;
+    private final long holdMillis;
+
+    private final ConcurrentHashMap<Integer, ProductStock> stocks = new ConcurrentHashMap<>();
+
+    public StockReservationService(ProductRepository productRepository,
+                                   JdbcTemplate jdbcTemplate,
+                                   ApplicationEventPublisher eventPublisher,
+                                   CatalogVersion catalogVersion,
+                                   @Value("${app.stock.hold-minutes:15}") long holdMinutes) {
+        this.productRepository = productRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.catalogVersion = catalogVersion;
+        this.holdMillis = Duration.ofMinutes(holdMinutes).toMillis();
+    }
+
+    // ========== HOLDS ==========
+
+    // ✅ Ustawia rezerwację koszyka na produkt na `quantity` sztuk (0 = zwolnij) i odnawia jej ważność.
+    // Dobiera lub oddaje tylko różnicę. Zwraca poprzednią ilość (do cofnięcia przy rollbacku).
+    public int hold(Long cartId, Integer productId, int quantity) {
+        ProductStock stock = stockOf(productId);
+        int[] previous = new int[1];
+        long expiresAt = System.currentTimeMillis() + holdMillis;
+
+        stock.holds.compute(cartId, (id, current) -> {
+            int held = current != null ? current.quantity() : 0;
+            previous[0] = held;
+            int delta = quantity - held;
+            if (delta > 0 && !stock.tryAcquire(delta)) {
+                throw new IllegalArgumentException("Insufficient stock");
+            }
+            if (delta < 0) {
+                stock.release(-delta);
+            }
+            return quantity > 0 ? new Hold(quantity, expiresAt) : null;
+        });
+        return previous[0];
+    }
+
+    // ✅ Jak hold, ale bez wyjątku - do przywracania poprzedniego stanu
+    public void restore(Long cartId, Integer productId, int quantity) {
+        try {
+            hold(cartId, productId, quantity);
+        } catch (IllegalArgumentException e) {
+            log.warn("Could not restore hold of {} x product {} for cart {}", quantity, productId, cartId);
+        }
+    }
+
+    public void release(Long cartId, Integer productId) {
+        ProductStock stock = stocks.get(productId);
+        if (stock != null) {
+            Hold hold = stock.holds.remove(cartId);
+            if (hold != null) {
+                stock.release(hold.quantity());
+            }
+        }
+    }
+
+    public void releaseAll(Long cartId) {
+        for (ProductStock stock : stocks.values()) {
+            Hold hold = stock.holds.remove(cartId);
+            if (hold != null) {
+                stock.release(hold.quantity());
+            }
+        }
+    }
+
+    // ✅ Rezerwacje koszyka stają się sprzedażą - licznik się nie zmienia (sztuki już zdjęte),
+    // a zmniejszenie stock w bazie zapisze najbliższy reconcile. Wywołuje proces zamówienia
+    // po zapisie zamówienia - sam koszyk tylko rezerwuje i zwalnia
+    public void commit(Long cartId) {
+        for (ProductStock stock : stocks.values()) {
+            Hold hold = stock.holds.remove(cartId);
+            if (hold != null) {
+                stock.pendingSold.addAndGet(hold.quantity());
+            }
+        }
+    }
+
+    // Ile sztuk można jeszcze zarezerwować
+    public int available(Integer productId) {
+        return stockOf(productId).available.get();
+    }
+
+    // ========== BACKGROUND ==========
+
+    // Wygasłe rezerwacje wracają do puli
+    @Scheduled(fixedDelayString = "${app.stock.sweep-ms:30000}")
+    public void sweepExpiredHolds() {
+        long now = System.currentTimeMillis();
+        int expired = 0;
+        for (ProductStock stock : stocks.values()) {
+            for (Map.Entry<Long, Hold> entry : stock.holds.entrySet()) {
+                Hold hold = entry.getValue();
+                // remove(klucz, wartość) - rezerwacja odnowiona w międzyczasie zostaje
+                if (hold.expiresAt() <= now && stock.holds.remove(entry.getKey(), hold)) {
+                    stock.release(hold.quantity());
+                    expired++;
+                }
+            }
+        }
+        if (expired > 0) {
+            log.info("Released {} expired stock holds", expired);
+        }
+    }
+
+    // Sprzedaż -> baza (batch), baza -> liczniki (zmiany stock spoza rezerwacji).
+    // synchronized - harmonogram i ręczne wywołanie z panelu nie przeplatają flush z odczytem
+    @Scheduled(fixedDelayString = "${app.stock.reconcile-ms:5000}")
+    public synchronized void reconcile() {
+        List<Integer> flushed = flushSold();
+        refreshFromDatabase();
+        publishStockChanges(flushed);
+    }
+
+    public StockReservationStatsDTO stats() {
+        long holds = 0;
+        long heldUnits = 0;
+        long pendingSold = 0;
+        for (ProductStock stock : stocks.values()) {
+            for (Hold hold : stock.holds.values()) {
+                holds++;
+                heldUnits += hold.quantity();
+            }
+            pendingSold += stock.pendingSold.get();
+        }
+        return StockReservationStatsDTO.builder()
+                .trackedProducts(stocks.size())
+                .activeHolds(holds)
+                .heldUnits(heldUnits)
+                .pendingSoldUnits(pendingSold)
+                .holdMinutes(Duration.ofMillis(holdMillis).toMinutes())
+                .build();
+    }
+
+    // ========== PRIVATE ==========
+
+    // Licznik zakładany przy pierwszej rezerwacji - stan czytany z bazy (sama kolumna stock),
+    // żeby koszyk nie musiał wczytywać produktu
+    private ProductStock stockOf(Integer productId) {
+        ProductStock stock = stocks.get(productId);
+        if (stock != null) {
+            return stock;
+        }
+        List<Object[]> rows = productRepository.findStockByIdIn(List.of(productId));
+        if (rows.isEmpty()) {
+            throw new IllegalArgumentException("Product not found");
+        }
+        Object dbStock = rows.get(0)[1];
+        return stocks.computeIfAbsent(productId, id -> new ProductStock(dbStock != null ? (Integer) dbStock : 0));
+    }
+
+    private List<Integer> flushSold() {
+        List<Object[]> batch = new ArrayList<>();
+        List<Integer> ids = new ArrayList<>();
+        Map<Integer, Integer> taken = new HashMap<>();
+
+        for (Map.Entry<Integer, ProductStock> entry : stocks.entrySet()) {
+            int sold = entry.getValue().pendingSold.getAndSet(0);
+            if (sold > 0) {
+                batch.add(new Object[]{sold, entry.getKey()});
+                ids.add(entry.getKey());
+                taken.put(entry.getKey(), sold);
+            }
+        }
+        if (batch.isEmpty()) {
+            return ids;
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(DECREMENT_STOCK, batch);
+        } catch (RuntimeException e) {
+            // Sprzedaż wraca do kolejki - następny reconcile spróbuje ponownie
+            taken.forEach((id, sold) -> stocks.get(id).pendingSold.addAndGet(sold));
+            log.error("Stock flush failed for {} products: {}", batch.size(), e.getMessage(), e);
+            return List.of();
+        }
+
+        // Baza ma już mniej - baseline też, żeby refresh nie oddał tych sztuk do licznika
+        taken.forEach((id, sold) -> stocks.get(id).baseline.addAndGet(-sold));
+        log.info("Flushed sold stock for {} products", batch.size());
+        return ids;
+    }
+
+    private void refreshFromDatabase() {
+        List<Integer> ids = new ArrayList<>(stocks.keySet());
+        for (int from = 0; from < ids.size(); from += REFRESH_BATCH_SIZE) {
+            List<Integer> chunk = ids.subList(from, Math.min(from + REFRESH_BATCH_SIZE, ids.size()));
+            Set<Integer> missing = new HashSet<>(chunk);
+
+            for (Object[] row : productRepository.findStockByIdIn(chunk)) {
+                Integer id = (Integer) row[0];
+                int dbStock = row[1] != null ? (Integer) row[1] : 0;
+                missing.remove(id);
+                stocks.get(id).resync(dbStock);
+            }
+            // Usunięte produkty - rezerwacje tracą sens
+            missing.forEach(stocks::remove);
+        }
+    }
+
+    // Stan zmieniony przez JDBC omija listener JPA - indeksy (np. faseta dostępności), cache
+    // i ETag produktu (ProductIndexer -> CatalogVersion.bump) dowiadują się przez to samo zdarzenie
+    // co przy zapisie encji. Gdy produktu nie da się wczytać, ETag podbijamy bezpośrednio -
+    // stan w bazie już się zmienił
+    private void publishStockChanges(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        Set<Integer> unpublished = new HashSet<>(ids);
+        try {
+            for (Product product : productRepository.findAllById(ids)) {
+                eventPublisher.publishEvent(
+                        new ProductChangedEvent(ProductChangedEvent.Type.UPDATED, product.getId(), product));
+                unpublished.remove(product.getId());
+            }
+        } catch (RuntimeException e) {
+            log.error("Could not publish stock changes for {} products: {}", unpublished.size(), e.getMessage(), e);
+        }
+        unpublished.forEach(catalogVersion::bump);
+    }
+
+    private record Hold(int quantity, long expiresAt) {
+    }
+
+    private static final class ProductStock {
+        // stock z bazy - trzymane - sprzedane niezapisane
+        private final AtomicInteger available;
+        // Ostatni znany stock z bazy (po odjęciu zapisanej sprzedaży)
+        private final AtomicInteger baseline;
+        private final AtomicInteger pendingSold = new AtomicInteger();
+        private final ConcurrentHashMap<Long, Hold> holds = new ConcurrentHashMap<>();
+
+        private ProductStock(int stock) {
+            this.available = new AtomicInteger(stock);
+            this.baseline = new AtomicInteger(stock);
+        }
+
+        private boolean tryAcquire(int quantity) {
+            while (true) {
+                int current = available.get();
+                if (current < quantity) {
+                    return false;
+                }
+                if (available.compareAndSet(current, current - quantity)) {
+                    return true;
+                }
+            }
+        }
+
+        private void release(int quantity) {
+            available.addAndGet(quantity);
+        }
+
+        // Różnica między bazą a ostatnim znanym stanem trafia do licznika (może zejść poniżej 0 -
+        // wtedy nowe rezerwacje czekają, aż zwolnią się stare)
+        private void resync(int dbStock) {
+            int previous = baseline.getAndSet(dbStock);
+            if (previous != dbStock) {
+                available.addAndGet(dbStock - previous);
+            }
+        }
+    }
+}
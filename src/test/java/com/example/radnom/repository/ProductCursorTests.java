@@ -0,0 +1,47 @@
+package com.example.radnom.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductCursorTests {
+
+	@Test
+	void roundTripKeepsNullEmptyAndSeparatorKeys() {
+		assertRoundTrip(new ProductCursor("price-asc", 12, null));
+		assertRoundTrip(new ProductCursor("name-asc", 12, ""));
+		assertRoundTrip(new ProductCursor("name-asc", 12, "a|b=c"));
+		assertRoundTrip(new ProductCursor("name-asc", 12, "=start"));
+		assertRoundTrip(new ProductCursor("rating-desc", 7, "4.5"));
+	}
+
+	@Test
+	void nullAndEmptyKeysEncodeDifferently() {
+		assertNotEquals(new ProductCursor("name-asc", 1, null).encode(),
+				new ProductCursor("name-asc", 1, "").encode());
+	}
+
+	@Test
+	void tokensWithoutValuePrefixStillDecode() {
+		assertEquals(new ProductCursor("price-asc", 5, "100"), ProductCursor.decode(token("price-asc|5|100")));
+		assertEquals(new ProductCursor("price-asc", 5, null), ProductCursor.decode(token("price-asc|5|")));
+	}
+
+	@Test
+	void malformedTokensAreRejected() {
+		assertThrows(IllegalArgumentException.class, () -> ProductCursor.decode(token("price-asc|5")));
+		assertThrows(IllegalArgumentException.class, () -> ProductCursor.decode(token("price-asc|x|=1")));
+		assertThrows(IllegalArgumentException.class, () -> ProductCursor.decode("%%%"));
+	}
+
+	private static void assertRoundTrip(ProductCursor cursor) {
+		assertEquals(cursor, ProductCursor.decode(cursor.encode()));
+	}
+
+	private static String token(String raw) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+}
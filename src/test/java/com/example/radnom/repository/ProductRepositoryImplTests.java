@@ -0,0 +1,95 @@
+package com.example.radnom.repository;
+
+import com.example.radnom.entity.Product;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductRepositoryImplTests {
+
+	private static final String[] NAMES = {"Kabel", "kabel", "Kąbel", null, "Żelazko", "zegar", "Ćma", "lampa"};
+
+	@Test
+	void chunkedSearchReturnsSameTopAsSingleQuery() {
+		Random random = new Random(7);
+		Map<Integer, Product> catalog = new HashMap<>();
+		for (int id = 1; id <= 2_000; id++) {
+			catalog.put(id, product(id, random));
+		}
+		List<Integer> hits = new ArrayList<>(catalog.keySet());
+		Collections.shuffle(hits, random);
+		Predicate<Product> filter = product -> product.getStock() > 0;
+
+		for (ProductSort sort : ProductSort.values()) {
+			for (int limit : new int[]{1, 10, 100, 5_000}) {
+				List<Integer> expected = query(catalog, hits, filter, sort, limit).stream()
+						.map(Product::getId)
+						.toList();
+				List<Integer> actual = ProductRepositoryImpl.mergeChunks(hits, 97,
+								chunk -> query(catalog, chunk, filter, sort, limit), sort, limit).stream()
+						.map(Product::getId)
+						.toList();
+
+				assertEquals(expected, actual, sort + " limit " + limit);
+			}
+		}
+	}
+
+	@Test
+	void queriesEachChunkOnceWithBoundedInList() {
+		List<Integer> ids = new ArrayList<>();
+		for (int id = 1; id <= 25; id++) {
+			ids.add(id);
+		}
+		List<Integer> chunkSizes = new ArrayList<>();
+		Function<List<Integer>, List<Product>> query = chunk -> {
+			chunkSizes.add(chunk.size());
+			return chunk.stream().map(id -> product(id, null, id, 1)).toList();
+		};
+
+		List<Product> result = ProductRepositoryImpl.mergeChunks(ids, 10, query, ProductSort.PRICE_DESC, 3);
+
+		assertEquals(List.of(10, 10, 5), chunkSizes);
+		assertEquals(List.of(25, 24, 23), result.stream().map(Product::getId).toList());
+	}
+
+	@Test
+	void emptyChunksGiveEmptyResult() {
+		List<Product> result = ProductRepositoryImpl.mergeChunks(List.of(1, 2, 3), 2,
+				chunk -> List.of(), ProductSort.NAME_ASC, 10);
+
+		assertTrue(result.isEmpty());
+	}
+
+	// To, co zwraca jedno zapytanie: WHERE id IN (...) AND filtry ORDER BY klucz, id LIMIT
+	private static List<Product> query(Map<Integer, Product> catalog, List<Integer> ids, Predicate<Product> filter,
+			ProductSort sort, int limit) {
+		return ids.stream()
+				.map(catalog::get)
+				.filter(filter)
+				.sorted(sort.comparator(sort::keyOf, Product::getId))
+				.limit(limit)
+				.toList();
+	}
+
+	private static Product product(int id, Random random) {
+		Product product = product(id, NAMES[random.nextInt(NAMES.length)],
+				random.nextInt(10) == 0 ? null : random.nextInt(50), random.nextInt(3));
+		product.setRating(random.nextInt(8) == 0 ? null : random.nextInt(6) * 1.0);
+		product.setReviewCount(random.nextInt(8) == 0 ? null : random.nextInt(20));
+		return product;
+	}
+
+	private static Product product(int id, String name, Integer price, int stock) {
+		Product product = new Product();
+		product.setId(id);
+		product.setProductName(name);
+		product.setPrice(price);
+		product.setStock(stock);
+		return product;
+	}
+}
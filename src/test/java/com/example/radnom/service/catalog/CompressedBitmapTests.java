@@ -0,0 +1,156 @@
+package com.example.radnom.service.catalog;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressedBitmapTests {
+
+	private static final int ARRAY_LIMIT = 4096;
+
+	@Test
+	void addAndRemoveAcrossContainerThresholds() {
+		CompressedBitmap bitmap = new CompressedBitmap();
+		TreeSet<Integer> reference = new TreeSet<>();
+
+		// Tablica -> bitmapa przy 4097. wartości w kontenerze
+		for (int value = 0; value <= ARRAY_LIMIT; value++) {
+			bitmap.add(value * 7 % 65536);
+			reference.add(value * 7 % 65536);
+		}
+		assertMatches(reference, bitmap);
+
+		// Bitmapa -> tablica przy zejściu do 2048
+		for (int value = 0; reference.size() > ARRAY_LIMIT / 2 - 10; value++) {
+			bitmap.remove(value * 7 % 65536);
+			reference.remove(value * 7 % 65536);
+			if (reference.size() >= ARRAY_LIMIT / 2 - 2 && reference.size() <= ARRAY_LIMIT / 2 + 2) {
+				assertMatches(reference, bitmap);
+			}
+		}
+		assertMatches(reference, bitmap);
+
+		// Powrót do bitmapy po ponownym wzroście
+		for (int value = 0; value < 65536 && reference.size() <= ARRAY_LIMIT + 10; value += 3) {
+			bitmap.add(value);
+			reference.add(value);
+		}
+		assertMatches(reference, bitmap);
+	}
+
+	@Test
+	void duplicateAddAndMissingRemoveAreNoOps() {
+		CompressedBitmap bitmap = CompressedBitmap.of(new int[]{5, 5, 70000});
+
+		bitmap.remove(6);
+		bitmap.remove(200000);
+
+		assertArrayEquals(new int[]{5, 70000}, bitmap.toArray());
+	}
+
+	@Test
+	void removingLastValueDropsContainer() {
+		CompressedBitmap bitmap = CompressedBitmap.of(new int[]{1, 65536, 131072});
+
+		bitmap.remove(65536);
+		bitmap.remove(1);
+		assertArrayEquals(new int[]{131072}, bitmap.toArray());
+
+		bitmap.remove(131072);
+		assertTrue(bitmap.isEmpty());
+		assertEquals(0, bitmap.cardinality());
+	}
+
+	@Test
+	void setOperationsMatchReferenceAcrossContainers() {
+		Random random = new Random(42);
+		for (int round = 0; round < 20; round++) {
+			TreeSet<Integer> left = randomIds(random);
+			TreeSet<Integer> right = randomIds(random);
+			CompressedBitmap a = bitmapOf(left);
+			CompressedBitmap b = bitmapOf(right);
+
+			TreeSet<Integer> intersection = new TreeSet<>(left);
+			intersection.retainAll(right);
+			TreeSet<Integer> union = new TreeSet<>(left);
+			union.addAll(right);
+
+			assertMatches(intersection, a.and(b));
+			assertMatches(intersection, b.and(a));
+			assertMatches(union, a.or(b));
+			assertMatches(union, b.or(a));
+			assertEquals(intersection.size(), a.andCardinality(b));
+			assertEquals(intersection.size(), b.andCardinality(a));
+
+			// Operacje nie mogą modyfikować argumentów
+			assertMatches(left, a);
+			assertMatches(right, b);
+		}
+	}
+
+	@Test
+	void resultsOfSetOperationsStayMutable() {
+		CompressedBitmap a = CompressedBitmap.of(new int[]{1, 2, 3, 65537});
+		CompressedBitmap b = CompressedBitmap.of(new int[]{2, 3, 4, 65537});
+
+		CompressedBitmap and = a.and(b);
+		and.add(10);
+		and.remove(2);
+		CompressedBitmap or = a.or(b);
+		or.add(131075);
+		CompressedBitmap copy = a.copy();
+		copy.remove(1);
+
+		assertArrayEquals(new int[]{3, 10, 65537}, and.toArray());
+		assertArrayEquals(new int[]{1, 2, 3, 4, 65537, 131075}, or.toArray());
+		assertArrayEquals(new int[]{2, 3, 65537}, copy.toArray());
+		assertArrayEquals(new int[]{1, 2, 3, 65537}, a.toArray());
+	}
+
+	@Test
+	void firstReturnsSmallestIds() {
+		CompressedBitmap bitmap = CompressedBitmap.of(new int[]{200000, 3, 70000, 1});
+
+		assertArrayEquals(new int[]{1, 3}, bitmap.first(2));
+		assertArrayEquals(new int[]{1, 3, 70000, 200000}, bitmap.first(10));
+	}
+
+	// Kontener 0 gęsty, 1 rzadki, 2 losowy wokół progu, 3 pusty albo rzadki
+	private static TreeSet<Integer> randomIds(Random random) {
+		TreeSet<Integer> ids = new TreeSet<>();
+		int dense = 3000 + random.nextInt(6000);
+		while (ids.size() < dense) {
+			ids.add(random.nextInt(65536));
+		}
+		for (int i = 0; i < 50; i++) {
+			ids.add(65536 + random.nextInt(65536));
+		}
+		int nearLimit = ARRAY_LIMIT - 100 + random.nextInt(200);
+		for (int i = 0; i < nearLimit; i++) {
+			ids.add(2 * 65536 + random.nextInt(65536));
+		}
+		if (random.nextBoolean()) {
+			ids.add(5 * 65536 + random.nextInt(65536));
+		}
+		return ids;
+	}
+
+	private static CompressedBitmap bitmapOf(TreeSet<Integer> ids) {
+		CompressedBitmap bitmap = new CompressedBitmap();
+		for (int id : ids) {
+			bitmap.add(id);
+		}
+		return bitmap;
+	}
+
+	private static void assertMatches(TreeSet<Integer> expected, CompressedBitmap actual) {
+		assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), actual.toArray());
+		assertEquals(expected.size(), actual.cardinality());
+		for (int id : expected) {
+			assertTrue(actual.contains(id), () -> "missing " + id);
+		}
+	}
+}
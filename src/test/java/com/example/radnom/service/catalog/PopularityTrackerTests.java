@@ -0,0 +1,156 @@
+package com.example.radnom.service.catalog;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PopularityTrackerTests {
+
+	private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+
+	private final AtomicLong now = new AtomicLong(1_000_000);
+
+	@Test
+	void eventsReachRankingOnlyAfterDrain() {
+		PopularityTracker tracker = tracker(10);
+		tracker.recordView(1);
+		tracker.recordCartAdd(2);
+		tracker.recordView(2);
+		tracker.recordView(null);
+
+		assertEquals(List.of(), tracker.top(10));
+
+		tracker.drain();
+
+		assertEquals(List.of(2, 1), tracker.top(10));
+		assertArrayEquals(new double[]{
+				PopularityTracker.VIEW_WEIGHT,
+				PopularityTracker.CART_ADD_WEIGHT + PopularityTracker.VIEW_WEIGHT,
+				0}, tracker.scores(new int[]{1, 2, 3}), 1e-9);
+	}
+
+	@Test
+	void recentEventsOutrankOlderOnesUnderDecay() {
+		PopularityTracker tracker = tracker(10);
+		record(tracker, 1, 10);
+		tracker.drain();
+
+		// Po godzinie (jedno półtrwanie) 2 zdarzenia ważą jak 4 - wciąż mniej niż 10
+		now.addAndGet(HOUR);
+		record(tracker, 3, 2);
+		tracker.drain();
+
+		// Po 4 godzinach 3 zdarzenia ważą jak 48
+		now.addAndGet(3 * HOUR);
+		record(tracker, 2, 3);
+		tracker.drain();
+
+		assertEquals(List.of(2, 1, 3), tracker.top(10));
+		assertEquals(List.of(2, 1), tracker.top(2));
+	}
+
+	@Test
+	void rescaleKeepsScoresFiniteAndOrder() {
+		PopularityTracker tracker = tracker(10);
+		record(tracker, 1, 100);
+		tracker.drain();
+
+		// 41 półtrwań - współczynnik 2^41 przekracza próg przeskalowania
+		now.addAndGet(41 * HOUR);
+		record(tracker, 2, 1);
+		tracker.drain();
+
+		double[] scores = tracker.scores(new int[]{1, 2});
+		assertEquals(PopularityTracker.VIEW_WEIGHT, scores[1], 1e-9);
+		assertEquals(100 * Math.pow(2, -41), scores[0], 1e-15);
+		assertEquals(List.of(2, 1), tracker.top(10));
+	}
+
+	@Test
+	void newProductTakesOverSmallestCounterWhenFull() {
+		PopularityTracker tracker = tracker(2);
+		record(tracker, 1, 5);
+		record(tracker, 2, 3);
+		tracker.drain();
+
+		record(tracker, 3, 1);
+		tracker.drain();
+
+		assertEquals(2, tracker.size());
+		// Space-Saving: 3 dziedziczy licznik 2 (3 + 1), 2 wypada
+		assertEquals(List.of(1, 3), tracker.top(10));
+		assertArrayEquals(new double[]{5, 0, 4}, tracker.scores(new int[]{1, 2, 3}), 1e-9);
+	}
+
+	@Test
+	void deletedProductLeavesRanking() {
+		PopularityTracker tracker = tracker(10);
+		record(tracker, 1, 2);
+		record(tracker, 2, 1);
+		tracker.drain();
+
+		tracker.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.DELETED, 1, null));
+
+		assertEquals(List.of(2), tracker.top(10));
+	}
+
+	@Test
+	void idleSlotsAreTrimmedWithoutLosingLateEvents() throws Exception {
+		PopularityTracker tracker = tracker(2);
+		for (int id = 1; id <= 5; id++) {
+			record(tracker, id, id);
+		}
+		tracker.drain();
+		Map<Integer, DoubleAdder> slots = new HashMap<>(pendingOf(tracker));
+
+		// Bez zdarzeń przez okres - bufor schodzi do `capacity`
+		tracker.drain();
+		assertEquals(2, tracker.pendingSize());
+
+		// Wątek, który pobrał sumator przed zdjęciem, dodaje do niego już po zdjęciu
+		int trimmed = slots.keySet().stream()
+				.filter(id -> !pendingOf(tracker).containsKey(id))
+				.findFirst()
+				.orElseThrow();
+		assertFalse(tracker.top(10).contains(trimmed));
+		slots.get(trimmed).add(PopularityTracker.CART_ADD_WEIGHT);
+		tracker.drain();
+
+		assertTrue(tracker.top(10).contains(trimmed));
+
+		// Kolejne zdarzenia tego produktu idą do nowego sumatora
+		double score = tracker.scores(new int[]{trimmed})[0];
+		tracker.recordView(trimmed);
+		tracker.drain();
+		assertEquals(score + PopularityTracker.VIEW_WEIGHT, tracker.scores(new int[]{trimmed})[0], 1e-9);
+	}
+
+	private PopularityTracker tracker(int capacity) {
+		return new PopularityTracker(capacity, 1, now::get);
+	}
+
+	private static void record(PopularityTracker tracker, int productId, int views) {
+		for (int i = 0; i < views; i++) {
+			tracker.recordView(productId);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<Integer, DoubleAdder> pendingOf(PopularityTracker tracker) {
+		try {
+			Field field = PopularityTracker.class.getDeclaredField("pending");
+			field.setAccessible(true);
+			return (Map<Integer, DoubleAdder>) field.get(tracker);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,107 @@
+package com.example.radnom.service.catalog;
+
+import com.example.radnom.entity.Product;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceIndexTests {
+
+	@Test
+	void rangeBoundsAreInclusive() {
+		PriceIndex index = build(product(1, 100), product(2, 200), product(3, 300), product(4, 400));
+
+		assertArrayEquals(new int[]{2, 3}, index.findIdsInRange(200, 300));
+		assertArrayEquals(new int[]{2, 3}, index.findIdsInRange(101, 399));
+		assertArrayEquals(new int[]{}, index.findIdsInRange(301, 399));
+		assertArrayEquals(new int[]{}, index.findIdsInRange(300, 200));
+		assertEquals(2, index.countInRange(200, 300));
+		assertEquals(0, index.countInRange(300, 200));
+	}
+
+	@Test
+	void nullBoundsAreOpen() {
+		PriceIndex index = build(product(1, 100), product(2, 200), product(3, 300));
+
+		assertArrayEquals(new int[]{1, 2, 3}, index.findIdsInRange(null, null));
+		assertArrayEquals(new int[]{1, 2}, index.findIdsInRange(null, 200));
+		assertArrayEquals(new int[]{2, 3}, index.findIdsInRange(200, null));
+	}
+
+	@Test
+	void duplicatePricesAreOrderedById() {
+		PriceIndex index = build(product(9, 50), product(3, 50), product(5, 50), product(1, 10), product(7, 90));
+
+		assertArrayEquals(new int[]{1, 3, 5, 9, 7}, index.findIdsInRange(null, null));
+		assertArrayEquals(new int[]{3, 5, 9}, index.findIdsInRange(50, 50));
+		assertEquals(3, index.countInRange(50, 50));
+	}
+
+	@Test
+	void productsWithoutPriceAreSkipped() {
+		PriceIndex index = build(product(1, 100), product(2, null));
+
+		assertArrayEquals(new int[]{1}, index.findIdsInRange(null, null));
+	}
+
+	@Test
+	void saveMovesProductToNewPrice() {
+		PriceIndex index = build(product(1, 100), product(2, 200), product(3, 300));
+
+		index.onProductSaved(product(2, 350));
+		index.onProductSaved(product(4, 200));
+		index.onProductSaved(product(5, 100));
+
+		assertArrayEquals(new int[]{1, 5, 4, 3, 2}, index.findIdsInRange(null, null));
+		assertArrayEquals(new int[]{4}, index.findIdsInRange(200, 200));
+		assertArrayEquals(new int[]{3, 2}, index.findIdsInRange(300, 400));
+	}
+
+	@Test
+	void saveWithoutPriceAndRemoveDropProduct() {
+		PriceIndex index = build(product(1, 100), product(2, 200), product(3, 300));
+
+		index.onProductSaved(product(1, null));
+		index.onProductRemoved(3);
+		index.onProductRemoved(42);
+		index.onProductRemoved(null);
+
+		assertArrayEquals(new int[]{2}, index.findIdsInRange(null, null));
+		assertEquals(0, index.countInRange(100, 100));
+	}
+
+	@Test
+	void incrementalUpdatesGrowBeyondInitialCapacity() {
+		PriceIndex index = build();
+		for (int id = 1; id <= 100; id++) {
+			index.onProductSaved(product(id, 1000 - id));
+		}
+		for (int id = 1; id <= 100; id += 2) {
+			index.onProductRemoved(id);
+		}
+
+		int[] ids = index.findIdsInRange(null, null);
+		assertEquals(50, ids.length);
+		assertEquals(100, ids[0]);
+		assertEquals(2, ids[49]);
+		assertEquals(10, index.countInRange(900, 919));
+	}
+
+	private static PriceIndex build(Product... products) {
+		PriceIndex index = new PriceIndex();
+		ProductIndex.Rebuild rebuild = index.beginRebuild();
+		for (Product product : products) {
+			rebuild.add(product);
+		}
+		rebuild.finish();
+		assertTrue(index.isReady());
+		return index;
+	}
+
+	private static Product product(int id, Integer price) {
+		Product product = new Product();
+		product.setId(id);
+		product.setPrice(price);
+		return product;
+	}
+}
@@ -0,0 +1,160 @@
+package com.example.radnom.service.catalog;
+
+import com.example.radnom.entity.Product;
+import com.example.radnom.service.search.TextAnalyzer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimilarProductsIndexTests {
+
+	private final SimilarProductsIndex index = new SimilarProductsIndex(new TextAnalyzer(), 12, 500, 2);
+
+	@AfterEach
+	void tearDown() {
+		index.shutdown();
+	}
+
+	@Test
+	void fullBuildKeepsNeighboursInsideCategoryOrBrandBlock() throws Exception {
+		build(
+				product(1, "Laptop Dell Inspiron", "Laptopy", "Dell", 3000),
+				product(2, "Laptop Dell Latitude", "Laptopy", "Dell", 3200),
+				product(3, "Laptop Lenovo ThinkPad", "Laptopy", "Lenovo", 3500),
+				product(4, "Monitor Dell UltraSharp", "Monitory", "Dell", 1500),
+				product(5, "Monitor LG UltraGear", "Monitory", "LG", 1200),
+				product(6, "Kubek ceramiczny", "Kuchnia", null, 30));
+
+		assertTrue(index.isReady());
+		assertEquals(List.of(2, 3, 4), sorted(index.similar(1, 10)));
+		assertEquals(List.of(1, 2, 5), sorted(index.similar(4, 10)));
+		assertEquals(List.of(4), sorted(index.similar(5, 10)));
+		// Jedyny w swojej kategorii i bez marki - jest w tabeli, ale bez sąsiadów
+		assertEquals(Optional.of(List.of()), index.similar(6, 10));
+		assertEquals(Optional.empty(), index.similar(99, 10));
+	}
+
+	@Test
+	void identicalProductRanksFirstAndLimitTruncates() throws Exception {
+		build(
+				product(1, "Laptop Dell Inspiron", "Laptopy", "Dell", 3000),
+				product(2, "Laptop Lenovo ThinkPad", "Laptopy", "Lenovo", 9000),
+				product(3, "Laptop Dell Inspiron", "Laptopy", "Dell", 3000),
+				product(4, "Laptop Asus Zenbook", "Laptopy", "Asus", 5000));
+
+		List<Integer> neighbours = index.similar(1, 10).orElseThrow();
+		assertEquals(3, neighbours.get(0));
+		assertEquals(3, neighbours.size());
+		assertEquals(List.of(3), index.similar(1, 1).orElseThrow());
+	}
+
+	@Test
+	void savedProductJoinsNeighbourLists() throws Exception {
+		build(
+				product(1, "Laptop Dell Inspiron", "Laptopy", "Dell", 3000),
+				product(2, "Laptop Lenovo ThinkPad", "Laptopy", "Lenovo", 3500),
+				product(3, "Kubek ceramiczny", "Kuchnia", null, 30));
+
+		index.onProductSaved(product(4, "Laptop Dell Inspiron", "Laptopy", "Dell", 3000));
+		awaitWorker();
+
+		assertEquals(4, index.similar(1, 10).orElseThrow().get(0));
+		assertTrue(index.similar(2, 10).orElseThrow().contains(4));
+		assertEquals(List.of(1, 2), sorted(index.similar(4, 10)));
+		assertFalse(index.similar(3, 10).orElseThrow().contains(4));
+	}
+
+	@Test
+	void savedProductMovedToOtherCategoryLeavesOldLists() throws Exception {
+		build(
+				product(1, "Laptop Dell Inspiron", "Laptopy", "Dell", 3000),
+				product(2, "Laptop Lenovo ThinkPad", "Laptopy", "Lenovo", 3500),
+				product(3, "Laptop Asus Zenbook", "Laptopy", "Asus", 4000),
+				product(4, "Monitor LG UltraGear", "Monitory", "LG", 1200));
+
+		index.onProductSaved(product(2, "Monitor Lenovo Legion", "Monitory", "Lenovo", 1400));
+		awaitWorker();
+
+		assertEquals(List.of(4), sorted(index.similar(2, 10)));
+		assertTrue(index.similar(4, 10).orElseThrow().contains(2));
+		// Unlink zdejmuje produkt z list, na których był - także spoza nowego bloku
+		assertFalse(index.similar(1, 10).orElseThrow().contains(2));
+		assertFalse(index.similar(3, 10).orElseThrow().contains(2));
+	}
+
+	@Test
+	void removedProductDisappearsFromAllLists() throws Exception {
+		build(
+				product(1, "Laptop Dell Inspiron", "Laptopy", "Dell", 3000),
+				product(2, "Laptop Dell Latitude", "Laptopy", "Dell", 3200),
+				product(3, "Laptop Lenovo ThinkPad", "Laptopy", "Lenovo", 3500),
+				product(4, "Monitor Dell UltraSharp", "Monitory", "Dell", 1500));
+
+		index.onProductRemoved(2);
+		awaitWorker();
+
+		assertEquals(Optional.empty(), index.similar(2, 10));
+		for (int id : new int[]{1, 3, 4}) {
+			assertFalse(index.similar(id, 10).orElseThrow().contains(2), "lista produktu " + id);
+		}
+
+		// Pełne przeliczenie po zmianach nie przywraca usuniętego
+		index.refresh();
+		awaitWorker();
+		assertEquals(Optional.empty(), index.similar(2, 10));
+		assertEquals(List.of(3, 4), sorted(index.similar(1, 10)));
+	}
+
+	@Test
+	void shutdownStopsWorkerAndPool() throws Exception {
+		ExecutorService worker = (ExecutorService) field("worker").get(index);
+		ForkJoinPool pool = (ForkJoinPool) field("pool").get(index);
+
+		index.shutdown();
+
+		assertTrue(worker.isShutdown());
+		assertTrue(pool.isShutdown());
+	}
+
+	private void build(Product... products) throws Exception {
+		ProductIndex.Rebuild rebuild = index.beginRebuild();
+		for (Product product : products) {
+			rebuild.add(product);
+		}
+		rebuild.finish();
+		awaitWorker();
+	}
+
+	// Worker jest jednowątkowy - puste zadanie kończy się po wszystkim, co zlecono wcześniej
+	private void awaitWorker() throws Exception {
+		((ExecutorService) field("worker").get(index)).submit(() -> { }).get();
+	}
+
+	private static Field field(String name) throws NoSuchFieldException {
+		Field field = SimilarProductsIndex.class.getDeclaredField(name);
+		field.setAccessible(true);
+		return field;
+	}
+
+	private static List<Integer> sorted(Optional<List<Integer>> ids) {
+		return ids.orElseThrow().stream().sorted().toList();
+	}
+
+	private static Product product(int id, String name, String category, String brand, int price) {
+		Product product = new Product();
+		product.setId(id);
+		product.setProductName(name);
+		product.setCategory(category);
+		product.setBrand(brand);
+		product.setPrice(price);
+		product.setRating(4.0);
+		return product;
+	}
+}
@@ -0,0 +1,110 @@
+package com.example.radnom.service.catalog;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTests {
+
+	@Test
+	void failurePropagatesToLeaderAndWaiters() throws Exception {
+		SingleFlight<Integer, String> flight = new SingleFlight<>("test", Duration.ofSeconds(5));
+		CountDownLatch release = new CountDownLatch(1);
+		IllegalStateException failure = new IllegalStateException("database down");
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<String> leader = executor.submit(() -> flight.execute(1, () -> {
+				await(release);
+				throw failure;
+			}));
+			waitUntil(() -> flight.stats().getInFlight() == 1);
+
+			Future<String> waiter = executor.submit(() -> flight.execute(1, () -> "not called"));
+			waitUntil(() -> flight.stats().getCoalesced() == 1);
+			release.countDown();
+
+			ExecutionException leaderError = assertThrows(ExecutionException.class, leader::get);
+			ExecutionException waiterError = assertThrows(ExecutionException.class, waiter::get);
+			assertSame(failure, leaderError.getCause());
+			assertSame(failure, waiterError.getCause());
+			assertEquals(1, flight.stats().getExecutions());
+			assertEquals(1, flight.stats().getFailures());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void releasesKeyAfterFailure() {
+		SingleFlight<Integer, String> flight = new SingleFlight<>("test", Duration.ofSeconds(5));
+
+		assertThrows(IllegalStateException.class, () -> flight.execute(1, () -> {
+			throw new IllegalStateException("first attempt");
+		}));
+
+		assertEquals(0, flight.stats().getInFlight());
+		assertEquals("second attempt", flight.execute(1, () -> "second attempt"));
+		assertEquals(2, flight.stats().getExecutions());
+	}
+
+	@Test
+	void releasesKeyAfterSuccess() {
+		SingleFlight<Integer, String> flight = new SingleFlight<>("test", Duration.ofSeconds(5));
+		AtomicInteger loads = new AtomicInteger();
+
+		assertEquals("1", flight.execute(7, () -> String.valueOf(loads.incrementAndGet())));
+		assertEquals("2", flight.execute(7, () -> String.valueOf(loads.incrementAndGet())));
+
+		assertEquals(0, flight.stats().getInFlight());
+		assertEquals(0, flight.stats().getCoalesced());
+	}
+
+	@Test
+	void waiterTimesOutWhileLeaderKeepsLoading() throws Exception {
+		SingleFlight<Integer, String> flight = new SingleFlight<>("test", Duration.ofMillis(50));
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<String> leader = executor.submit(() -> flight.execute(1, () -> {
+				await(release);
+				return "loaded";
+			}));
+			waitUntil(() -> flight.stats().getInFlight() == 1);
+
+			assertThrows(SingleFlight.WaitTimeoutException.class, () -> flight.execute(1, () -> "not called"));
+
+			release.countDown();
+			assertEquals("loaded", leader.get(5, TimeUnit.SECONDS));
+			assertEquals(1, flight.stats().getTimeouts());
+			assertEquals(0, flight.stats().getInFlight());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			if (!latch.await(5, TimeUnit.SECONDS)) {
+				throw new IllegalStateException("Latch not released");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!condition.getAsBoolean()) {
+			if (System.nanoTime() > deadline) {
+				fail("Condition not met in time");
+			}
+			Thread.sleep(1);
+		}
+	}
+}
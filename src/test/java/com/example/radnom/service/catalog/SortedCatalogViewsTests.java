@@ -0,0 +1,107 @@
+package com.example.radnom.service.catalog;
+
+import com.example.radnom.entity.Product;
+import com.example.radnom.repository.ProductSort;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SortedCatalogViewsTests {
+
+	// Kolejność jak ORDER BY product_name, product_id w MySQL (utf8mb4_0900_ai_ci):
+	// NULL pierwszy, bez wielkości liter i diakrytyków, remis po id
+	@Test
+	void nameOrderMatchesDatabaseCollation() {
+		SortedCatalogViews views = build(
+				product(1, "banan", 10, null, 1),
+				product(2, "Łódka", 20, 4.0, 2),
+				product(3, "Ananas", 30, 3.0, null),
+				product(4, null, 40, 5.0, 4),
+				product(5, "Banan", 50, 1.0, 5),
+				product(6, "lody", 60, 2.0, 6),
+				product(7, "ąbc", 70, 2.0, 7));
+
+		assertEquals(List.of(4, 7, 3, 1, 5, 2, 6), views.top(ProductSort.NAME_ASC, 10));
+		assertEquals(List.of(6, 2, 5, 1, 3, 7, 4), views.top(ProductSort.NAME_DESC, 10));
+	}
+
+	@Test
+	void nullKeysComeFirstAscendingAndLastDescending() {
+		SortedCatalogViews views = build(
+				product(1, "a", 30, 4.5, 10),
+				product(2, "b", null, null, null),
+				product(3, "c", 10, 4.5, 3),
+				product(4, "d", 30, 1.0, 3));
+
+		assertEquals(List.of(2, 3, 1, 4), views.top(ProductSort.PRICE_ASC, 10));
+		assertEquals(List.of(4, 1, 3, 2), views.top(ProductSort.PRICE_DESC, 10));
+		assertEquals(List.of(2, 4, 1, 3), views.top(ProductSort.RATING_ASC, 10));
+		assertEquals(List.of(3, 1, 4, 2), views.top(ProductSort.RATING_DESC, 10));
+		assertEquals(List.of(1, 4, 3, 2), views.top(ProductSort.REVIEWS_DESC, 10));
+		assertEquals(List.of(2, 3), views.top(ProductSort.REVIEWS_ASC, 2));
+	}
+
+	@Test
+	void viewsMatchComparatorUsedForDatabaseMerge() {
+		List<Product> products = new ArrayList<>();
+		String[] names = {"Kabel", "kabel", "Kąbel", null, "Żelazko", "zegar", "Ćma", "cma", "Ładowarka", "lampa"};
+		for (int id = 1; id <= 40; id++) {
+			products.add(product(id, names[id % names.length], id % 7 == 0 ? null : (id * 37) % 11,
+					id % 5 == 0 ? null : (id % 4) * 1.5, id % 6 == 0 ? null : id % 3));
+		}
+		SortedCatalogViews views = build(products.toArray(new Product[0]));
+
+		for (ProductSort sort : ProductSort.values()) {
+			Comparator<Product> comparator = sort.comparator(sort::keyOf, Product::getId);
+			List<Integer> expected = products.stream().sorted(comparator).map(Product::getId).toList();
+			assertEquals(expected, views.top(sort, 100), sort.name());
+		}
+	}
+
+	@Test
+	void savedAndRemovedProductsMoveInViews() {
+		SortedCatalogViews views = build(
+				product(1, "a", 10, 1.0, 1),
+				product(2, "b", 20, 2.0, 2),
+				product(3, "c", 30, 3.0, 3));
+
+		views.onProductSaved(product(1, "a", 40, 1.0, 1));
+		views.onProductSaved(product(2, "b", null, 2.0, 2));
+		views.onProductRemoved(3);
+
+		assertEquals(List.of(2, 1), views.top(ProductSort.PRICE_ASC, 10));
+		assertEquals(List.of(1), views.top(ProductSort.PRICE_DESC, 1));
+	}
+
+	@Test
+	void nameKeyFoldsCaseAndPolishDiacritics() {
+		assertEquals("zolw lodka", ProductSort.nameKey("ŻÓŁW Łódka"));
+		assertEquals("cma", ProductSort.nameKey("Ćma"));
+		assertNull(ProductSort.nameKey(null));
+	}
+
+	private static SortedCatalogViews build(Product... products) {
+		SortedCatalogViews views = new SortedCatalogViews();
+		ProductIndex.Rebuild rebuild = views.beginRebuild();
+		for (Product product : products) {
+			rebuild.add(product);
+		}
+		rebuild.finish();
+		assertTrue(views.isReady());
+		return views;
+	}
+
+	private static Product product(int id, String name, Integer price, Double rating, Integer reviews) {
+		Product product = new Product();
+		product.setId(id);
+		product.setProductName(name);
+		product.setPrice(price);
+		product.setRating(rating);
+		product.setReviewCount(reviews);
+		return product;
+	}
+}
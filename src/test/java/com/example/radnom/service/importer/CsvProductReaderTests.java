@@ -0,0 +1,85 @@
+package com.example.radnom.service.importer;
+
+import com.example.radnom.entity.Product;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvProductReaderTests {
+
+	@Test
+	void readsQuotedFieldsWithCommas() throws IOException {
+		CsvProductReader reader = reader("product_name,price,category\n"
+				+ "\"Laptop, 15 cali\",3999,\"Elektronika\"\n");
+
+		Product product = reader.next();
+
+		assertEquals("Laptop, 15 cali", product.getProductName());
+		assertEquals(3999, product.getPrice());
+		assertEquals("Elektronika", product.getCategory());
+		assertNull(reader.next());
+	}
+
+	@Test
+	void unescapesDoubledQuotes() throws IOException {
+		CsvProductReader reader = reader("product_name,price\n"
+				+ "\"Monitor 27\"\" 4K\",1299\n"
+				+ "\"\"\"Cytat\"\"\",10\n");
+
+		assertEquals("Monitor 27\" 4K", reader.next().getProductName());
+		assertEquals("\"Cytat\"", reader.next().getProductName());
+		assertNull(reader.next());
+	}
+
+	@Test
+	void keepsNewlinesInsideQuotedFields() throws IOException {
+		CsvProductReader reader = reader("product_name,price,description\r\n"
+				+ "Mysz,49,\"Pierwsza linia\nDruga linia\"\r\n"
+				+ "Kabel,9,Bez cudzysłowu\r\n");
+
+		Product first = reader.next();
+		assertEquals("Mysz", first.getProductName());
+		assertEquals("Pierwsza linia\nDruga linia", first.getDescription());
+		assertEquals(3, reader.lineNumber());
+
+		Product second = reader.next();
+		assertEquals("Kabel", second.getProductName());
+		assertEquals("Bez cudzysłowu", second.getDescription());
+		assertEquals(4, reader.lineNumber());
+		assertNull(reader.next());
+	}
+
+	@Test
+	void mapsHeaderAliasesAndSkipsUnknownColumns() throws IOException {
+		CsvProductReader reader = reader("\uFEFFProduct Name,ignored,PRICE,review_count\n"
+				+ "Słuchawki,x,199,12\n"
+				+ "\n");
+
+		Product product = reader.next();
+
+		assertEquals("Słuchawki", product.getProductName());
+		assertEquals(199, product.getPrice());
+		assertEquals(12, product.getReviewCount());
+		assertNull(reader.next());
+	}
+
+	@Test
+	void rejectsUnterminatedQuotedField() {
+		CsvProductReader reader = reader("product_name,price\n\"Bez końca,10\n");
+
+		assertThrows(IllegalArgumentException.class, reader::next);
+	}
+
+	@Test
+	void rejectsHeaderWithoutRequiredColumns() {
+		assertThrows(IllegalArgumentException.class, () -> reader("product_name,category\nA,B\n"));
+	}
+
+	private static CsvProductReader reader(String csv) {
+		return new CsvProductReader(new BufferedReader(new StringReader(csv)));
+	}
+}
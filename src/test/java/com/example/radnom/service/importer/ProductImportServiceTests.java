@@ -0,0 +1,86 @@
+package com.example.radnom.service.importer;
+
+import com.example.radnom.entity.Product;
+import com.example.radnom.entity.dto.ProductImportStatusDTO;
+import com.example.radnom.service.catalog.ProductChangedEvent;
+import com.example.radnom.service.catalog.ProductEntityListener;
+import com.example.radnom.service.catalog.ProductIndexer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ProductImportServiceTests {
+
+	@Test
+	void importPublishesNoPerRowEvents() throws Exception {
+		ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+		// Osobna instancja jak ta, którą Hibernate tworzy przez SpringBeanContainer
+		ProductEntityListener hibernateListener = new ProductEntityListener(publisher, mock(JdbcTemplate.class));
+		EntityManager entityManager = mock(EntityManager.class);
+		doAnswer(invocation -> {
+			hibernateListener.afterInsert(invocation.getArgument(0));
+			return null;
+		}).when(entityManager).persist(any(Product.class));
+
+		PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+		when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+		ProductIndexer indexer = mock(ProductIndexer.class);
+
+		ProductImportService service = new ProductImportService(entityManager, new ObjectMapper(), indexer,
+				transactionManager, 2);
+		String csv = "product_name,price\nLaptop,3999\nMysz,49\nKabel,9\n";
+		ProductImportStatusDTO job = service.submit(
+				new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), ProductImportFormat.CSV);
+
+		ProductImportStatusDTO status = awaitFinished(service, job.getJobId());
+		service.shutdown();
+
+		assertEquals("COMPLETED", status.getStatus());
+		assertEquals(3, status.getImportedRows());
+		verify(entityManager, times(3)).persist(any(Product.class));
+		verify(publisher, never()).publishEvent(any(ProductChangedEvent.class));
+		verify(publisher, never()).publishEvent(any(Object.class));
+		verify(indexer, times(1)).rebuildAll();
+	}
+
+	@Test
+	void listenerPublishesOutsideImport() {
+		ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+		ProductEntityListener listener = new ProductEntityListener(publisher, mock(JdbcTemplate.class));
+		Product product = new Product();
+		product.setId(1);
+
+		listener.afterUpdate(product);
+		ProductEntityListener.withoutEvents(() -> {
+			listener.afterUpdate(product);
+			return null;
+		});
+
+		verify(publisher, times(1)).publishEvent(any(ProductChangedEvent.class));
+	}
+
+	private static ProductImportStatusDTO awaitFinished(ProductImportService service, String jobId)
+			throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (System.nanoTime() < deadline) {
+			ProductImportStatusDTO status = service.getStatus(jobId).orElseThrow();
+			if ("COMPLETED".equals(status.getStatus()) || "FAILED".equals(status.getStatus())) {
+				return status;
+			}
+			Thread.sleep(10);
+		}
+		return fail("Import did not finish");
+	}
+}
@@ -0,0 +1,130 @@
+package com.example.radnom.service.search;
+
+import com.example.radnom.entity.Product;
+import com.example.radnom.entity.dto.QuickSearchResultDTO;
+import com.example.radnom.service.catalog.PopularityTracker;
+import com.example.radnom.service.catalog.ProductIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AutocompleteIndexTests {
+
+	@Test
+	void prefixMatchesNameWordsAndCategoryWithoutDiacritics() {
+		AutocompleteIndex index = build(new PopularityTracker(100, 24),
+				product(1, "Słuchawki bezprzewodowe", "Audio", 10),
+				product(2, "Laptop gamingowy", "Komputery", 5),
+				product(3, "Mysz gamingowa", "Akcesoria", 1));
+
+		assertEquals(List.of(1), ids(index.complete("sluch", 10)));
+		assertEquals(List.of(1), ids(index.complete("Bezprz", 10)));
+		assertEquals(List.of(2, 3), ids(index.complete("gaming", 10)));
+		assertEquals(List.of(2), ids(index.complete("laptop gam", 10)));
+		assertEquals(List.of(2), ids(index.complete("komp", 10)));
+		assertEquals(List.of(), ids(index.complete("tablet", 10)));
+		assertEquals(List.of(), ids(index.complete("  ", 10)));
+	}
+
+	@Test
+	void topSuggestionsFollowReviewsOnColdStart() {
+		PopularityTracker tracker = new PopularityTracker(100, 24);
+		Product[] products = new Product[40];
+		for (int i = 0; i < products.length; i++) {
+			products[i] = product(i + 1, "Kabel " + i, "Akcesoria", (i * 7) % 40);
+		}
+		AutocompleteIndex index = build(tracker, products);
+
+		List<Integer> top = ids(index.complete("kab", 50));
+
+		assertEquals(AutocompleteIndex.MAX_SUGGESTIONS, top.size());
+		// Opinie 39, 38, 37, ... -> produkty i + 1 dla 7i ≡ 39, 38, 37, ... (mod 40)
+		assertEquals(List.of(18, 35, 12, 29, 6, 23, 40, 17, 34, 11), top);
+		assertEquals(List.of(18, 35, 12), ids(index.complete("kab", 3)));
+	}
+
+	@Test
+	void popularProductsMoveAheadOfReviewOrder() {
+		PopularityTracker tracker = new PopularityTracker(100, 24);
+		AutocompleteIndex index = build(tracker,
+				product(1, "Kabel HDMI", "Akcesoria", 100),
+				product(2, "Kabel USB", "Akcesoria", 50),
+				product(3, "Kabel audio", "Akcesoria", 10));
+
+		tracker.recordCartAdd(3);
+		tracker.recordView(2);
+		tracker.drain();
+
+		assertEquals(List.of(3, 2, 1), ids(index.complete("kabel", 10)));
+	}
+
+	@Test
+	void saveAndRemoveUpdateSuggestions() {
+		AutocompleteIndex index = build(new PopularityTracker(100, 24),
+				product(1, "Kabel HDMI", "Akcesoria", 100),
+				product(2, "Kabel USB", "Akcesoria", 50));
+
+		index.onProductSaved(product(3, "Kabel audio", "Akcesoria", 200));
+		assertEquals(List.of(3, 1, 2), ids(index.complete("kabel", 10)));
+
+		// Zmiana nazwy - stare klucze znikają, nowe działają
+		index.onProductSaved(product(1, "Przejściówka HDMI", "Akcesoria", 100));
+		assertEquals(List.of(3, 2), ids(index.complete("kabel", 10)));
+		assertEquals(List.of(1), ids(index.complete("przejsc", 10)));
+		assertEquals(List.of(1), ids(index.complete("hdmi", 10)));
+
+		// Zmiana liczby opinii przestawia kolejność
+		index.onProductSaved(product(2, "Kabel USB", "Akcesoria", 500));
+		assertEquals(List.of(2, 3), ids(index.complete("kabel", 10)));
+
+		index.onProductRemoved(3);
+		index.onProductRemoved(99);
+		assertEquals(List.of(2), ids(index.complete("kabel", 10)));
+		assertEquals(List.of(2, 1), ids(index.complete("akces", 10)));
+
+		index.onProductRemoved(2);
+		assertEquals(List.of(), ids(index.complete("kabel", 10)));
+		assertEquals(List.of(1), ids(index.complete("akces", 10)));
+	}
+
+	@Test
+	void removalRefillsTopFromDeeperProducts() {
+		Product[] products = new Product[50];
+		for (int i = 0; i < products.length; i++) {
+			products[i] = product(i + 1, "Lampa " + i, "Dom", 1000 - i);
+		}
+		AutocompleteIndex index = build(new PopularityTracker(100, 24), products);
+
+		for (int id = 1; id <= 35; id++) {
+			index.onProductRemoved(id);
+		}
+
+		assertEquals(List.of(36, 37, 38, 39, 40, 41, 42, 43, 44, 45), ids(index.complete("lam", 10)));
+	}
+
+	private static AutocompleteIndex build(PopularityTracker tracker, Product... products) {
+		AutocompleteIndex index = new AutocompleteIndex(tracker);
+		ProductIndex.Rebuild rebuild = index.beginRebuild();
+		for (Product product : products) {
+			rebuild.add(product);
+		}
+		rebuild.finish();
+		assertTrue(index.isReady());
+		return index;
+	}
+
+	private static Product product(int id, String name, String category, int reviews) {
+		Product product = new Product();
+		product.setId(id);
+		product.setProductName(name);
+		product.setCategory(category);
+		product.setReviewCount(reviews);
+		return product;
+	}
+
+	private static List<Integer> ids(List<QuickSearchResultDTO> results) {
+		return results.stream().map(QuickSearchResultDTO::getId).toList();
+	}
+}
@@ -0,0 +1,195 @@
+package com.example.radnom.service.search;
+
+import com.example.radnom.entity.Product;
+import com.example.radnom.service.catalog.ProductIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// MaxScore pomija kandydatów i przerywa liczenie wyniku - ranking musi być taki sam jak przy
+// policzeniu BM25F dla każdego dokumentu (liczonego tutaj niezależnie od silnika)
+class InvertedIndexSearchEngineTests {
+
+	private static final double K1 = 1.2;
+	private static final double B = 0.75;
+	private static final double PREFIX_WEIGHT = 0.7;
+	private static final double EPSILON = 1e-9;
+
+	private static final String[] WORDS = {
+			"laptop", "mysz", "kabel", "monitor", "drukarka", "router", "tablet", "glosnik",
+			"dysk", "zasilacz", "procesor", "klawiatura", "etui", "wentylator", "telefon", "tel"};
+	private static final String[] CATEGORIES = {"Elektronika", "Akcesoria", "Biuro"};
+	private static final String[] BRANDS = {"Dell", "Logitech", "Samsung", "Lenovo"};
+
+	private final TextAnalyzer analyzer = new TextAnalyzer();
+
+	@Test
+	void maxScoreRankingEqualsExhaustiveBm25() {
+		List<Product> products = corpus(400, new Random(42));
+		InvertedIndexSearchEngine engine = engine(products);
+
+		for (String query : new String[]{"laptop", "mysz kabel", "monitor dell", "drukarka biuro etui",
+				"klawiatura logitech tel", "zasilacz procesor wentylator router"}) {
+			List<Map.Entry<Integer, Double>> expected = exhaustive(products, query);
+			for (int k : new int[]{1, 5, 24, products.size()}) {
+				assertSameRanking(query, k, expected, engine.searchRanked(query, k, false));
+			}
+		}
+	}
+
+	@Test
+	void rankingFollowsIncrementalUpdates() {
+		Random random = new Random(7);
+		List<Product> products = corpus(200, random);
+		InvertedIndexSearchEngine engine = engine(products);
+
+		for (int i = 0; i < 50; i++) {
+			int index = random.nextInt(products.size());
+			Product updated = product(products.get(index).getId(), random);
+			products.set(index, updated);
+			engine.onProductSaved(updated);
+		}
+		Product removed = products.remove(0);
+		engine.onProductRemoved(removed.getId());
+
+		String query = "laptop monitor tel";
+		assertSameRanking(query, 10, exhaustive(products, query), engine.searchRanked(query, 10, false));
+	}
+
+	// ========== PRIVATE ==========
+
+	private void assertSameRanking(String query, int k, List<Map.Entry<Integer, Double>> expected, List<Integer> actual) {
+		Map<Integer, Double> scores = new HashMap<>();
+		expected.forEach(entry -> scores.put(entry.getKey(), entry.getValue()));
+
+		assertEquals(Math.min(k, expected.size()), actual.size(), () -> query + " k=" + k);
+		for (int i = 0; i < actual.size(); i++) {
+			int position = i;
+			// Remisy mogą się ułożyć inaczej przez kolejność sumowania - porównujemy wyniki
+			assertTrue(scores.containsKey(actual.get(i)), () -> query + ": unexpected " + actual.get(position));
+			assertEquals(expected.get(i).getValue(), scores.get(actual.get(i)), EPSILON,
+					() -> query + " k=" + k + " position " + position);
+		}
+	}
+
+	private List<Map.Entry<Integer, Double>> exhaustive(List<Product> products, String query) {
+		Map<Integer, Map<String, int[]>> frequencies = new HashMap<>();
+		Map<Integer, int[]> lengths = new HashMap<>();
+		Map<String, Integer> documentFrequency = new HashMap<>();
+		double[] totalLengths = new double[SearchField.values().length];
+
+		for (Product product : products) {
+			Map<String, int[]> perTerm = new HashMap<>();
+			int[] fieldLengths = new int[SearchField.values().length];
+			addField(perTerm, fieldLengths, SearchField.NAME, product.getProductName());
+			addField(perTerm, fieldLengths, SearchField.CATEGORY, product.getCategory());
+			addField(perTerm, fieldLengths, SearchField.BRAND, product.getBrand());
+			addField(perTerm, fieldLengths, SearchField.DESCRIPTION, product.getDescription());
+			frequencies.put(product.getId(), perTerm);
+			lengths.put(product.getId(), fieldLengths);
+			perTerm.keySet().forEach(term -> documentFrequency.merge(term, 1, Integer::sum));
+			for (int f = 0; f < fieldLengths.length; f++) {
+				totalLengths[f] += fieldLengths[f];
+			}
+		}
+
+		int n = products.size();
+		double[] averageLengths = new double[totalLengths.length];
+		for (int f = 0; f < totalLengths.length; f++) {
+			averageLengths[f] = Math.max(1.0, totalLengths[f] / n);
+		}
+
+		Map<String, Double> weights = queryWeights(analyzer.analyzeQuery(query), documentFrequency);
+		List<Map.Entry<Integer, Double>> ranked = new ArrayList<>();
+		for (Product product : products) {
+			double score = 0;
+			boolean matched = false;
+			for (Map.Entry<String, Double> weight : weights.entrySet()) {
+				int[] perField = frequencies.get(product.getId()).get(weight.getKey());
+				if (perField == null) {
+					continue;
+				}
+				matched = true;
+				int df = documentFrequency.get(weight.getKey());
+				double idf = Math.log(1 + (n - df + 0.5) / (df + 0.5));
+				double tf = 0;
+				for (SearchField field : SearchField.values()) {
+					int f = field.ordinal();
+					if (perField[f] > 0) {
+						double norm = 1 - B + B * lengths.get(product.getId())[f] / averageLengths[f];
+						tf += field.getBoost() * perField[f] / norm;
+					}
+				}
+				score += weight.getValue() * idf * tf * (K1 + 1) / (K1 + tf);
+			}
+			if (matched) {
+				ranked.add(Map.entry(product.getId(), score));
+			}
+		}
+		ranked.sort(Map.Entry.<Integer, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+		return ranked;
+	}
+
+	// Dokładne terminy z wagą 1, ostatni token także jako prefiks innych terminów (słownik jest mały)
+	private static Map<String, Double> queryWeights(List<String> tokens, Map<String, Integer> documentFrequency) {
+		Map<String, Double> weights = new HashMap<>();
+		for (int i = 0; i < tokens.size(); i++) {
+			String token = tokens.get(i);
+			if (documentFrequency.containsKey(token)) {
+				weights.merge(token, 1.0, Math::max);
+			}
+			if (i == tokens.size() - 1) {
+				for (String term : documentFrequency.keySet()) {
+					if (term.startsWith(token) && !term.equals(token)) {
+						weights.merge(term, PREFIX_WEIGHT, Math::max);
+					}
+				}
+			}
+		}
+		return weights;
+	}
+
+	private void addField(Map<String, int[]> perTerm, int[] fieldLengths, SearchField field, String text) {
+		List<String> terms = analyzer.analyze(text);
+		fieldLengths[field.ordinal()] = terms.size();
+		for (String term : terms) {
+			perTerm.computeIfAbsent(term, key -> new int[SearchField.values().length])[field.ordinal()]++;
+		}
+	}
+
+	private InvertedIndexSearchEngine engine(List<Product> products) {
+		InvertedIndexSearchEngine engine = new InvertedIndexSearchEngine(analyzer);
+		ProductIndex.Rebuild rebuild = engine.beginRebuild();
+		products.forEach(rebuild::add);
+		rebuild.finish();
+		return engine;
+	}
+
+	private static List<Product> corpus(int size, Random random) {
+		List<Product> products = new ArrayList<>();
+		for (int id = 1; id <= size; id++) {
+			products.add(product(id, random));
+		}
+		return products;
+	}
+
+	private static Product product(int id, Random random) {
+		Product product = new Product();
+		product.setId(id);
+		product.setProductName(words(random, 1 + random.nextInt(3)));
+		product.setDescription(words(random, random.nextInt(25)));
+		product.setCategory(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+		product.setBrand(BRANDS[random.nextInt(BRANDS.length)]);
+		return product;
+	}
+
+	private static String words(Random random, int count) {
+		StringJoiner joiner = new StringJoiner(" ");
+		for (int i = 0; i < count; i++) {
+			joiner.add(WORDS[random.nextInt(WORDS.length)]);
+		}
+		return joiner.toString();
+	}
+}
@@ -0,0 +1,167 @@
+package com.example.radnom.service.search;
+
+import com.example.radnom.entity.Product;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchResultCacheTests {
+
+	private final SearchResultCache cache = new SearchResultCache(new TextAnalyzer(), 1_000_000);
+
+	@Test
+	void repeatedLookupIsServedFromCache() {
+		SearchResultCache.Lookup lookup = cache.analyzed("search", "Laptopów", false, "", product -> true);
+
+		assertTrue(searched(lookup, 1, 2));
+		assertFalse(searched(cache.analyzed("search", "laptop", false, "", product -> true), 1, 2));
+	}
+
+	@Test
+	void changeOfListedProductInvalidates() {
+		SearchResultCache.Lookup lookup = cache.analyzed("search", "laptop", false, "", product -> true);
+		searched(lookup, 1, 2);
+
+		// Produkt 2 przestał pasować - jest na liście, więc wpis wypada
+		cache.onProductChanged(product(2, "Monitor", "Monitory"), 2, false);
+
+		assertTrue(searched(lookup, 1));
+	}
+
+	@Test
+	void deletedListedProductInvalidates() {
+		SearchResultCache.Lookup lookup = cache.analyzed("search", "laptop", false, "", product -> true);
+		searched(lookup, 1, 2);
+
+		cache.onProductChanged(null, 1, true);
+
+		assertTrue(searched(lookup, 2));
+	}
+
+	@Test
+	void unrelatedChangesKeepEntry() {
+		SearchResultCache.Lookup lookup = cache.analyzed("search", "laptop", false, "", product -> true);
+		searched(lookup, 1, 2);
+
+		cache.onProductChanged(product(3, "Myszka bezprzewodowa", "Akcesoria"), 3, false);
+		cache.onProductChanged(null, 4, true);
+
+		assertFalse(searched(lookup, 1, 2));
+	}
+
+	@Test
+	void newProductMatchingTermOrPrefixInvalidates() {
+		SearchResultCache.Lookup exact = cache.analyzed("search", "laptop", false, "", product -> true);
+		SearchResultCache.Lookup prefix = cache.analyzed("search", "gaming lap", false, "", product -> true);
+		searched(exact, 1);
+		searched(prefix, 1);
+
+		cache.onProductChanged(product(5, "Laptopy biurowe", "Komputery"), 5, false);
+
+		assertTrue(searched(exact, 1, 5));
+		assertTrue(searched(prefix, 1, 5));
+	}
+
+	@Test
+	void fuzzyEntryInvalidatedByTermWithinTwoEdits() {
+		SearchResultCache.Lookup fuzzy = cache.analyzed("fuzzy", "klawaitura", true, "", product -> true);
+		SearchResultCache.Lookup exact = cache.analyzed("search", "klawaitura", false, "", product -> true);
+		searched(fuzzy);
+		searched(exact);
+
+		cache.onProductChanged(product(6, "Klawiatura mechaniczna", "Akcesoria"), 6, false);
+
+		assertTrue(searched(fuzzy, 6));
+		assertFalse(searched(exact));
+	}
+
+	@Test
+	void entryFilterDecidesWhetherNewProductCanJoin() {
+		SearchResultCache.Lookup cheap = cache.analyzed("search", "laptop", false, "max=1000",
+				product -> product.getPrice() != null && product.getPrice() <= 1000);
+		searched(cheap, 1);
+
+		cache.onProductChanged(product(7, "Laptop premium", "Komputery", 9000), 7, false);
+		assertFalse(searched(cheap, 1));
+
+		cache.onProductChanged(product(8, "Laptop szkolny", "Komputery", 900), 8, false);
+		assertTrue(searched(cheap, 1, 8));
+	}
+
+	@Test
+	void substringEntryInvalidatedByTrigramTrigger() {
+		SearchResultCache.Lookup lookup = cache.substring("name", "abel", "", product -> true,
+				Product::getProductName);
+		searched(lookup, 1);
+
+		cache.onProductChanged(product(9, "Tablet", "Tablety"), 9, false);
+		assertFalse(searched(lookup, 1));
+
+		cache.onProductChanged(product(10, "Kabel USB", "Akcesoria"), 10, false);
+		assertTrue(searched(lookup, 1, 10));
+	}
+
+	@Test
+	void categoryOnlyEntryInvalidatedByProductInCategory() {
+		SearchResultCache.Lookup lookup = cache.analyzedOrSubstring("criteria", "", "Audio", "Audio",
+				product -> "Audio".equals(product.getCategory()), Product::getProductName);
+		searched(lookup, 1);
+
+		cache.onProductChanged(product(11, "Kabel", "Akcesoria"), 11, false);
+		assertFalse(searched(lookup, 1));
+
+		cache.onProductChanged(product(12, "Głośnik", "Audio"), 12, false);
+		assertTrue(searched(lookup, 1, 12));
+	}
+
+	@Test
+	void resultComputedAcrossChangeIsNotCached() {
+		SearchResultCache.Lookup lookup = cache.analyzed("search", "laptop", false, "", product -> true);
+
+		cache.get(lookup, () -> {
+			cache.onProductChanged(product(13, "Monitor", "Monitory"), 13, false);
+			return List.of(1);
+		}, id -> id, ids -> ids);
+
+		assertTrue(searched(lookup, 1));
+		assertFalse(searched(lookup, 1));
+	}
+
+	@Test
+	void invalidateAllClearsEverything() {
+		SearchResultCache.Lookup lookup = cache.analyzed("search", "laptop", false, "", product -> true);
+		searched(lookup, 1);
+
+		cache.invalidateAll();
+
+		assertTrue(searched(lookup, 1));
+		assertEquals(1, cache.stats().getInvalidations());
+	}
+
+	// true = wynik policzony przez wyszukiwanie (nie było go w cache)
+	private boolean searched(SearchResultCache.Lookup lookup, Integer... ids) {
+		AtomicInteger searches = new AtomicInteger();
+		cache.get(lookup, () -> {
+			searches.incrementAndGet();
+			return List.of(ids);
+		}, id -> id, loaded -> loaded);
+		return searches.get() == 1;
+	}
+
+	private static Product product(int id, String name, String category) {
+		return product(id, name, category, 100);
+	}
+
+	private static Product product(int id, String name, String category, int price) {
+		Product product = new Product();
+		product.setId(id);
+		product.setProductName(name);
+		product.setCategory(category);
+		product.setDescription(null);
+		product.setPrice(price);
+		return product;
+	}
+}
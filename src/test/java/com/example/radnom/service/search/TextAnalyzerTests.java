@@ -0,0 +1,53 @@
+package com.example.radnom.service.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextAnalyzerTests {
+
+	private final TextAnalyzer analyzer = new TextAnalyzer();
+
+	@Test
+	void foldsPolishDiacritics() {
+		assertEquals("zazolc gesla jazn", TextAnalyzer.fold("zażółć gęślą jaźń"));
+		assertEquals("lodz", TextAnalyzer.fold("łódź"));
+		// Inne akcenty przez dekompozycję Unicode
+		assertEquals("cafe", TextAnalyzer.fold("café"));
+		String ascii = "laptop";
+		assertSame(ascii, TextAnalyzer.fold(ascii));
+	}
+
+	@Test
+	void stemsInflectedFormsToSameTerm() {
+		assertEquals("laptop", TextAnalyzer.stem("laptopow"));
+		assertEquals("laptop", TextAnalyzer.stem("laptopami"));
+		assertEquals("laptop", TextAnalyzer.stem("laptopy"));
+		assertEquals("gaming", TextAnalyzer.stem("gamingowego"));
+		assertEquals(TextAnalyzer.stem("gamingowy"), TextAnalyzer.stem("gamingowych"));
+		// Stem krótszy niż 3 znaki - bez zmian
+		assertEquals("tea", TextAnalyzer.stem("tea"));
+		// Tokeny z cyframi bez zmian
+		assertEquals("rtx4090a", TextAnalyzer.stem("rtx4090a"));
+	}
+
+	@Test
+	void analyzeFoldsStemsAndDropsStopwords() {
+		assertEquals(List.of("sluchawk", "bezprzewod", "telefon"),
+				analyzer.analyze("Słuchawki bezprzewodowe do telefonów"));
+		assertEquals(List.of("laptop"), analyzer.analyze("Laptopów"));
+		assertEquals(analyzer.analyze("laptop"), analyzer.analyze("laptopy"));
+		assertEquals(List.of(), analyzer.analyze("i w z na"));
+		assertEquals(List.of(), analyzer.analyze(null));
+	}
+
+	@Test
+	void queryKeepsTrailingStopwordWhileTyping() {
+		assertEquals(List.of("kabel", "do"), analyzer.analyzeQuery("kabel do"));
+		assertEquals(List.of("kabel", "do"), analyzer.analyzeQuery("kabel i do"));
+		assertEquals(List.of("kabel"), analyzer.analyzeQuery("do kabel"));
+		assertEquals(List.of("ze"), analyzer.analyzeQuery("że"));
+	}
+}
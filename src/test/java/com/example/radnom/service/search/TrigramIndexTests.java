@@ -0,0 +1,82 @@
+package com.example.radnom.service.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrigramIndexTests {
+
+	@Test
+	void distanceCountsOsaEdits() {
+		assertEquals(0, TrigramIndex.distance("klawiatura", "klawiatura", 2));
+		assertEquals(1, TrigramIndex.distance("klawiatura", "klawiatra", 2));
+		assertEquals(1, TrigramIndex.distance("klawiatura", "klawiatora", 2));
+		assertEquals(1, TrigramIndex.distance("klawiatura", "klawiaturka", 2));
+		// Przestawienie sąsiednich znaków to jedna edycja (OSA), w Levenshteinie dwie
+		assertEquals(1, TrigramIndex.distance("klawiatura", "klawaitura", 2));
+		assertEquals(2, TrigramIndex.distance("klawiatura", "kalwiatora", 2));
+	}
+
+	@Test
+	void distanceStopsAboveLimit() {
+		assertEquals(2, TrigramIndex.distance("laptop", "lapek", 1));
+		assertEquals(3, TrigramIndex.distance("laptop", "monitor", 2));
+		assertEquals(2, TrigramIndex.distance("abc", "abcdef", 1));
+	}
+
+	@Test
+	void similarTermsFindsOneAndTwoEdits() {
+		TrigramIndex index = index("klawiatura", "klawiatury", "myszka", "monitor", "laptop", "laptopy");
+
+		assertEquals(List.of("klawiatura", "klawiatury"), index.similarTerms("klawiatora", 2));
+		assertEquals(List.of("klawiatura"), index.similarTerms("klawaitura", 1));
+		assertEquals(List.of("myszka"), index.similarTerms("mszyka", 2));
+		assertEquals(List.of(), index.similarTerms("mszyka", 1));
+		assertEquals(List.of("laptop", "laptopy"), index.similarTerms("laptpo", 2));
+	}
+
+	@Test
+	void resultsAreOrderedByDistanceThenTerm() {
+		TrigramIndex index = index("kabel", "kable", "kabiel", "kaseta");
+
+		assertEquals(List.of("kabel", "kabiel", "kable"), index.similarTerms("kabel", 2));
+	}
+
+	@Test
+	void skipsShortAndNonLetterTerms() {
+		TrigramIndex index = index("tv", "rtx4090", "1080", "ekran");
+
+		assertEquals(1, index.size());
+		assertEquals(List.of(), index.similarTerms("rtx4080", 2));
+		assertEquals(List.of(), index.similarTerms("ekran", 0));
+	}
+
+	@Test
+	void removedTermsStopMatchingAndIdsAreReused() {
+		TrigramIndex index = index("telefon", "telewizor");
+
+		index.remove("telefon");
+		index.remove("brak");
+		assertEquals(1, index.size());
+		assertEquals(List.of(), index.similarTerms("telefn", 2));
+
+		index.add("telefon");
+		index.add("telefon");
+		assertEquals(2, index.size());
+		assertEquals(List.of("telefon"), index.similarTerms("telefn", 2));
+
+		index.clear();
+		assertEquals(0, index.size());
+		assertEquals(List.of(), index.similarTerms("telewizr", 2));
+	}
+
+	private static TrigramIndex index(String... terms) {
+		TrigramIndex index = new TrigramIndex();
+		for (String term : terms) {
+			index.add(term);
+		}
+		return index;
+	}
+}
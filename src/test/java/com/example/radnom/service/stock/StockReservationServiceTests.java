@@ -0,0 +1,144 @@
+package com.example.radnom.service.stock;
+
+import com.example.radnom.entity.dto.StockReservationStatsDTO;
+import com.example.radnom.repository.ProductRepository;
+import com.example.radnom.service.catalog.CatalogVersion;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class StockReservationServiceTests {
+
+	private static final int PRODUCT_ID = 7;
+
+	@Test
+	void concurrentReserveAndReleaseNeverOversell() throws Exception {
+		int stock = 50;
+		StockReservationService service = service(stock);
+		int threads = 8;
+		int carts = 40;
+		CyclicBarrier start = new CyclicBarrier(threads);
+		AtomicInteger rejected = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<?>> workers = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				int worker = t;
+				workers.add(executor.submit(() -> {
+					start.await();
+					ThreadLocalRandom random = ThreadLocalRandom.current();
+					for (int i = 0; i < 5_000; i++) {
+						// Każdy wątek ma własne koszyki - rywalizacja tylko o licznik produktu
+						long cartId = worker * carts + random.nextInt(carts);
+						int operation = random.nextInt(4);
+						if (operation == 0) {
+							service.release(cartId, PRODUCT_ID);
+						} else {
+							try {
+								service.hold(cartId, PRODUCT_ID, random.nextInt(5));
+							} catch (IllegalArgumentException e) {
+								rejected.incrementAndGet();
+							}
+						}
+						assertTrue(service.available(PRODUCT_ID) >= 0, "oversold");
+					}
+					return null;
+				}));
+			}
+			for (Future<?> future : workers) {
+				future.get(30, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		StockReservationStatsDTO stats = service.stats();
+		assertTrue(rejected.get() > 0, "test never hit the stock limit");
+		assertTrue(stats.getHeldUnits() <= stock);
+		assertEquals(stock, service.available(PRODUCT_ID) + stats.getHeldUnits());
+
+		for (long cartId = 0; cartId < (long) threads * carts; cartId++) {
+			service.release(cartId, PRODUCT_ID);
+		}
+		assertEquals(stock, service.available(PRODUCT_ID));
+		assertEquals(0, service.stats().getActiveHolds());
+	}
+
+	@Test
+	void holdTakesOnlyTheDifference() {
+		StockReservationService service = service(10);
+
+		assertEquals(0, service.hold(1L, PRODUCT_ID, 4));
+		assertEquals(4, service.hold(1L, PRODUCT_ID, 6));
+		assertEquals(4, service.available(PRODUCT_ID));
+
+		assertEquals(6, service.hold(1L, PRODUCT_ID, 2));
+		assertEquals(8, service.available(PRODUCT_ID));
+
+		assertEquals(2, service.hold(1L, PRODUCT_ID, 0));
+		assertEquals(10, service.available(PRODUCT_ID));
+		assertEquals(0, service.stats().getActiveHolds());
+	}
+
+	@Test
+	void failedHoldKeepsPreviousReservation() {
+		StockReservationService service = service(5);
+		service.hold(1L, PRODUCT_ID, 3);
+		service.hold(2L, PRODUCT_ID, 2);
+
+		IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+				() -> service.hold(1L, PRODUCT_ID, 4));
+
+		assertEquals("Insufficient stock", error.getMessage());
+		assertEquals(0, service.available(PRODUCT_ID));
+		assertEquals(5, service.stats().getHeldUnits());
+	}
+
+	@Test
+	void expiredHoldsReturnToPool() {
+		StockReservationService service = new StockReservationService(repository(5),
+				mock(JdbcTemplate.class), mock(ApplicationEventPublisher.class), mock(CatalogVersion.class), 0);
+		service.hold(1L, PRODUCT_ID, 5);
+		assertEquals(0, service.available(PRODUCT_ID));
+
+		service.sweepExpiredHolds();
+
+		assertEquals(5, service.available(PRODUCT_ID));
+		assertEquals(0, service.stats().getActiveHolds());
+	}
+
+	@Test
+	void committedHoldsStayTakenUntilReconciled() {
+		StockReservationService service = service(5);
+		service.hold(1L, PRODUCT_ID, 3);
+
+		service.commit(1L);
+		service.release(1L, PRODUCT_ID);
+
+		assertEquals(2, service.available(PRODUCT_ID));
+		assertEquals(3, service.stats().getPendingSoldUnits());
+		assertEquals(0, service.stats().getActiveHolds());
+	}
+
+	private static StockReservationService service(int stock) {
+		return new StockReservationService(repository(stock), mock(JdbcTemplate.class),
+				mock(ApplicationEventPublisher.class), mock(CatalogVersion.class), 15);
+	}
+
+	private static ProductRepository repository(int stock) {
+		ProductRepository repository = mock(ProductRepository.class);
+		List<Object[]> rows = new ArrayList<>();
+		rows.add(new Object[]{PRODUCT_ID, stock});
+		when(repository.findStockByIdIn(anyCollection())).thenReturn(rows);
+		return repository;
+	}
+}